@@ -0,0 +1,31 @@
+package org.example.benchmark;
+
+import org.example.cache.RateBookHolder;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+
+import java.math.BigDecimal;
+
+// Общий набор данных: USD, EUR, GBP и курсы USD→EUR, USD→GBP
+final class BenchmarkData {
+    static final Currency USD = new Currency(1, "USD", "United States dollar", "$");
+    static final Currency EUR = new Currency(2, "EUR", "Euro", "€");
+    static final Currency GBP = new Currency(3, "GBP", "Pound sterling", "£");
+
+    static final ExchangeRate USD_EUR = new ExchangeRate(1, USD, EUR, new BigDecimal("0.921500"));
+    static final ExchangeRate USD_GBP = new ExchangeRate(2, USD, GBP, new BigDecimal("0.789300"));
+
+    private BenchmarkData() {
+    }
+
+    // Книга собирается без БД: публикуем записи напрямую, DAO не нужны
+    static RateBookHolder rateBook() {
+        RateBookHolder holder = new RateBookHolder(null, null);
+        holder.commitCurrency(() -> USD);
+        holder.commitCurrency(() -> EUR);
+        holder.commitCurrency(() -> GBP);
+        holder.publishRate(USD_EUR);
+        holder.publishRate(USD_GBP);
+        return holder;
+    }
+}
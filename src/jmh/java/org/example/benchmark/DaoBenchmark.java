@@ -0,0 +1,57 @@
+package org.example.benchmark;
+
+import org.example.dao.ExchangeRateDao;
+import org.example.dao.ExchangeRateDaoImpl;
+import org.example.entity.ExchangeRate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Запросы и сборка строк DAO на временном файле SQLite с данными из data.sql
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DaoBenchmark {
+    private Path dir;
+    private ExchangeRateDao exchangeRateDao;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("currency-exchange-jmh");
+        // Должно быть выставлено до первого обращения к ConnectionManager
+        System.setProperty("db.path", dir.resolve("bench.db").toString());
+        exchangeRateDao = ExchangeRateDaoImpl.getInstance();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public Optional<ExchangeRate> findByCurrencyCodes() {
+        return exchangeRateDao.findByCurrencyCodes("USD", "EUR");
+    }
+
+    @Benchmark
+    public List<ExchangeRate> findAll() {
+        return exchangeRateDao.findAll();
+    }
+}
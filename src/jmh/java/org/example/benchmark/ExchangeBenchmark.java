@@ -0,0 +1,52 @@
+package org.example.benchmark;
+
+import org.example.dto.ExchangeResultDto;
+import org.example.mapper.CurrencyMapper;
+import org.example.routing.RateRouter;
+import org.example.routing.RoutingPolicy;
+import org.example.service.ExchangeService;
+import org.example.service.ExchangeServiceImpl;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExchangeBenchmark {
+    private final BigDecimal amount = new BigDecimal("1234.56");
+    private ExchangeService exchangeService;
+
+    @Setup
+    public void setUp() {
+        exchangeService = new ExchangeServiceImpl(
+                BenchmarkData.rateBook(),
+                Mappers.getMapper(CurrencyMapper.class),
+                new RateRouter(List.of("USD"), 2, RoutingPolicy.FEWEST_HOPS)
+        );
+    }
+
+    @Benchmark
+    public ExchangeResultDto direct() {
+        return exchangeService.exchange("USD", "EUR", amount);
+    }
+
+    @Benchmark
+    public ExchangeResultDto reverse() {
+        return exchangeService.exchange("EUR", "USD", amount);
+    }
+
+    @Benchmark
+    public ExchangeResultDto cross() {
+        return exchangeService.exchange("EUR", "GBP", amount);
+    }
+}
@@ -0,0 +1,33 @@
+package org.example.benchmark;
+
+import org.example.dto.CurrencyDto;
+import org.example.dto.ExchangeRateDto;
+import org.example.mapper.CurrencyMapper;
+import org.example.mapper.ExchangeRateMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MapperBenchmark {
+    private final CurrencyMapper currencyMapper = Mappers.getMapper(CurrencyMapper.class);
+    private final ExchangeRateMapper exchangeRateMapper = Mappers.getMapper(ExchangeRateMapper.class);
+
+    @Benchmark
+    public CurrencyDto currencyToDto() {
+        return currencyMapper.toDto(BenchmarkData.USD);
+    }
+
+    @Benchmark
+    public ExchangeRateDto exchangeRateToDto() {
+        return exchangeRateMapper.toDto(BenchmarkData.USD_EUR);
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.benchmark;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.dto.ExchangeRateDto;
+import org.example.mapper.ExchangeRateMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация так же, как в BaseServlet: writeJson (ObjectMapper -> Writer) и потоковый writeJsonArray
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SerializationBenchmark {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectWriter streamWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    @Param({"1", "100"})
+    public int size;
+
+    private ExchangeRateDto single;
+    private List<ExchangeRateDto> list;
+
+    @Setup
+    public void setUp() {
+        ExchangeRateMapper mapper = Mappers.getMapper(ExchangeRateMapper.class);
+        single = mapper.toDto(BenchmarkData.USD_EUR);
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(mapper.toDto(i % 2 == 0 ? BenchmarkData.USD_EUR : BenchmarkData.USD_GBP));
+        }
+    }
+
+    @Benchmark
+    public void writeJsonSingle() throws IOException {
+        Writer writer = new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
+        objectMapper.writeValue(writer, single);
+    }
+
+    @Benchmark
+    public void writeJsonList() throws IOException {
+        Writer writer = new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8);
+        objectMapper.writeValue(writer, list);
+    }
+
+    @Benchmark
+    public void writeJsonArrayStreaming() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            for (ExchangeRateDto dto : list) {
+                streamWriter.writeValue(generator, dto);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(list);
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.loadtest;
+
+import org.example.util.SqlScript;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Создаёт файл SQLite по схеме приложения и наполняет его валютами и курсами нужного масштаба.
+// Приложение видит уже существующий файл и только догоняет миграции.
+final class DatabaseSeeder {
+
+    private DatabaseSeeder() {
+    }
+
+    static List<String> seed(Path dbFile, int currencyCount, long seed) throws SQLException, IOException {
+        List<String> codes = currencyCodes(currencyCount);
+        Random random = new Random(seed);
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dbFile)) {
+            conn.setAutoCommit(false);
+            runSchema(conn);
+
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO Currencies (Code, FullName, Sign) VALUES (?, ?, ?)")) {
+                for (String code : codes) {
+                    insert.setString(1, code);
+                    insert.setString(2, "Currency " + code);
+                    insert.setString(3, code.substring(0, 1));
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+
+            // Каждая валюта котируется от USD, часть — ещё и от EUR: так есть прямые, обратные и кросс-курсы
+            try (PreparedStatement insert = conn.prepareStatement(
+                    "INSERT INTO ExchangeRates (BaseCurrencyId, TargetCurrencyId, Rate) VALUES (?, ?, ?)")) {
+                for (int id = 2; id <= codes.size(); id++) {
+                    addRate(insert, 1, id, random);
+                    if (id > 2 && random.nextInt(3) == 0) {
+                        addRate(insert, 2, id, random);
+                    }
+                }
+                insert.executeBatch();
+            }
+            conn.commit();
+        }
+        return codes;
+    }
+
+    private static void addRate(PreparedStatement insert, int baseId, int targetId, Random random) throws SQLException {
+        insert.setInt(1, baseId);
+        insert.setInt(2, targetId);
+        insert.setDouble(3, 0.01 + random.nextDouble() * 100);
+        insert.addBatch();
+    }
+
+    // USD, EUR, затем AAA, AAB, ...
+    private static List<String> currencyCodes(int count) {
+        List<String> codes = new ArrayList<>(List.of("USD", "EUR"));
+        for (int i = 0; codes.size() < count; i++) {
+            String code = "" + (char) ('A' + i / 676 % 26) + (char) ('A' + i / 26 % 26) + (char) ('A' + i % 26);
+            if (!codes.contains(code)) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    private static void runSchema(Connection conn) throws IOException, SQLException {
+        try (InputStream is = DatabaseSeeder.class.getClassLoader().getResourceAsStream("database/schema.sql")) {
+            if (is == null) {
+                throw new IllegalStateException("database/schema.sql not found on classpath");
+            }
+            String sql = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            for (String statement : SqlScript.split(sql)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(statement);
+                }
+            }
+        }
+    }
+}
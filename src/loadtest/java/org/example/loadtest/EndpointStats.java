@@ -0,0 +1,53 @@
+package org.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Две гистограммы на эндпоинт: от запланированного момента (с поправкой на coordinated omission)
+// и от фактической отправки — разница между ними показывает очередь на стороне клиента
+final class EndpointStats {
+    private static final long MAX_LATENCY = TimeUnit.MINUTES.toNanos(5);
+
+    private final String name;
+    private final Histogram responseTime = new Histogram(MAX_LATENCY, 3);
+    private final Histogram serviceTime = new Histogram(MAX_LATENCY, 3);
+    private final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long intendedStart, long actualStart, long end) {
+        responseTime.recordValue(Math.min(end - intendedStart, MAX_LATENCY));
+        serviceTime.recordValue(Math.min(end - actualStart, MAX_LATENCY));
+    }
+
+    void error() {
+        errors.increment();
+    }
+
+    synchronized String report(double seconds) {
+        return String.format("%-14s %9d %7d %10.1f %9.2f %9.2f %9.2f %9.2f | %9.2f %9.2f",
+                name,
+                responseTime.getTotalCount(),
+                errors.sum(),
+                responseTime.getTotalCount() / seconds,
+                millis(responseTime.getValueAtPercentile(50)),
+                millis(responseTime.getValueAtPercentile(99)),
+                millis(responseTime.getValueAtPercentile(99.9)),
+                millis(responseTime.getMaxValue()),
+                millis(serviceTime.getValueAtPercentile(50)),
+                millis(serviceTime.getValueAtPercentile(99)));
+    }
+
+    static String header() {
+        return String.format("%-14s %9s %7s %10s %9s %9s %9s %9s | %9s %9s",
+                "endpoint", "count", "errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "svc p50", "svc p99");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Параметры прогона из -Dload.*; gradle loadTest пробрасывает их из -P
+record LoadTestConfig(
+        int ratePerSecond,
+        int warmupSeconds,
+        int durationSeconds,
+        Map<String, Integer> mix,
+        int currencies,
+        long seed,
+        int maxInFlight,
+        int batchSize
+) {
+    static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig(
+                Integer.getInteger("load.rate", 200),
+                Integer.getInteger("load.warmupSec", 5),
+                Integer.getInteger("load.durationSec", 30),
+                parseMix(System.getProperty("load.mix", "exchange:60,currency:20,exchangeRates:10,patch:10")),
+                Integer.getInteger("load.currencies", 100),
+                Long.getLong("load.seed", 42L),
+                Integer.getInteger("load.maxInFlight", 10_000),
+                // Сколько конвертаций в одном POST /exchange/batch (эндпоинт batch в load.mix)
+                Integer.getInteger("load.batchSize", 50)
+        );
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String part : value.split(",")) {
+            String[] kv = part.trim().split(":");
+            if (kv.length != 2) {
+                throw new IllegalArgumentException("Invalid load.mix entry: " + part + " (expected name:weight)");
+            }
+            mix.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
+        }
+        return mix;
+    }
+}
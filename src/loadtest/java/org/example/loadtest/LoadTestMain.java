@@ -0,0 +1,62 @@
+package org.example.loadtest;
+
+import org.example.config.AppProperties;
+import org.example.standalone.EmbeddedServer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+// Поднимает приложение во встроенном Tomcat на временной БД и гоняет смешанную нагрузку с фиксированной частотой.
+// Запуск: ./gradlew loadTest -Pload.rate=500 -Pload.durationSec=60 -Pload.mix=exchange:70,currency:20,patch:10
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        Path workDir = Files.createTempDirectory("currency-exchange-load");
+        Path dbFile = workDir.resolve("load.db");
+
+        List<String> codes = DatabaseSeeder.seed(dbFile, config.currencies(), config.seed());
+        // До первого обращения к ConnectionManager
+        System.setProperty("db.path", dbFile.toString());
+        // Вся нагрузка идёт с одного адреса: бакет клиента срезал бы её целиком, проверяем только лимиты параллельности
+        if (System.getProperty("admission.client.ratePerSec") == null) {
+            System.setProperty("admission.client.ratePerSec", "0");
+        }
+
+        try (EmbeddedServer app = new EmbeddedServer(workDir, 0, null)) {
+            String baseUrl = app.start();
+            System.out.printf("Mode: %s%n", AppProperties.getBoolean("async.enabled", false)
+                    ? "async, virtual threads" : "thread per request");
+            System.out.printf("Server: %s, %d currencies, %d req/s for %ds after %ds warmup, mix %s%n",
+                    baseUrl, codes.size(), config.ratePerSecond(), config.durationSeconds(),
+                    config.warmupSeconds(), config.mix());
+
+            Map<String, EndpointStats> stats = new OpenLoopDriver(config, new RequestMix(baseUrl, codes, config.mix(), config.batchSize())).run();
+
+            System.out.println(EndpointStats.header());
+            for (EndpointStats endpointStats : stats.values()) {
+                System.out.println(endpointStats.report(config.durationSeconds()));
+            }
+            printResources();
+        }
+    }
+
+    // Для сравнения режимов: платформенные потоки и память процесса (драйвер нагрузки тоже в нём)
+    private static void printResources() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long committedMiB = (memory.getHeapMemoryUsage().getCommitted()
+                + memory.getNonHeapMemoryUsage().getCommitted()) / (1024 * 1024);
+        System.out.printf("Platform threads: %d live, %d peak; heap used %d MiB; committed heap+non-heap %d MiB%n",
+                threads.getThreadCount(), threads.getPeakThreadCount(),
+                memory.getHeapMemoryUsage().getUsed() / (1024 * 1024), committedMiB);
+    }
+}
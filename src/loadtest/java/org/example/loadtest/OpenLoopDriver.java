@@ -0,0 +1,82 @@
+package org.example.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Открытая модель нагрузки: запросы уходят по расписанию независимо от того, ответил ли сервер на прошлые.
+// Задержка считается от запланированного момента, поэтому медленный ответ не «прячет» запросы,
+// которые клиент не успел отправить вовремя (coordinated omission).
+final class OpenLoopDriver {
+    private final LoadTestConfig config;
+    private final RequestMix mix;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final Map<String, EndpointStats> stats = new LinkedHashMap<>();
+
+    OpenLoopDriver(LoadTestConfig config, RequestMix mix) {
+        this.config = config;
+        this.mix = mix;
+        for (String endpoint : mix.endpoints()) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+    }
+
+    Map<String, EndpointStats> run() throws InterruptedException {
+        Random random = new Random(config.seed());
+        Semaphore inFlight = new Semaphore(config.maxInFlight());
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.ratePerSecond();
+        long totalRequests = (long) config.ratePerSecond() * (config.warmupSeconds() + config.durationSeconds());
+        long warmupRequests = (long) config.ratePerSecond() * config.warmupSeconds();
+        CountDownLatch done = new CountDownLatch((int) (totalRequests - warmupRequests));
+
+        long start = System.nanoTime();
+        for (long i = 0; i < totalRequests; i++) {
+            long intendedStart = start + i * intervalNanos;
+            long wait = intendedStart - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            boolean measured = i >= warmupRequests;
+            RequestMix.Next next = mix.next(random);
+            EndpointStats endpointStats = stats.get(next.endpoint());
+            // Перегруженный клиент не должен расти бесконечно: сверх лимита запрос считается ошибкой
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    endpointStats.error();
+                    done.countDown();
+                }
+                continue;
+            }
+
+            long actualStart = System.nanoTime();
+            client.sendAsync(next.request(), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long end = System.nanoTime();
+                        inFlight.release();
+                        if (!measured) {
+                            return;
+                        }
+                        if (failure != null || response.statusCode() >= 500) {
+                            endpointStats.error();
+                        } else {
+                            endpointStats.record(intendedStart, actualStart, end);
+                        }
+                        done.countDown();
+                    });
+        }
+
+        if (!done.await(1, TimeUnit.MINUTES)) {
+            System.err.println("Some requests did not complete within a minute after the run");
+        }
+        return stats;
+    }
+}
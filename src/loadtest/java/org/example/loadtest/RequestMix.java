@@ -0,0 +1,92 @@
+package org.example.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Взвешенный выбор следующего запроса по load.mix
+final class RequestMix {
+    record Next(String endpoint, HttpRequest request) {
+    }
+
+    private final String baseUrl;
+    private final List<String> codes;
+    private final int batchSize;
+    private final List<String> endpoints = new ArrayList<>();
+    private final int[] cumulativeWeights;
+    private final int totalWeight;
+
+    RequestMix(String baseUrl, List<String> codes, Map<String, Integer> mix, int batchSize) {
+        this.baseUrl = baseUrl;
+        this.codes = codes;
+        this.batchSize = batchSize;
+        this.cumulativeWeights = new int[mix.size()];
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : mix.entrySet()) {
+            if (!List.of("exchange", "batch", "exchangeRates", "currency", "patch").contains(entry.getKey())) {
+                throw new IllegalArgumentException("Unknown endpoint in load.mix: " + entry.getKey());
+            }
+            total += entry.getValue();
+            cumulativeWeights[endpoints.size()] = total;
+            endpoints.add(entry.getKey());
+        }
+        this.totalWeight = total;
+    }
+
+    List<String> endpoints() {
+        return endpoints;
+    }
+
+    Next next(Random random) {
+        int pick = random.nextInt(totalWeight);
+        int i = 0;
+        while (pick >= cumulativeWeights[i]) {
+            i++;
+        }
+        String endpoint = endpoints.get(i);
+        return new Next(endpoint, build(endpoint, random));
+    }
+
+    private HttpRequest build(String endpoint, Random random) {
+        return switch (endpoint) {
+            case "exchange" -> get("/exchange?from=" + code(random) + "&to=" + code(random)
+                                   + "&amount=" + (1 + random.nextInt(10_000)));
+            case "batch" -> HttpRequest.newBuilder(URI.create(baseUrl + "/exchange/batch"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(batchBody(random)))
+                    .build();
+            case "exchangeRates" -> get("/exchangeRates");
+            case "currency" -> get("/currency/" + code(random));
+            case "patch" -> HttpRequest.newBuilder(URI.create(baseUrl + "/exchangeRate/USD" + codes.get(1 + random.nextInt(codes.size() - 1))))
+                    .header("Content-Type", "application/x-www-form-urlencoded")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString("rate=" + (0.01 + random.nextDouble() * 100)))
+                    .build();
+            default -> throw new IllegalStateException(endpoint);
+        };
+    }
+
+    // Те же случайные пары и суммы, что у exchange, только batchSize штук в одном теле
+    private String batchBody(Random random) {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < batchSize; i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            body.append("{\"from\":\"").append(code(random))
+                    .append("\",\"to\":\"").append(code(random))
+                    .append("\",\"amount\":\"").append(1 + random.nextInt(10_000)).append("\"}");
+        }
+        return body.append(']').toString();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private String code(Random random) {
+        return codes.get(random.nextInt(codes.size()));
+    }
+}
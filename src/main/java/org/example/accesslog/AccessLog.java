@@ -0,0 +1,172 @@
+package org.example.accesslog;
+
+import org.example.config.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Журнал доступа: поток запроса только решает, нужна ли запись, и кладёт её в кольцевой буфер;
+// форматирование и вывод в логгер "access" делает фоновый поток.
+public final class AccessLog implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AccessLog.class);
+    static final Logger ACCESS = LoggerFactory.getLogger("access");
+
+    private static final int DRAIN_BATCH = 256;
+
+    private final AccessLogRing ring;
+    private final double defaultSampleRate;
+    private final Map<String, Double> sampleRates;
+    private final Map<String, Double> resolvedRates = new ConcurrentHashMap<>();
+    // Ответы с этим статусом и выше пишутся всегда, без выборки
+    private final int alwaysLogStatus;
+    private final long idleParkNanos;
+    private final Logger target;
+    private final StringBuilder line = new StringBuilder(256);
+    private final LongAdder written = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public AccessLog(int bufferSize, double defaultSampleRate, Map<String, Double> sampleRates,
+                     int alwaysLogStatus, long idleParkMs, Logger target) {
+        this.ring = new AccessLogRing(bufferSize);
+        this.defaultSampleRate = defaultSampleRate;
+        this.sampleRates = Map.copyOf(sampleRates);
+        this.alwaysLogStatus = alwaysLogStatus;
+        this.idleParkNanos = TimeUnit.MILLISECONDS.toNanos(idleParkMs);
+        this.target = target;
+        this.writer = new Thread(this::writeLoop, "access-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static AccessLog fromProperties() {
+        Map<String, Double> rates = new HashMap<>();
+        AppProperties.getByPrefix("accesslog.sample.").forEach((servlet, rate) -> {
+            if (!"default".equals(servlet)) {
+                rates.put(servlet, Double.parseDouble(rate));
+            }
+        });
+        return new AccessLog(
+                AppProperties.getInt("accesslog.bufferSize", 8192),
+                Double.parseDouble(AppProperties.get("accesslog.sample.default", "1.0")),
+                rates,
+                AppProperties.getInt("accesslog.alwaysLogStatus", 500),
+                AppProperties.getLong("accesslog.idleParkMs", 10),
+                ACCESS
+        );
+    }
+
+    // Дёшево, без аллокаций: уровень логгера, затем выборка по сервлету
+    public boolean isSampled(String servlet, int status) {
+        if (!target.isInfoEnabled()) {
+            return false;
+        }
+        if (status >= alwaysLogStatus) {
+            return true;
+        }
+        double rate = resolvedRates.computeIfAbsent(servlet, this::sampleRateOf);
+        return rate >= 1.0 || (rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate);
+    }
+
+    // В WAR сервлет по умолчанию называется полным именем класса, во встроенном Tomcat — простым
+    private double sampleRateOf(String servlet) {
+        Double rate = sampleRates.get(servlet);
+        if (rate == null) {
+            rate = sampleRates.get(servlet.substring(servlet.lastIndexOf('.') + 1));
+        }
+        return rate != null ? rate : defaultSampleRate;
+    }
+
+    public void record(long timestamp, String method, String uri, String query, int status,
+                       long durationNanos, String servlet, String remoteAddr) {
+        ring.offer(timestamp, method, uri, query, status, durationNanos, servlet, remoteAddr);
+    }
+
+    public long getWritten() {
+        return written.sum();
+    }
+
+    public long getDropped() {
+        return ring.getDropped();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        while (running) {
+            try {
+                if (ring.drainTo(this::write, DRAIN_BATCH) == 0) {
+                    LockSupport.parkNanos(this, idleParkNanos);
+                }
+            } catch (RuntimeException e) {
+                logger.error("Access log writer failed", e);
+            }
+        }
+        // Дописываем то, что успело попасть в буфер до остановки
+        ring.drainTo(this::write, Integer.MAX_VALUE);
+    }
+
+    private void write(AccessLogEntry entry) {
+        line.setLength(0);
+        format(entry, line);
+        target.info(line.toString());
+        written.increment();
+    }
+
+    // logfmt: ключ=значение через пробел, строки с пробелами и кавычками — в кавычках
+    static void format(AccessLogEntry entry, StringBuilder out) {
+        out.append("ts=").append(Instant.ofEpochMilli(entry.timestamp));
+        out.append(" method=").append(entry.method);
+        appendValue(out.append(" path="), entry.uri);
+        if (entry.query != null) {
+            appendValue(out.append(" query="), entry.query);
+        }
+        out.append(" status=").append(entry.status);
+        out.append(" duration_us=").append(TimeUnit.NANOSECONDS.toMicros(entry.durationNanos));
+        out.append(" servlet=").append(entry.servlet);
+        if (entry.remoteAddr != null) {
+            out.append(" remote=").append(entry.remoteAddr);
+        }
+    }
+
+    private static void appendValue(StringBuilder out, String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c <= ' ' || c == '"' || c == '=' || c == '\\';
+        }
+        if (!quote) {
+            out.append(value);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < ' ') {
+                out.append(' ');
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.accesslog;
+
+// Ячейка кольцевого буфера. Объекты создаются один раз вместе с буфером и переиспользуются,
+// поэтому поля изменяемые; читать их можно только внутри AccessLogRing.drainTo.
+public final class AccessLogEntry {
+    long timestamp;
+    String method;
+    String uri;
+    String query;
+    int status;
+    long durationNanos;
+    String servlet;
+    String remoteAddr;
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public String getServlet() {
+        return servlet;
+    }
+
+    public String getRemoteAddr() {
+        return remoteAddr;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Ограниченный кольцевой буфер без блокировок: много писателей (потоки запросов), один читатель.
+// У каждой ячейки свой номер последовательности: писатель захватывает позицию CAS-ом по tail,
+// заполняет ячейку и публикует её, читатель освобождает ячейку для следующего круга.
+// Полный буфер запись не ждёт — она отбрасывается и учитывается в dropped.
+public final class AccessLogRing {
+
+    @FunctionalInterface
+    public interface EntryHandler {
+        void handle(AccessLogEntry entry);
+    }
+
+    private final AccessLogEntry[] entries;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    // Меняется только потоком-читателем
+    private long head;
+
+    public AccessLogRing(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two, got " + capacity);
+        }
+        this.entries = new AccessLogEntry[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new AccessLogEntry();
+            sequences.set(i, i);
+        }
+    }
+
+    public boolean offer(long timestamp, String method, String uri, String query, int status,
+                         long durationNanos, String servlet, String remoteAddr) {
+        long position = tail.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                // Читатель отстал на целый круг
+                dropped.increment();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+
+        AccessLogEntry entry = entries[index];
+        entry.timestamp = timestamp;
+        entry.method = method;
+        entry.uri = uri;
+        entry.query = query;
+        entry.status = status;
+        entry.durationNanos = durationNanos;
+        entry.servlet = servlet;
+        entry.remoteAddr = remoteAddr;
+        sequences.lazySet(index, position + 1);
+        return true;
+    }
+
+    // Вызывается только из одного потока. Возвращает число обработанных записей.
+    public int drainTo(EntryHandler handler, int limit) {
+        int drained = 0;
+        while (drained < limit) {
+            int index = (int) (head & mask);
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            AccessLogEntry entry = entries[index];
+            try {
+                handler.handle(entry);
+            } finally {
+                // Ссылки не держим, чтобы не продлевать жизнь строкам запроса
+                entry.method = entry.uri = entry.query = entry.servlet = entry.remoteAddr = null;
+                sequences.lazySet(index, head + entries.length);
+                head++;
+            }
+            drained++;
+        }
+        return drained;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// AIMD-лимит одновременных запросов. Сигнал — ожидание соединения из пула: пока оно укладывается в цель,
+// лимит растёт примерно на единицу за каждые limit образцов; ожидание дольше цели или таймаут пула
+// уменьшают лимит в backoff раз, но не чаще раза в cooldown — одна перегрузка даёт пачку медленных образцов.
+public final class AdaptiveLimit {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final double backoff;
+    private final long cooldownNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+    private long lastDecreaseNanos;
+
+    public AdaptiveLimit(int initialLimit, int minLimit, int maxLimit, long targetNanos, double backoff,
+                         long cooldownNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetNanos = targetNanos;
+        this.backoff = backoff;
+        this.cooldownNanos = cooldownNanos;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.lastDecreaseNanos = System.nanoTime() - cooldownNanos;
+    }
+
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > (int) limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public void onSample(long waitNanos) {
+        onSample(waitNanos, System.nanoTime());
+    }
+
+    public void onTimeout() {
+        onTimeout(System.nanoTime());
+    }
+
+    synchronized void onSample(long waitNanos, long now) {
+        if (waitNanos > targetNanos) {
+            decrease(now);
+        } else if (inFlight.get() * 2 >= limit) {
+            // Растём, только пока лимит действительно занят: иначе за время простоя он ушёл бы к максимуму
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    synchronized void onTimeout(long now) {
+        decrease(now);
+    }
+
+    private void decrease(long now) {
+        if (now - lastDecreaseNanos < cooldownNanos) {
+            return;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * backoff);
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.admission;
+
+import org.example.config.AppProperties;
+import org.example.metrics.PoolWaitListener;
+import org.example.util.ConnectionManager;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// Решает, пускать ли запрос дальше, до того как он встанет в очередь к пулу соединений.
+// Три рубежа: токен-бакет клиента (429), адаптивный лимит чтений (503) и отдельный фиксированный
+// бюджет записей (503) — конвертации не могут занять места, оставленные под POST/PATCH, и наоборот.
+public final class AdmissionController implements PoolWaitListener {
+    public static final String RATE_LIMITED = "rate_limited";
+    public static final String READ_LIMIT = "read_limit";
+    public static final String WRITE_BUDGET = "write_budget";
+
+    private final ClientRateLimiter clients;
+    private final AdaptiveLimit readLimit;
+    private final int writeBudget;
+    private final Semaphore writePermits;
+
+    public AdmissionController(ClientRateLimiter clients, AdaptiveLimit readLimit, int writeBudget) {
+        this.clients = clients;
+        this.readLimit = readLimit;
+        this.writeBudget = writeBudget;
+        this.writePermits = new Semaphore(writeBudget);
+    }
+
+    public static AdmissionController fromProperties() {
+        double ratePerSecond = Double.parseDouble(AppProperties.get("admission.client.ratePerSec", "100"));
+        ClientRateLimiter clients = ratePerSecond > 0
+                ? new ClientRateLimiter(ratePerSecond,
+                        Double.parseDouble(AppProperties.get("admission.client.burst", "200")),
+                        AppProperties.getInt("admission.client.maxTracked", 10_000))
+                : null;
+        AdaptiveLimit readLimit = new AdaptiveLimit(
+                AppProperties.getInt("admission.read.initialLimit", 32),
+                AppProperties.getInt("admission.read.minLimit", 4),
+                AppProperties.getInt("admission.read.maxLimit", 256),
+                TimeUnit.MILLISECONDS.toNanos(AppProperties.getLong("admission.read.targetWaitMs", 20)),
+                Double.parseDouble(AppProperties.get("admission.read.backoff", "0.7")),
+                TimeUnit.MILLISECONDS.toNanos(AppProperties.getLong("admission.read.cooldownMs", 1_000)));
+        return new AdmissionController(clients, readLimit, AppProperties.getInt("admission.write.maxConcurrent", 4));
+    }
+
+    // null — запрос допущен и должен вернуть место через release(write)
+    public Rejection tryAdmit(String client, boolean write) {
+        if (clients != null) {
+            long waitNanos = clients.tryAcquire(client);
+            if (waitNanos > 0) {
+                return new Rejection(RATE_LIMITED, 429, retryAfterSeconds(waitNanos), "Rate limit exceeded, please retry");
+            }
+        }
+        if (write) {
+            return writePermits.tryAcquire() ? null : new Rejection(WRITE_BUDGET, 503, 1, "Too many writes in flight, please retry");
+        }
+        return readLimit.tryAcquire() ? null : new Rejection(READ_LIMIT, 503, 1, "Server is overloaded, please retry");
+    }
+
+    public void release(boolean write) {
+        if (write) {
+            writePermits.release();
+        } else {
+            readLimit.release();
+        }
+    }
+
+    // Очередь к единственному писателю ожидаема и ограничена бюджетом записей, лимит чтений ведёт только пул читателей
+    @Override
+    public void onConnectionAcquired(String pool, long waitNanos) {
+        if (ConnectionManager.READ_POOL.equals(pool)) {
+            readLimit.onSample(waitNanos);
+        }
+    }
+
+    @Override
+    public void onConnectionTimeout(String pool) {
+        if (ConnectionManager.READ_POOL.equals(pool)) {
+            readLimit.onTimeout();
+        }
+    }
+
+    public AdaptiveLimit getReadLimit() {
+        return readLimit;
+    }
+
+    public int getWriteBudget() {
+        return writeBudget;
+    }
+
+    public int getWritesInFlight() {
+        return writeBudget - writePermits.availablePermits();
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    public record Rejection(String reason, int status, long retryAfterSeconds, String message) {
+    }
+}
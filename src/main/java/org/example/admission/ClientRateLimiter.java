@@ -0,0 +1,57 @@
+package org.example.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Токен-бакет на клиента. Бакеты простаивающих клиентов полны — их выметаем, когда таблица заполнена
+// (не чаще раза в секунду). Если места всё равно нет, новые клиенты делят один общий бакет:
+// память ограничена при любом числе адресов.
+public final class ClientRateLimiter {
+    private static final long SWEEP_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final double ratePerSecond;
+    private final double burst;
+    private final int maxClients;
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final TokenBucket overflow;
+    private final AtomicLong nextSweepNanos;
+
+    public ClientRateLimiter(double ratePerSecond, double burst, int maxClients) {
+        long now = System.nanoTime();
+        this.ratePerSecond = ratePerSecond;
+        this.burst = burst;
+        this.maxClients = maxClients;
+        this.overflow = new TokenBucket(ratePerSecond, burst, now);
+        this.nextSweepNanos = new AtomicLong(now);
+    }
+
+    // 0 — запрос пропущен, иначе через сколько наносекунд у клиента появится токен
+    public long tryAcquire(String client) {
+        return tryAcquire(client, System.nanoTime());
+    }
+
+    long tryAcquire(String client, long now) {
+        TokenBucket bucket = buckets.get(client);
+        if (bucket == null) {
+            bucket = register(client, now);
+        }
+        return bucket.tryTake(now);
+    }
+
+    int trackedClients() {
+        return buckets.size();
+    }
+
+    private TokenBucket register(String client, long now) {
+        if (buckets.size() >= maxClients) {
+            long sweepAt = nextSweepNanos.get();
+            if (now - sweepAt >= 0 && nextSweepNanos.compareAndSet(sweepAt, now + SWEEP_INTERVAL_NANOS)) {
+                buckets.values().removeIf(bucket -> bucket.isFull(now));
+            }
+            if (buckets.size() >= maxClients) {
+                return overflow;
+            }
+        }
+        return buckets.computeIfAbsent(client, ignored -> new TokenBucket(ratePerSecond, burst, now));
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.admission;
+
+final class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long updatedNanos;
+
+    TokenBucket(double ratePerSecond, double capacity, long now) {
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.updatedNanos = now;
+    }
+
+    // 0 — токен выдан, иначе через сколько наносекунд появится следующий
+    synchronized long tryTake(long now) {
+        refill(now);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / tokensPerNano);
+    }
+
+    synchronized boolean isFull(long now) {
+        refill(now);
+        return tokens >= capacity;
+    }
+
+    private void refill(long now) {
+        if (now > updatedNanos) {
+            tokens = Math.min(capacity, tokens + (now - updatedNanos) * tokensPerNano);
+            updatedNanos = now;
+        }
+    }
+}
@@ -0,0 +1,608 @@
+package org.example.arbitrage;
+
+import org.example.cache.RateBook;
+import org.example.cache.RateBookHolder;
+import org.example.cache.RateBookListener;
+import org.example.config.AppProperties;
+import org.example.entity.ExchangeRate;
+import org.example.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Поиск арбитражных циклов в графе курсов. Котировка base→target с курсом r даёт два ребра: base→target
+// с весом -ln r и target→base с весом ln r (обратный курс, которым пользуется конвертация). Цикл с отрицательной
+// суммой весов — это обход, после которого денег больше, чем в начале.
+//
+// Полный Bellman-Ford на каждое изменение не запускаем. Держим потенциалы вершин, при которых приведённый вес
+// каждого принятого ребра неотрицателен (как в алгоритме Джонсона). Новое ребро u→v либо не нарушает потенциалы,
+// либо их приходится понизить — поиск в духе Дейкстры от v по приведённым весам (Cotton, Maler 2006),
+// затрагивающий только вершины, чей потенциал действительно меняется. Если поиск дошёл до u, ребро замыкает
+// отрицательный цикл: такая котировка в граф не принимается, а попадает в список нарушений.
+// Повышение курса делает дешевле обратное ребро, поэтому любое изменение — это удаление старой пары рёбер
+// (потенциалы остаются допустимыми) и вставка новой.
+//
+// Слушатель вызывается под блокировкой RateBookHolder, поэтому в нём граф не трогается: изменения копятся
+// в очереди (по паре выживает последнее, перечитывание снимка заменяет всё накопленное) и применяются фоновым
+// потоком. Запись платит только за вставку в очередь. Поиск на одно изменение — по вершинам, чей потенциал
+// меняется, плюс не больше recheckBudget перепроверок. getViolations и check сначала сами доприменяют очередь,
+// так что видят все уже опубликованные курсы.
+public final class ArbitrageDetector implements RateBookListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ArbitrageDetector.class);
+
+    private record Edge(int from, int to, double weight, String quote) {
+    }
+
+    private record Quote(String key, int base, int target, BigDecimal rate, double weight) {
+    }
+
+    // Двоичная куча (gamma, вершина) без упаковки; устаревшие записи пропускаются при извлечении
+    private static final class GammaHeap {
+        private double[] keys = new double[64];
+        private int[] nodes = new int[64];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double minKey() {
+            return keys[0];
+        }
+
+        void add(double key, int node) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                nodes[i] = nodes[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+        }
+
+        int poll() {
+            int min = nodes[0];
+            double key = keys[--size];
+            int node = nodes[size];
+            int i = 0;
+            int half = size >>> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (key <= keys[child]) {
+                    break;
+                }
+                keys[i] = keys[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            keys[i] = key;
+            nodes[i] = node;
+            return min;
+        }
+    }
+
+    private final RateBookHolder rateBookHolder;
+    // Цикл с доходом меньше допуска считаем погрешностью округления котировок
+    private final double tolerance;
+    // Доход цикла, начиная с которого котировку не записываем; бесконечность — только сообщаем
+    private final double rejectMinProfit;
+    private final Map<String, Integer> nodes = new HashMap<>();
+    private final List<String> codes = new ArrayList<>();
+    private final List<Map<String, Edge>> out = new ArrayList<>();
+    private double[] potentials = new double[64];
+    // Состояние поиска, переиспользуется между вставками: вершина достигнута/закрыта в текущем раунде, если
+    // reached/settled равны epoch
+    private double[] gamma = new double[64];
+    private double[] lowered = new double[64];
+    private Edge[] via = new Edge[64];
+    private int[] reached = new int[64];
+    private int[] settled = new int[64];
+    private int[] settledNodes = new int[64];
+    private int epoch;
+    private final GammaHeap heap = new GammaHeap();
+    // Журнал отката потенциалов последней tryAccept
+    private int[] undoNodes = new int[128];
+    private double[] undoPotentials = new double[128];
+    private int undoSize;
+    private final Map<String, Quote> accepted = new HashMap<>();
+    private final Map<String, ArbitrageViolation> violations = new LinkedHashMap<>();
+    // Котировка → нарушения, чей цикл через неё проходит
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    // Нарушения, чей цикл изменился, но ещё не перепроверен
+    private final Set<String> stale = new LinkedHashSet<>();
+    private final int recheckBudget;
+
+    private final ReentrantLock queueLock = new ReentrantLock();
+    private final Condition queued = queueLock.newCondition();
+    private Map<String, ExchangeRate> queuedRates = new LinkedHashMap<>();
+    private boolean rebuildQueued;
+    private boolean running = true;
+    private final Thread worker;
+
+    public ArbitrageDetector(RateBookHolder rateBookHolder, double minProfit, double rejectMinProfit) {
+        this(rateBookHolder, minProfit, rejectMinProfit, Integer.MAX_VALUE);
+    }
+
+    public ArbitrageDetector(RateBookHolder rateBookHolder, double minProfit, double rejectMinProfit,
+                             int recheckBudget) {
+        this.rateBookHolder = rateBookHolder;
+        this.recheckBudget = recheckBudget;
+        this.tolerance = Math.log1p(minProfit);
+        this.rejectMinProfit = rejectMinProfit;
+        MetricsRegistry.getInstance().registerArbitrageCycles(this::violationCount);
+        this.worker = new Thread(this::runWorker, "arbitrage-detector");
+        this.worker.setDaemon(true);
+    }
+
+    public static ArbitrageDetector fromProperties(RateBookHolder rateBookHolder) {
+        return new ArbitrageDetector(rateBookHolder,
+                Double.parseDouble(AppProperties.get("arbitrage.minProfit", "0.000001")),
+                AppProperties.getBoolean("arbitrage.reject.enabled", false)
+                        ? Double.parseDouble(AppProperties.get("arbitrage.reject.minProfit", "0.001"))
+                        : Double.POSITIVE_INFINITY,
+                AppProperties.getInt("arbitrage.recheckPerUpdate", 4));
+    }
+
+    public void start() {
+        worker.start();
+    }
+
+    public synchronized List<ArbitrageViolation> getViolations() {
+        drain();
+        recheckStale(Integer.MAX_VALUE);
+        return List.copyOf(violations.values());
+    }
+
+    public synchronized int violationCount() {
+        return violations.size();
+    }
+
+    // Цикл, из-за которого котировку нельзя записывать (arbitrage.reject.*)
+    public Optional<ArbitrageViolation> rejection(String baseCode, String targetCode, BigDecimal rate) {
+        if (rejectMinProfit == Double.POSITIVE_INFINITY) {
+            return Optional.empty();
+        }
+        return check(baseCode, targetCode, rate).filter(violation -> violation.profit() >= rejectMinProfit);
+    }
+
+    // Что будет, если записать котировку: граф не меняется. Вершина для проверки не заводится — у валюты,
+    // которой в графе нет, была бы одна пара рёбер, и цикла через неё не получится
+    public synchronized Optional<ArbitrageViolation> check(String baseCode, String targetCode, BigDecimal rate) {
+        if (rate.signum() <= 0) {
+            return Optional.empty();
+        }
+        drain();
+        Integer base = nodes.get(baseCode);
+        Integer target = nodes.get(targetCode);
+        if (base == null || target == null) {
+            return Optional.empty();
+        }
+        Quote quote = new Quote(RateBook.pairKey(baseCode, targetCode), base, target, rate, weight(rate));
+        Quote previous = accepted.get(quote.key());
+        if (previous != null) {
+            removeEdges(previous);
+        }
+        try {
+            ArbitrageViolation violation = tryAccept(quote);
+            if (violation != null) {
+                return Optional.of(violation);
+            }
+            removeEdges(quote);
+            restorePotentials();
+            return Optional.empty();
+        } finally {
+            if (previous != null) {
+                addEdges(previous);
+            }
+        }
+    }
+
+    @Override
+    public void onRateSaved(ExchangeRate rate) {
+        queueLock.lock();
+        try {
+            queuedRates.put(RateBook.pairKey(rate), rate);
+            queued.signal();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    // Перестраивается по снимку, который будет текущим в момент применения, — накопленное до него там уже есть
+    @Override
+    public void onReloaded() {
+        queueLock.lock();
+        try {
+            queuedRates.clear();
+            rebuildQueued = true;
+            queued.signal();
+        } finally {
+            queueLock.unlock();
+        }
+    }
+
+    private void runWorker() {
+        while (true) {
+            queueLock.lock();
+            try {
+                while (queuedRates.isEmpty() && !rebuildQueued && running) {
+                    queued.awaitUninterruptibly();
+                }
+                if (!running) {
+                    return;
+                }
+            } finally {
+                queueLock.unlock();
+            }
+            try {
+                drain();
+            } catch (RuntimeException e) {
+                // Очередь уже снята; следующий перечитанный снимок перестроит граф целиком
+                logger.warn("Failed to apply rate changes to the arbitrage graph", e);
+            }
+        }
+    }
+
+    // Очередь снимается под монитором детектора: два применяющих потока не переставят изменения местами
+    private synchronized void drain() {
+        Map<String, ExchangeRate> rates;
+        boolean rebuildFirst;
+        queueLock.lock();
+        try {
+            rates = queuedRates;
+            rebuildFirst = rebuildQueued;
+            queuedRates = new LinkedHashMap<>();
+            rebuildQueued = false;
+        } finally {
+            queueLock.unlock();
+        }
+        if (rebuildFirst) {
+            rebuild(rateBookHolder.get().getRates());
+        }
+        for (ExchangeRate rate : rates.values()) {
+            apply(quote(rate.getBaseCurrency().getCode(), rate.getTargetCurrency().getCode(), rate.getRate()));
+        }
+    }
+
+    public synchronized void rebuild(Collection<ExchangeRate> rates) {
+        nodes.clear();
+        codes.clear();
+        out.clear();
+        Arrays.fill(potentials, 0);
+        accepted.clear();
+        violations.clear();
+        dependents.clear();
+        stale.clear();
+        for (ExchangeRate rate : rates) {
+            apply(quote(rate.getBaseCurrency().getCode(), rate.getTargetCurrency().getCode(), rate.getRate()));
+        }
+    }
+
+    private void apply(Quote quote) {
+        Quote previous = accepted.remove(quote.key());
+        if (previous != null) {
+            removeEdges(previous);
+        }
+        ArbitrageViolation previousViolation = removeViolation(quote.key());
+        stale.remove(quote.key());
+        // У неположительного курса нет логарифма: такая котировка просто не участвует в поиске
+        if (quote.rate().signum() > 0) {
+            ArbitrageViolation still = previousViolation == null ? null : recheck(previousViolation, quote);
+            if (still != null) {
+                putViolation(still);
+            } else {
+                accept(quote);
+            }
+        }
+
+        // Нарушение держится, пока цела пара рёбер его цикла; перепроверяем только те, чей цикл шёл через эту котировку.
+        // Если котировки расходятся сильнее допуска, таких нарушений тысячи, а каждое возвращение котировки в граф —
+        // поиск по всей компоненте. Поэтому за одно изменение делаем не больше recheckBudget поисков, остальные
+        // нарушения ждут следующих изменений (или getViolations) и до тех пор показываются со старым циклом
+        Set<String> affected = dependents.get(quote.key());
+        if (affected != null) {
+            for (String pair : affected) {
+                if (!pair.equals(quote.key())) {
+                    stale.add(pair);
+                }
+            }
+        }
+        recheckStale(recheckBudget);
+    }
+
+    // Сначала пересчитываем доход прежнего цикла по новым курсам — если он всё ещё выше допуска, поиск не нужен
+    private void recheckStale(int budget) {
+        int searches = 0;
+        Iterator<String> iterator = stale.iterator();
+        while (searches < budget && iterator.hasNext()) {
+            String pair = iterator.next();
+            iterator.remove();
+            ArbitrageViolation violation = removeViolation(pair);
+            if (violation == null) {
+                continue;
+            }
+            Quote pending = quote(pair.substring(0, 3), pair.substring(3), violation.rate());
+            ArbitrageViolation still = recheck(violation, pending);
+            if (still != null) {
+                putViolation(still);
+            } else {
+                accept(pending);
+                searches++;
+            }
+        }
+    }
+
+    // Тот же цикл на текущих рёбрах графа; null — цикл разорван или больше не выгоден
+    private ArbitrageViolation recheck(ArbitrageViolation violation, Quote quote) {
+        List<String> path = violation.cycle();
+        List<Edge> cycle = new ArrayList<>(path.size() - 1);
+        double weight = 0;
+        for (int i = 1; i < path.size(); i++) {
+            Edge edge = edge(path.get(i - 1), path.get(i), quote);
+            if (edge == null) {
+                return null;
+            }
+            cycle.add(edge);
+            weight += edge.weight();
+        }
+        return weight < -tolerance ? violation(quote, cycle) : null;
+    }
+
+    private Edge edge(String fromCode, String toCode, Quote quote) {
+        int from = nodes.get(fromCode);
+        int to = nodes.get(toCode);
+        if (from == quote.base() && to == quote.target()) {
+            return new Edge(from, to, quote.weight(), quote.key());
+        }
+        if (from == quote.target() && to == quote.base()) {
+            return new Edge(from, to, -quote.weight(), quote.key());
+        }
+        Map<String, Edge> edges = out.get(from);
+        Edge edge = edges.get(RateBook.pairKey(fromCode, toCode));
+        return edge != null ? edge : edges.get(RateBook.pairKey(toCode, fromCode));
+    }
+
+    private void accept(Quote quote) {
+        ArbitrageViolation violation = tryAccept(quote);
+        if (violation != null) {
+            putViolation(violation);
+        } else {
+            accepted.put(quote.key(), quote);
+        }
+    }
+
+    private void putViolation(ArbitrageViolation violation) {
+        violations.put(violation.pair(), violation);
+        for (String quote : violation.cycleQuotes()) {
+            dependents.computeIfAbsent(quote, key -> new LinkedHashSet<>()).add(violation.pair());
+        }
+    }
+
+    private ArbitrageViolation removeViolation(String pair) {
+        ArbitrageViolation violation = violations.remove(pair);
+        if (violation != null) {
+            for (String quote : violation.cycleQuotes()) {
+                Set<String> pairs = dependents.get(quote);
+                pairs.remove(pair);
+                if (pairs.isEmpty()) {
+                    dependents.remove(quote);
+                }
+            }
+        }
+        return violation;
+    }
+
+    // Вставляет оба ребра котировки; если одно из них замыкает цикл, граф и потенциалы возвращаются как были.
+    // Прежние значения потенциалов до следующего вызова лежат в журнале отката (restorePotentials)
+    private ArbitrageViolation tryAccept(Quote quote) {
+        undoSize = 0;
+        Edge direct = new Edge(quote.base(), quote.target(), quote.weight(), quote.key());
+        List<Edge> cycle = insert(direct);
+        if (cycle == null) {
+            Edge inverse = new Edge(quote.target(), quote.base(), -quote.weight(), quote.key());
+            cycle = insert(inverse);
+            if (cycle != null) {
+                removeEdge(direct);
+            }
+        }
+        if (cycle == null) {
+            return null;
+        }
+        restorePotentials();
+        return violation(quote, cycle);
+    }
+
+    // null — ребро вставлено, потенциалы поправлены; иначе рёбра цикла.
+    // Когда котировки согласованы, почти все приведённые веса нулевые и понижение расходится по всей компоненте,
+    // поэтому состояние поиска — в массивах по номеру вершины, а не в коллекциях
+    private List<Edge> insert(Edge edge) {
+        double gammaTo = potentials[edge.from()] + edge.weight() - potentials[edge.to()];
+        if (gammaTo >= -tolerance) {
+            addEdge(edge);
+            return null;
+        }
+
+        int round = ++epoch;
+        int settledCount = 0;
+        heap.clear();
+        reach(edge.to(), gammaTo, edge, round);
+        while (!heap.isEmpty()) {
+            double stepGamma = heap.minKey();
+            int node = heap.poll();
+            if (settled[node] == round || stepGamma != gamma[node]) {
+                continue;
+            }
+            if (node == edge.from()) {
+                return cycle(edge);
+            }
+            double potential = potentials[node] + stepGamma;
+            settled[node] = round;
+            lowered[node] = potential;
+            settledNodes[settledCount++] = node;
+            for (Edge next : out.get(node).values()) {
+                int to = next.to();
+                if (settled[to] == round) {
+                    continue;
+                }
+                double nextGamma = potential + next.weight() - potentials[to];
+                if (nextGamma < (reached[to] == round ? gamma[to] : -tolerance)) {
+                    reach(to, nextGamma, next, round);
+                }
+            }
+        }
+
+        for (int i = 0; i < settledCount; i++) {
+            int node = settledNodes[i];
+            undoNodes[undoSize] = node;
+            undoPotentials[undoSize++] = potentials[node];
+            potentials[node] = lowered[node];
+        }
+        addEdge(edge);
+        return null;
+    }
+
+    private void reach(int node, double nodeGamma, Edge edge, int round) {
+        reached[node] = round;
+        gamma[node] = nodeGamma;
+        via[node] = edge;
+        heap.add(nodeGamma, node);
+    }
+
+    private List<Edge> cycle(Edge closing) {
+        List<Edge> path = new ArrayList<>();
+        int node = closing.from();
+        while (node != closing.to()) {
+            Edge edge = via[node];
+            path.add(edge);
+            node = edge.from();
+        }
+        path.add(closing);
+        Collections.reverse(path);
+        return path;
+    }
+
+    private ArbitrageViolation violation(Quote quote, List<Edge> cycle) {
+        List<String> path = new ArrayList<>(cycle.size() + 1);
+        Set<String> cycleQuotes = new LinkedHashSet<>();
+        double weight = 0;
+        path.add(codes.get(cycle.get(0).from()));
+        for (Edge edge : cycle) {
+            path.add(codes.get(edge.to()));
+            cycleQuotes.add(edge.quote());
+            weight += edge.weight();
+        }
+        return new ArbitrageViolation(quote.key(), quote.rate(), List.copyOf(path), Set.copyOf(cycleQuotes),
+                Math.expm1(-weight));
+    }
+
+    // В обратном порядке: вершина могла понижаться дважды, первым записано исходное значение
+    private void restorePotentials() {
+        while (undoSize > 0) {
+            undoSize--;
+            potentials[undoNodes[undoSize]] = undoPotentials[undoSize];
+        }
+    }
+
+    private void addEdges(Quote quote) {
+        addEdge(new Edge(quote.base(), quote.target(), quote.weight(), quote.key()));
+        addEdge(new Edge(quote.target(), quote.base(), -quote.weight(), quote.key()));
+    }
+
+    private void removeEdges(Quote quote) {
+        out.get(quote.base()).remove(quote.key());
+        out.get(quote.target()).remove(quote.key());
+    }
+
+    private void addEdge(Edge edge) {
+        out.get(edge.from()).put(edge.quote(), edge);
+    }
+
+    private void removeEdge(Edge edge) {
+        out.get(edge.from()).remove(edge.quote());
+    }
+
+    private Quote quote(String baseCode, String targetCode, BigDecimal rate) {
+        return new Quote(RateBook.pairKey(baseCode, targetCode), node(baseCode), node(targetCode), rate, weight(rate));
+    }
+
+    private static double weight(BigDecimal rate) {
+        return rate.signum() > 0 ? -Math.log(rate.doubleValue()) : 0;
+    }
+
+    synchronized int vertexCount() {
+        return codes.size();
+    }
+
+    private int node(String code) {
+        Integer index = nodes.get(code);
+        if (index != null) {
+            return index;
+        }
+        int added = codes.size();
+        nodes.put(code, added);
+        codes.add(code);
+        out.add(new HashMap<>());
+        if (added == potentials.length) {
+            int capacity = added * 2;
+            potentials = Arrays.copyOf(potentials, capacity);
+            gamma = Arrays.copyOf(gamma, capacity);
+            lowered = Arrays.copyOf(lowered, capacity);
+            via = Arrays.copyOf(via, capacity);
+            reached = Arrays.copyOf(reached, capacity);
+            settled = Arrays.copyOf(settled, capacity);
+            settledNodes = Arrays.copyOf(settledNodes, capacity);
+            // Обе вставки одной котировки понижают каждую вершину не больше раза
+            undoNodes = Arrays.copyOf(undoNodes, capacity * 2);
+            undoPotentials = Arrays.copyOf(undoPotentials, capacity * 2);
+        }
+        return added;
+    }
+
+    @Override
+    public void close() {
+        queueLock.lock();
+        try {
+            running = false;
+            queued.signal();
+        } finally {
+            queueLock.unlock();
+        }
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.arbitrage;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+// Котировка pair замыкает цикл cycle (коды валют, первая повторена в конце), обход которого приносит profit
+// (0.0001 — это 0.01%). cycleQuotes — пары, чьи котировки образуют цикл: пока ни одна из них не изменилась,
+// цикл на месте.
+public record ArbitrageViolation(String pair, BigDecimal rate, List<String> cycle, Set<String> cycleQuotes,
+                                 double profit) {
+}
@@ -0,0 +1,160 @@
+package org.example.cache;
+
+import org.example.config.AppProperties;
+import org.example.dao.ChangeLogDao;
+import org.example.dao.ChangeLogEntry;
+import org.example.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Согласование снимка курсов между процессами на одном файле БД. Раз в pollMs поток сравнивает PRAGMA data_version
+// своего соединения (страницы БД при этом не читаются) и, только если БД кто-то менял, читает ChangeLog после
+// последнего увиденного Seq и передаёт изменённые ключи в RateBookHolder.refresh. Снимок перечитывается целиком,
+// только если журнал подрезан дальше прочитанного или изменений больше maxBatch за раз.
+// Чужое изменение становится видно в этом процессе не позже чем через pollMs плюс время чтения.
+public class ChangeLogPoller implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(ChangeLogPoller.class);
+
+    private final RateBookHolder rateBookHolder;
+    private final ChangeLogDao changeLogDao;
+    private final long pollMillis;
+    private final int maxBatch;
+    private final long retainRows;
+    private final long pruneIntervalNanos;
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    // Ключи, которые ещё нужно перечитать: новые из журнала и отложенные прошлым refresh
+    private final Set<String> pendingCurrencies = new LinkedHashSet<>();
+    private final Set<String> pendingPairs = new LinkedHashSet<>();
+    private long lastSeq;
+    private long dataVersion;
+    private long nextPruneAt;
+
+    private volatile boolean running = true;
+    private final Thread poller;
+
+    // Позиция в журнале берётся до первой загрузки снимка: всё, что запишут после неё, будет перечитано
+    public ChangeLogPoller(RateBookHolder rateBookHolder, ChangeLogDao changeLogDao,
+                           long pollMillis, int maxBatch, long retainRows, long pruneIntervalMillis) {
+        this.rateBookHolder = rateBookHolder;
+        this.changeLogDao = changeLogDao;
+        this.pollMillis = pollMillis;
+        this.maxBatch = maxBatch;
+        this.retainRows = retainRows;
+        this.pruneIntervalNanos = TimeUnit.MILLISECONDS.toNanos(pruneIntervalMillis);
+        this.dataVersion = changeLogDao.dataVersion();
+        this.lastSeq = changeLogDao.lastSeq();
+        this.nextPruneAt = System.nanoTime() + pruneIntervalNanos;
+        this.poller = new Thread(this::run, "change-log-poller");
+        this.poller.setDaemon(true);
+    }
+
+    public static ChangeLogPoller fromProperties(RateBookHolder rateBookHolder, ChangeLogDao changeLogDao) {
+        return new ChangeLogPoller(
+                rateBookHolder,
+                changeLogDao,
+                AppProperties.getLong("coherence.pollMs", 100),
+                AppProperties.getInt("coherence.maxBatch", 1000),
+                AppProperties.getLong("coherence.changeLog.retainRows", 100_000),
+                AppProperties.getLong("coherence.changeLog.pruneIntervalMs", 60_000)
+        );
+    }
+
+    public void start() {
+        poller.start();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(pollMillis);
+            } catch (InterruptedException e) {
+                // close() будит поток, чтобы тот сразу завершился
+                continue;
+            }
+            try {
+                pollOnce();
+                pruneIfDue();
+            } catch (RuntimeException e) {
+                // Позиция в журнале не сдвинута: те же изменения будут прочитаны при следующем опросе
+                metrics.rateCoherenceEvents("error").increment();
+                logger.warn("Change log poll failed, retrying in {} ms", pollMillis, e);
+            }
+        }
+    }
+
+    void pollOnce() {
+        long version = changeLogDao.dataVersion();
+        if (version == dataVersion && pendingCurrencies.isEmpty() && pendingPairs.isEmpty()) {
+            return;
+        }
+        metrics.rateCoherenceEvents("poll").increment();
+        readChanges();
+        // Версия запоминается только после успешного чтения, иначе упавший опрос не повторился бы до следующей записи
+        dataVersion = version;
+    }
+
+    private void readChanges() {
+        List<ChangeLogEntry> entries = changeLogDao.findAfter(lastSeq, maxBatch + 1);
+        boolean truncated = !entries.isEmpty() && entries.get(0).seq() > lastSeq + 1;
+        if (truncated || entries.size() > maxBatch) {
+            // Позиция берётся до перечитывания: изменения, попавшие между ними, придут следующим опросом
+            lastSeq = changeLogDao.lastSeq();
+            pendingCurrencies.clear();
+            pendingPairs.clear();
+            rateBookHolder.reload();
+            metrics.rateCoherenceEvents("reload").increment();
+            logger.info("Rate book reloaded: {}", truncated
+                    ? "change log was pruned past the last seen entry"
+                    : "more than " + maxBatch + " changes since the last poll");
+            return;
+        }
+
+        for (ChangeLogEntry entry : entries) {
+            switch (entry.kind()) {
+                case CURRENCY -> pendingCurrencies.add(entry.key());
+                case RATE -> pendingPairs.add(entry.key());
+            }
+        }
+        if (!entries.isEmpty()) {
+            lastSeq = entries.get(entries.size() - 1).seq();
+        }
+        if (pendingCurrencies.isEmpty() && pendingPairs.isEmpty()) {
+            return;
+        }
+        metrics.rateCoherenceEvents("applied").add(rateBookHolder.refresh(pendingCurrencies, pendingPairs));
+    }
+
+    // Журнал подрезают все процессы, которые его читают; повторное удаление ничего не меняет
+    private void pruneIfDue() {
+        long now = System.nanoTime();
+        if (now - nextPruneAt < 0) {
+            return;
+        }
+        nextPruneAt = now + pruneIntervalNanos;
+        int pruned = changeLogDao.prune(retainRows);
+        if (pruned > 0) {
+            logger.debug("Pruned {} change log rows", pruned);
+        }
+    }
+
+    long getLastSeq() {
+        return lastSeq;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        poller.interrupt();
+        try {
+            poller.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.cache;
+
+import org.example.config.AppProperties;
+import org.example.entity.ExchangeRate;
+import org.example.metrics.MetricsRegistry;
+import org.example.routing.EffectiveRate;
+import org.example.routing.RouteLeg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Посчитанные курсы для пар (from, to) вместе с рёбрами книги, из которых они выведены.
+// Изменение курса сбрасывает только записи, зависящие от этого ребра; новая пара в книге может дать
+// более короткий маршрут, поэтому записи с устаревшей topology считаются промахом при следующем чтении.
+// Размер ограничен: вытеснение по CLOCK, а новый ключ вытесняет жертву, только если по оценке
+// FrequencySketch он популярнее (допуск TinyLFU) — разовые запросы редких пар не вымывают горячие.
+// Чтение без блокировок; вставка, вытеснение и инвалидация — под монитором кэша.
+public final class EffectiveRateCache implements RateBookListener {
+
+    private static final class Node {
+        final String key;
+        final EffectiveRate value;
+        final List<String> edges;
+        final List<ExchangeRate> edgeRates;
+        final long topology;
+        volatile long version;
+        volatile boolean referenced;
+        boolean removed;
+
+        Node(String key, EffectiveRate value, RateBook book) {
+            this.key = key;
+            this.value = value;
+            this.edges = new ArrayList<>(value.route().hops());
+            this.edgeRates = new ArrayList<>(value.route().hops());
+            for (RouteLeg leg : value.route().legs()) {
+                edges.add(RateBook.pairKey(leg.rate()));
+                edgeRates.add(leg.rate());
+            }
+            this.topology = book.getTopology();
+            this.version = book.getVersion();
+        }
+
+        // Снимок сменился, но набор пар и все курсы маршрута те же — запись по-прежнему верна
+        boolean isValidFor(RateBook book) {
+            long bookVersion = book.getVersion();
+            if (version == bookVersion) {
+                return true;
+            }
+            if (topology != book.getTopology()) {
+                return false;
+            }
+            for (int i = 0; i < edges.size(); i++) {
+                if (book.findRate(edges.get(i)) != edgeRates.get(i)) {
+                    return false;
+                }
+            }
+            version = bookVersion;
+            return true;
+        }
+    }
+
+    private final int maximumSize;
+    private final ConcurrentHashMap<String, Node> nodes = new ConcurrentHashMap<>();
+    private final FrequencySketch sketch;
+    // Ниже — только под монитором
+    private final ArrayDeque<Node> clock = new ArrayDeque<>();
+    private final Map<String, Set<Node>> dependents = new HashMap<>();
+
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LongAdder rejections;
+    private final LongAdder invalidations;
+
+    public EffectiveRateCache(int maximumSize) {
+        this.maximumSize = maximumSize;
+        this.sketch = new FrequencySketch(maximumSize);
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        this.hits = metrics.rateCacheEvents("hit");
+        this.misses = metrics.rateCacheEvents("miss");
+        this.evictions = metrics.rateCacheEvents("eviction");
+        this.rejections = metrics.rateCacheEvents("rejection");
+        this.invalidations = metrics.rateCacheEvents("invalidation");
+        metrics.registerRateCacheSize(nodes::size);
+    }
+
+    public static EffectiveRateCache fromProperties() {
+        return new EffectiveRateCache(AppProperties.getInt("exchange.rateCache.maxSize", 10_000));
+    }
+
+    // book — текущий снимок; loader считает курс по нему же
+    public EffectiveRate get(RateBook book, String from, String to, Supplier<EffectiveRate> loader) {
+        String key = RateBook.pairKey(from, to);
+        sketch.increment(key.hashCode());
+        Node node = nodes.get(key);
+        if (node != null && node.isValidFor(book)) {
+            node.referenced = true;
+            hits.increment();
+            return node.value;
+        }
+        misses.increment();
+        EffectiveRate value = loader.get();
+        admit(new Node(key, value, book));
+        return value;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public synchronized void invalidateEdge(String pairKey) {
+        Set<Node> affected = dependents.remove(pairKey);
+        if (affected == null) {
+            return;
+        }
+        for (Node node : affected) {
+            remove(node);
+            invalidations.increment();
+        }
+    }
+
+    public synchronized void clear() {
+        nodes.clear();
+        clock.clear();
+        dependents.clear();
+    }
+
+    @Override
+    public void onRateSaved(ExchangeRate rate) {
+        invalidateEdge(RateBook.pairKey(rate));
+    }
+
+    @Override
+    public void onReloaded() {
+        clear();
+    }
+
+    private synchronized void admit(Node candidate) {
+        Node existing = nodes.get(candidate.key);
+        if (existing != null) {
+            remove(existing);
+        } else if (nodes.size() >= maximumSize) {
+            Node victim = nextVictim();
+            if (victim != null) {
+                if (sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                    clock.addFirst(victim);
+                    rejections.increment();
+                    return;
+                }
+                remove(victim);
+                evictions.increment();
+            }
+        }
+
+        nodes.put(candidate.key, candidate);
+        clock.addLast(candidate);
+        for (String edge : candidate.edges) {
+            dependents.computeIfAbsent(edge, ignored -> new HashSet<>()).add(candidate);
+        }
+        // Удалённые записи выходят из кольца лениво; не даём им копиться без вытеснений
+        if (clock.size() > 2 * Math.max(maximumSize, 16)) {
+            clock.removeIf(node -> node.removed);
+        }
+    }
+
+    // Стрелка CLOCK: запись, к которой обращались с прошлого прохода, получает второй шанс
+    private Node nextVictim() {
+        Node node;
+        while ((node = clock.pollFirst()) != null) {
+            if (node.removed) {
+                continue;
+            }
+            if (node.referenced) {
+                node.referenced = false;
+                clock.addLast(node);
+                continue;
+            }
+            return node;
+        }
+        return null;
+    }
+
+    private void remove(Node node) {
+        node.removed = true;
+        nodes.remove(node.key, node);
+        for (String edge : node.edges) {
+            Set<Node> nodesOfEdge = dependents.get(edge);
+            if (nodesOfEdge != null && nodesOfEdge.remove(node) && nodesOfEdge.isEmpty()) {
+                dependents.remove(edge);
+            }
+        }
+    }
+}
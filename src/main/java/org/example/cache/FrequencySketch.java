@@ -0,0 +1,56 @@
+package org.example.cache;
+
+// Приближённая частота обращений к ключу (count-min, 4 строки, счётчики до 15) для допуска в кэш по TinyLFU.
+// Раз в sampleSize обращений все счётчики делятся пополам, так что старая популярность со временем забывается.
+// Счётчики обновляются без синхронизации: потерянное при гонке приращение лишь чуть занижает оценку.
+final class FrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final long[] SEEDS = {0x97cb3127L, 0xa1c8b2e5L, 0xc2b2ae35L, 0x85ebca6bL};
+
+    private final byte[] table;
+    private final int rowMask;
+    private final int rowLength;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int expectedSize) {
+        this.rowLength = Integer.highestOneBit(Math.max(16, expectedSize - 1) << 1);
+        this.rowMask = rowLength - 1;
+        this.table = new byte[rowLength * DEPTH];
+        this.sampleSize = 10 * Math.max(16, expectedSize);
+    }
+
+    void increment(int hash) {
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(hash, row);
+            if (table[index] < MAX_COUNT) {
+                table[index]++;
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(int hash) {
+        int min = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            min = Math.min(min, table[index(hash, row)]);
+        }
+        return min;
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return row * rowLength + ((int) h & rowMask);
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] >>>= 1;
+        }
+        additions = 0;
+    }
+}
@@ -0,0 +1,136 @@
+package org.example.cache;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.util.FixedPoint;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+// Неизменяемый снимок всех валют и курсов. Любое изменение создаёт новый снимок.
+public final class RateBook {
+    private static final RateBook EMPTY = new RateBook(0, 0, Map.of(), Map.of(), Map.of(), Map.of());
+
+    private final long version;
+    // Версия, в которой последний раз менялся набор пар (а не значения курсов): от него зависят маршруты
+    private final long topology;
+    private final Map<String, Currency> currencies;
+    private final Map<String, ExchangeRate> rates;
+    private final Map<String, Long> updatedAt;
+    // Курсы в виде long-мантиссы для быстрого пути конвертации; ключ — сам объект курса
+    private final Map<ExchangeRate, FixedPoint> fixedRates;
+
+    private RateBook(long version, long topology, Map<String, Currency> currencies, Map<String, ExchangeRate> rates,
+                     Map<String, Long> updatedAt, Map<ExchangeRate, FixedPoint> fixedRates) {
+        this.version = version;
+        this.topology = topology;
+        this.currencies = currencies;
+        this.rates = rates;
+        this.updatedAt = updatedAt;
+        this.fixedRates = fixedRates;
+    }
+
+    public static RateBook empty() {
+        return EMPTY;
+    }
+
+    public static RateBook of(long version, List<Currency> currencies, List<ExchangeRate> rates) {
+        Map<String, Currency> currencyMap = new LinkedHashMap<>();
+        for (Currency currency : currencies) {
+            currencyMap.put(currency.getCode(), currency);
+        }
+        long loadedAt = System.currentTimeMillis();
+        Map<String, ExchangeRate> rateMap = new LinkedHashMap<>();
+        Map<String, Long> updatedAtMap = new HashMap<>();
+        for (ExchangeRate rate : rates) {
+            String key = pairKey(rate);
+            rateMap.put(key, rate);
+            updatedAtMap.put(key, loadedAt);
+        }
+        Map<ExchangeRate, FixedPoint> fixedMap = new IdentityHashMap<>();
+        for (ExchangeRate rate : rateMap.values()) {
+            putFixed(fixedMap, rate);
+        }
+        return new RateBook(version, version, Collections.unmodifiableMap(currencyMap), Collections.unmodifiableMap(rateMap),
+                Collections.unmodifiableMap(updatedAtMap), Collections.unmodifiableMap(fixedMap));
+    }
+
+    public static String pairKey(String baseCode, String targetCode) {
+        return baseCode + targetCode;
+    }
+
+    public static String pairKey(ExchangeRate rate) {
+        return pairKey(rate.getBaseCurrency().getCode(), rate.getTargetCurrency().getCode());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getTopology() {
+        return topology;
+    }
+
+    public Optional<Currency> findCurrency(String code) {
+        return Optional.ofNullable(currencies.get(code));
+    }
+
+    public Optional<ExchangeRate> findRate(String baseCode, String targetCode) {
+        return Optional.ofNullable(rates.get(pairKey(baseCode, targetCode)));
+    }
+
+    ExchangeRate findRate(String pairKey) {
+        return rates.get(pairKey);
+    }
+
+    // Время последнего изменения пары, известное этому процессу
+    public long getUpdatedAt(ExchangeRate rate) {
+        return updatedAt.getOrDefault(pairKey(rate), 0L);
+    }
+
+    // null, если мантисса курса не помещается в long или курс не из этого снимка
+    public FixedPoint findFixedRate(ExchangeRate rate) {
+        return fixedRates.get(rate);
+    }
+
+    public Collection<Currency> getCurrencies() {
+        return currencies.values();
+    }
+
+    public Collection<ExchangeRate> getRates() {
+        return rates.values();
+    }
+
+    RateBook withCurrency(Currency currency) {
+        Map<String, Currency> copy = new LinkedHashMap<>(currencies);
+        copy.put(currency.getCode(), currency);
+        return new RateBook(version + 1, topology, Collections.unmodifiableMap(copy), rates, updatedAt, fixedRates);
+    }
+
+    RateBook withRate(ExchangeRate rate) {
+        String key = pairKey(rate);
+        Map<String, ExchangeRate> copy = new LinkedHashMap<>(rates);
+        ExchangeRate replaced = copy.put(key, rate);
+        Map<String, Long> updatedAtCopy = new HashMap<>(updatedAt);
+        updatedAtCopy.put(key, System.currentTimeMillis());
+        Map<ExchangeRate, FixedPoint> fixedCopy = new IdentityHashMap<>(fixedRates);
+        fixedCopy.remove(replaced);
+        putFixed(fixedCopy, rate);
+        return new RateBook(version + 1, replaced == null ? version + 1 : topology, currencies,
+                Collections.unmodifiableMap(copy),
+                Collections.unmodifiableMap(updatedAtCopy), Collections.unmodifiableMap(fixedCopy));
+    }
+
+    private static void putFixed(Map<ExchangeRate, FixedPoint> fixedRates, ExchangeRate rate) {
+        FixedPoint fixed = rate.getRate() == null ? null : FixedPoint.of(rate.getRate());
+        if (fixed != null) {
+            fixedRates.put(rate, fixed);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.example.cache;
+
+import org.example.dao.CurrencyDao;
+import org.example.dao.ExchangeRateDao;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+public class RateBookHolder {
+    private final CurrencyDao currencyDao;
+    private final ExchangeRateDao exchangeRateDao;
+    private final List<RateBookListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile RateBook current = RateBook.empty();
+    // Опубликованные, но ещё не записанные в БД курсы (очередь RateUpdatePipeline) — живое представление по паре
+    private volatile Map<String, ExchangeRate> unflushed = Map.of();
+
+    public RateBookHolder(CurrencyDao currencyDao, ExchangeRateDao exchangeRateDao) {
+        this.currencyDao = currencyDao;
+        this.exchangeRateDao = exchangeRateDao;
+    }
+
+    public RateBook get() {
+        return current;
+    }
+
+    // Снимок на момент времени: валюты текущие, курсы — из истории, и только пары между codes
+    // (для конвертации — RateRouter.candidateCodes). Не кэшируется и не публикуется.
+    public RateBook asOf(long at, Collection<String> codes) {
+        List<String> pairKeys = new ArrayList<>(codes.size() * codes.size());
+        for (String base : codes) {
+            for (String target : codes) {
+                if (!base.equals(target)) {
+                    pairKeys.add(RateBook.pairKey(base, target));
+                }
+            }
+        }
+        return RateBook.of(0, List.copyOf(current.getCurrencies()), exchangeRateDao.findByPairKeysAt(pairKeys, at));
+    }
+
+    public void addListener(RateBookListener listener) {
+        listeners.add(listener);
+    }
+
+    public void setUnflushedRates(Map<String, ExchangeRate> unflushed) {
+        this.unflushed = unflushed;
+    }
+
+    // Незаписанные курсы снимаются до чтения БД и кладутся поверх прочитанного: перечитывание не откатывает
+    // принятые обновления к старым значениям из БД. Пачка, закоммиченная между снятием и чтением, есть в БД
+    public synchronized void reload() {
+        Map<String, ExchangeRate> overlay = Map.copyOf(unflushed);
+        List<Currency> currencies = currencyDao.findAll();
+        List<ExchangeRate> rates = exchangeRateDao.findAll();
+        if (!overlay.isEmpty()) {
+            Map<String, ExchangeRate> merged = new LinkedHashMap<>();
+            rates.forEach(rate -> merged.put(RateBook.pairKey(rate), rate));
+            merged.putAll(overlay);
+            rates = List.copyOf(merged.values());
+        }
+        current = RateBook.of(current.getVersion() + 1, currencies, rates);
+        listeners.forEach(RateBookListener::onReloaded);
+    }
+
+    // Запись в БД и публикация нового снимка идут под одной блокировкой,
+    // иначе два конкурентных апдейта одной пары могут попасть в снимок в обратном порядке.
+    public synchronized Currency commitCurrency(Supplier<Currency> write) {
+        Currency saved = write.get();
+        current = current.withCurrency(saved);
+        listeners.forEach(listener -> listener.onCurrencySaved(saved));
+        return saved;
+    }
+
+    // Публикация без записи в БД — запись делает вызывающий (например, RateUpdatePipeline)
+    // и после коммита сообщает о нём через ratesCommitted
+    public synchronized ExchangeRate publishRate(ExchangeRate rate) {
+        publish(rate);
+        return rate;
+    }
+
+    public synchronized void ratesCommitted(Collection<ExchangeRate> rates) {
+        for (ExchangeRate rate : rates) {
+            listeners.forEach(listener -> listener.onRateCommitted(rate));
+        }
+    }
+
+    // Курс, прочитанный из БД мимо снимка. Публикуется, только если пары в снимке всё ещё нет:
+    // иначе параллельная запись, успевшая опубликовать более новое значение, была бы перезаписана старым.
+    public synchronized ExchangeRate publishRateIfAbsent(ExchangeRate rate) {
+        publishCurrencyIfAbsent(rate.getBaseCurrency());
+        publishCurrencyIfAbsent(rate.getTargetCurrency());
+        var published = current.findRate(rate.getBaseCurrency().getCode(), rate.getTargetCurrency().getCode());
+        return published.orElseGet(() -> commitRate(() -> rate));
+    }
+
+    public synchronized Currency publishCurrencyIfAbsent(Currency currency) {
+        return current.findCurrency(currency.getCode()).orElseGet(() -> commitCurrency(() -> currency));
+    }
+
+    // Изменения других процессов на том же файле БД (ChangeLogPoller). БД читается без блокировки, поэтому ключ,
+    // который этот процесс сам переопубликовал за время чтения, не трогается — прочитанное может оказаться старше.
+    // Из множеств удаляются применённые ключи (и совпавшие со снимком — например, свои же записи);
+    // оставшиеся нужно перечитать при следующем опросе. Пара, для которой у этого процесса есть незаписанное
+    // значение (до чтения или после), тоже не трогается и не перечитывается: своя пачка запишет его поверх
+    // прочитанного, а её запись в журнале придёт следующим опросом. Изменение публикуется как обычная запись,
+    // так что кэши-слушатели сбрасывают только свои зависимые от ключа записи.
+    // Возвращает число опубликованных изменений.
+    public int refresh(Set<String> currencyCodes, Set<String> pairKeys) {
+        RateBook before = current;
+        // Снимается до чтения БД по той же причине, что и в reload()
+        Set<String> unflushedBefore = Set.copyOf(unflushed.keySet());
+        List<Currency> currencies = currencyDao.findByCodes(currencyCodes);
+        List<ExchangeRate> rates = exchangeRateDao.findByPairKeys(pairKeys);
+        synchronized (this) {
+            int applied = 0;
+            Set<String> retryCurrencies = new HashSet<>();
+            for (Currency currency : currencies) {
+                Currency published = current.findCurrency(currency.getCode()).orElse(null);
+                if (published != before.findCurrency(currency.getCode()).orElse(null)) {
+                    retryCurrencies.add(currency.getCode());
+                } else if (published == null || !sameCurrency(published, currency)) {
+                    commitCurrency(() -> currency);
+                    applied++;
+                }
+            }
+            Set<String> retryPairs = new HashSet<>();
+            Set<String> found = new HashSet<>();
+            for (ExchangeRate rate : rates) {
+                String key = RateBook.pairKey(rate);
+                found.add(key);
+                ExchangeRate published = current.findRate(key);
+                if (unflushedBefore.contains(key) || unflushed.containsKey(key)) {
+                    continue;
+                }
+                if (published != before.findRate(key)) {
+                    retryPairs.add(key);
+                } else if (published == null || !sameRate(published, rate)) {
+                    publishCurrencyIfAbsent(rate.getBaseCurrency());
+                    publishCurrencyIfAbsent(rate.getTargetCurrency());
+                    commitRate(() -> rate);
+                    applied++;
+                }
+            }
+            // Пары из БД приложение не удаляет; если это сделали вручную, перечитываем снимок целиком
+            for (String key : pairKeys) {
+                if (!found.contains(key) && current.findRate(key) != null) {
+                    reload();
+                    currencyCodes.clear();
+                    pairKeys.clear();
+                    return applied + 1;
+                }
+            }
+            currencyCodes.retainAll(retryCurrencies);
+            pairKeys.retainAll(retryPairs);
+            return applied;
+        }
+    }
+
+    private static boolean sameCurrency(Currency a, Currency b) {
+        return a.getId() == b.getId()
+                && Objects.equals(a.getFullName(), b.getFullName())
+                && Objects.equals(a.getSign(), b.getSign());
+    }
+
+    private static boolean sameRate(ExchangeRate a, ExchangeRate b) {
+        return a.getId() == b.getId()
+                && a.getBaseCurrency().getId() == b.getBaseCurrency().getId()
+                && a.getTargetCurrency().getId() == b.getTargetCurrency().getId()
+                && a.getRate().compareTo(b.getRate()) == 0;
+    }
+
+    // Курс, который write уже записал в БД (или прочитал оттуда)
+    public synchronized ExchangeRate commitRate(Supplier<ExchangeRate> write) {
+        ExchangeRate saved = write.get();
+        publish(saved);
+        listeners.forEach(listener -> listener.onRateCommitted(saved));
+        return saved;
+    }
+
+    private void publish(ExchangeRate rate) {
+        current = current.withRate(rate);
+        listeners.forEach(listener -> listener.onRateSaved(rate));
+    }
+}
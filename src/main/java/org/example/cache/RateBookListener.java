@@ -0,0 +1,22 @@
+package org.example.cache;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+
+// Уведомления об изменениях снимка курсов. onCurrencySaved и onRateSaved — новое значение уже в снимке, но курс
+// может быть ещё не записан в БД: при updates.coalescing RateUpdatePipeline публикует его при приёме, а при сбое
+// записи снимок перечитывается (onReloaded). onRateCommitted — курс уже закоммичен в БД; для записи через
+// очередь приходит после коммита её пачки, то есть позже onRateSaved.
+public interface RateBookListener {
+    default void onCurrencySaved(Currency currency) {
+    }
+
+    default void onRateSaved(ExchangeRate rate) {
+    }
+
+    default void onRateCommitted(ExchangeRate rate) {
+    }
+
+    default void onReloaded() {
+    }
+}
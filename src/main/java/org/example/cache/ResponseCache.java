@@ -0,0 +1,91 @@
+package org.example.cache;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Готовые UTF-8 тела GET-ответов. Сбрасывается точечно по событиям RateBookHolder.
+public class ResponseCache implements RateBookListener {
+    public static final String CURRENCIES = "/currencies";
+    public static final String EXCHANGE_RATES = "/exchangeRates";
+
+    public record Entry(byte[] body, String etag, long lastModified) {
+    }
+
+    @FunctionalInterface
+    public interface BodyWriter {
+        byte[] write() throws IOException;
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Счётчик сбросов по ключу: тело, посчитанное до сброса, в кэш уже не кладём
+    private final ConcurrentHashMap<String, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    public static String currencyKey(String code) {
+        return "/currency/" + code;
+    }
+
+    public static String exchangeRateKey(String baseCode, String targetCode) {
+        return "/exchangeRate/" + baseCode + targetCode;
+    }
+
+    public Entry get(String key, BodyWriter writer) throws IOException {
+        Entry cached = entries.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long epochBefore = epoch.get();
+        long generation = generations.getOrDefault(key, 0L);
+        byte[] body = writer.write();
+        Entry fresh = new Entry(body, etag(body), System.currentTimeMillis());
+        entries.compute(key, (k, old) ->
+                epoch.get() == epochBefore && generations.getOrDefault(k, 0L) == generation ? fresh : old);
+        return fresh;
+    }
+
+    public void invalidate(String key) {
+        entries.compute(key, (k, old) -> {
+            generations.merge(k, 1L, Long::sum);
+            return null;
+        });
+    }
+
+    public void clear() {
+        epoch.incrementAndGet();
+        entries.clear();
+    }
+
+    @Override
+    public void onCurrencySaved(Currency currency) {
+        invalidate(CURRENCIES);
+        invalidate(currencyKey(currency.getCode()));
+    }
+
+    @Override
+    public void onRateSaved(ExchangeRate rate) {
+        invalidate(EXCHANGE_RATES);
+        invalidate(exchangeRateKey(rate.getBaseCurrency().getCode(), rate.getTargetCurrency().getCode()));
+    }
+
+    @Override
+    public void onReloaded() {
+        clear();
+    }
+
+    private static String etag(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
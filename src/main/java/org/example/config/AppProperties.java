@@ -0,0 +1,88 @@
+package org.example.config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+// Настройки из application.properties. Файл из -Dapp.config и -D<ключ> переопределяют значения из classpath.
+public final class AppProperties {
+    private static final String RESOURCE = "application.properties";
+    private static final Properties PROPERTIES = load();
+
+    private AppProperties() {
+    }
+
+    public static String get(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = PROPERTIES.getProperty(key);
+        }
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    public static long getLong(String key, long defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Long.parseLong(value);
+    }
+
+    public static boolean getBoolean(String key, boolean defaultValue) {
+        String value = get(key, null);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    public static List<String> getList(String key, String defaultValue) {
+        String value = get(key, defaultValue);
+        if (value == null) {
+            return List.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .toList();
+    }
+
+    // Все ключи с префиксом (без самого префикса), например db.pragma.* -> {synchronous=NORMAL, ...}
+    public static Map<String, String> getByPrefix(String prefix) {
+        Map<String, String> result = new TreeMap<>();
+        for (Properties source : List.of(PROPERTIES, System.getProperties())) {
+            for (String key : source.stringPropertyNames()) {
+                if (key.startsWith(prefix)) {
+                    result.put(key.substring(prefix.length()), source.getProperty(key).trim());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Properties load() {
+        Properties properties = new Properties();
+        try (InputStream is = AppProperties.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (is != null) {
+                properties.load(new InputStreamReader(is, StandardCharsets.UTF_8));
+            }
+            String external = System.getProperty("app.config");
+            if (external != null) {
+                try (Reader reader = Files.newBufferedReader(Path.of(external), StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                }
+            }
+        } catch (IOException e) {
+            throw new ExceptionInInitializerError("Failed to load application properties: " + e.getMessage());
+        }
+        return properties;
+    }
+}
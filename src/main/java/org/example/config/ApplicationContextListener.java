@@ -4,17 +4,35 @@ import jakarta.servlet.ServletContext;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
+import org.example.arbitrage.ArbitrageDetector;
+import org.example.cache.ChangeLogPoller;
+import org.example.cache.EffectiveRateCache;
+import org.example.cache.RateBookHolder;
+import org.example.cache.ResponseCache;
+import org.example.dao.ChangeLogDaoImpl;
 import org.example.dao.CurrencyDaoImpl;
 import org.example.dao.ExchangeRateDaoImpl;
 import org.example.mapper.CurrencyMapper;
 import org.example.mapper.ExchangeRateMapper;
+import org.example.routing.RateRouter;
+import org.example.routing.RoutingPolicy;
 import org.example.service.CurrencyServiceImpl;
 import org.example.service.ExchangeRateServiceImpl;
 import org.example.service.ExchangeServiceImpl;
+import org.example.service.RateUpdatePipeline;
+import org.example.servlet.AsyncDispatcher;
+import org.example.snapshot.RateSnapshotWriter;
+import org.example.stream.RateStreamHub;
 import org.mapstruct.factory.Mappers;
 
 @WebListener
 public class ApplicationContextListener implements ServletContextListener {
+    private RateUpdatePipeline updatePipeline;
+    private AsyncDispatcher asyncDispatcher;
+    private RateStreamHub rateStreamHub;
+    private ChangeLogPoller changeLogPoller;
+    private RateSnapshotWriter snapshotWriter;
+    private ArbitrageDetector arbitrageDetector;
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
@@ -24,22 +42,101 @@ public class ApplicationContextListener implements ServletContextListener {
         var currencyMapper = Mappers.getMapper(CurrencyMapper.class);
         var exchangeRateMapper = Mappers.getMapper(ExchangeRateMapper.class);
 
-        var currencyService = new CurrencyServiceImpl(currencyDao, currencyMapper);
+        var rateBookHolder = new RateBookHolder(currencyDao, exchangeRateDao);
+        // Другие процессы на том же файле БД: позиция в журнале изменений запоминается до загрузки снимка
+        if (AppProperties.getBoolean("coherence.enabled", true)) {
+            changeLogPoller = ChangeLogPoller.fromProperties(rateBookHolder, ChangeLogDaoImpl.getInstance());
+        }
+        rateBookHolder.reload();
+
+        var responseCache = new ResponseCache();
+        rateBookHolder.addListener(responseCache);
+        if (AppProperties.getBoolean("stream.enabled", true)) {
+            rateStreamHub = RateStreamHub.fromProperties(exchangeRateMapper);
+            rateBookHolder.addListener(rateStreamHub);
+        }
+        if (AppProperties.getBoolean("snapshot.file.enabled", false)) {
+            snapshotWriter = RateSnapshotWriter.fromProperties(rateBookHolder);
+            rateBookHolder.addListener(snapshotWriter);
+        }
+
+        var currencyService = new CurrencyServiceImpl(currencyDao, currencyMapper, rateBookHolder);
+        if (AppProperties.getBoolean("updates.coalescing.enabled", false)) {
+            updatePipeline = RateUpdatePipeline.fromProperties(rateBookHolder, exchangeRateDao);
+        }
+
+        if (AppProperties.getBoolean("arbitrage.enabled", true)) {
+            arbitrageDetector = ArbitrageDetector.fromProperties(rateBookHolder);
+            arbitrageDetector.rebuild(rateBookHolder.get().getRates());
+            rateBookHolder.addListener(arbitrageDetector);
+            arbitrageDetector.start();
+        }
+
         var exchangeRateService = new ExchangeRateServiceImpl(
                 exchangeRateDao,
-                currencyDao,
                 exchangeRateMapper,
-                currencyService
+                rateBookHolder,
+                updatePipeline,
+                arbitrageDetector
         );
+        var rateRouter = RateRouter.fromProperties();
+        EffectiveRateCache rateCache = null;
+        // При FRESHEST выбор маршрута зависит от времени обновления любого курса, точечная инвалидация не годится
+        if (AppProperties.getBoolean("exchange.rateCache.enabled", true)
+                && rateRouter.getPolicy() == RoutingPolicy.FEWEST_HOPS) {
+            rateCache = EffectiveRateCache.fromProperties();
+            rateBookHolder.addListener(rateCache);
+        }
         var exchangeService = new ExchangeServiceImpl(
-                currencyService,
-                exchangeRateService
+                rateBookHolder,
+                currencyMapper,
+                rateRouter,
+                rateCache
         );
 
+        // Опрос начинается, когда все слушатели снимка уже подписаны
+        if (changeLogPoller != null) {
+            changeLogPoller.start();
+        }
+
         ServletContext servletContext = sce.getServletContext();
         servletContext.setAttribute("currencyService", currencyService);
         servletContext.setAttribute("exchangeRateService", exchangeRateService);
         servletContext.setAttribute("exchangeService", exchangeService);
+        if (AppProperties.getBoolean("response.cache.enabled", true)) {
+            servletContext.setAttribute("responseCache", responseCache);
+        }
+        if (rateStreamHub != null) {
+            servletContext.setAttribute("rateStreamHub", rateStreamHub);
+        }
+        if (AppProperties.getBoolean("async.enabled", false)) {
+            asyncDispatcher = AsyncDispatcher.fromProperties();
+            servletContext.setAttribute("asyncDispatcher", asyncDispatcher);
+        }
     }
 
-}
\ No newline at end of file
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (changeLogPoller != null) {
+            changeLogPoller.close();
+        }
+        if (rateStreamHub != null) {
+            rateStreamHub.close();
+        }
+        // Сначала дожидаемся обработчиков на виртуальных потоках — они могут ещё ставить обновления в очередь
+        if (asyncDispatcher != null) {
+            asyncDispatcher.close();
+        }
+        // Дописываем в БД всё, что успело накопиться в очереди обновлений
+        if (updatePipeline != null) {
+            updatePipeline.close();
+        }
+        if (arbitrageDetector != null) {
+            arbitrageDetector.close();
+        }
+        // Последняя публикация в снимок попадает в файл до остановки
+        if (snapshotWriter != null) {
+            snapshotWriter.close();
+        }
+    }
+}
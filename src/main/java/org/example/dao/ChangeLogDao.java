@@ -0,0 +1,12 @@
+package org.example.dao;
+
+import java.util.List;
+
+public interface ChangeLogDao {
+    // PRAGMA data_version своего соединения: меняется, когда БД изменил кто-то другой
+    long dataVersion();
+    long lastSeq();
+    List<ChangeLogEntry> findAfter(long seq, int limit);
+    // Оставляет последние keepRows строк
+    int prune(long keepRows);
+}
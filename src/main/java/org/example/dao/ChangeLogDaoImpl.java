@@ -0,0 +1,128 @@
+package org.example.dao;
+
+import org.example.exceptions.DatabaseException;
+import org.example.metrics.MetricsRegistry;
+import org.example.util.ConnectionManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Чтение журнала идёт через одно своё соединение (см. ConnectionManager.openWatchConnection),
+// запись — в транзакциях DAO курсов и валют через append/bindAppend.
+public class ChangeLogDaoImpl implements ChangeLogDao {
+    private static final String DAO_NAME = "ChangeLogDao";
+    private static final ChangeLogDaoImpl INSTANCE = new ChangeLogDaoImpl();
+
+    static final String APPEND_SQL = "INSERT INTO ChangeLog (Kind, EntityKey, ChangedAt) VALUES (?, ?, ?)";
+    private static final String LAST_SEQ_SQL = "SELECT COALESCE(MAX(Seq), 0) FROM ChangeLog";
+    private static final String FIND_AFTER_SQL = "SELECT Seq, Kind, EntityKey FROM ChangeLog WHERE Seq > ? ORDER BY Seq LIMIT ?";
+    // Seq — rowid, так что удаление головы журнала — диапазон по первичному ключу
+    private static final String PRUNE_SQL = "DELETE FROM ChangeLog WHERE Seq <= (SELECT MAX(Seq) FROM ChangeLog) - ?";
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private Connection watchConnection;
+
+    private ChangeLogDaoImpl() {
+    }
+
+    public static ChangeLogDaoImpl getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public synchronized long dataVersion() {
+        try (var statement = watchConnection().prepareStatement("PRAGMA data_version");
+             var resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            closeWatchConnection();
+            throw new DatabaseException("Failed to read database data_version");
+        }
+    }
+
+    @Override
+    public synchronized long lastSeq() {
+        try (var statement = watchConnection().prepareStatement(LAST_SEQ_SQL);
+             var timer = metrics.timeStatement(DAO_NAME, "lastSeq");
+             var resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        } catch (SQLException e) {
+            closeWatchConnection();
+            throw new DatabaseException("Failed to read change log position");
+        }
+    }
+
+    @Override
+    public synchronized List<ChangeLogEntry> findAfter(long seq, int limit) {
+        try (var statement = watchConnection().prepareStatement(FIND_AFTER_SQL);
+             var timer = metrics.timeStatement(DAO_NAME, "findAfter")) {
+            statement.setLong(1, seq);
+            statement.setInt(2, limit);
+            try (var resultSet = statement.executeQuery()) {
+                List<ChangeLogEntry> entries = new ArrayList<>();
+                while (resultSet.next()) {
+                    entries.add(new ChangeLogEntry(
+                            resultSet.getLong("Seq"),
+                            ChangeLogEntry.Kind.valueOf(resultSet.getString("Kind")),
+                            resultSet.getString("EntityKey")));
+                }
+                return entries;
+            }
+        } catch (SQLException e) {
+            closeWatchConnection();
+            throw new DatabaseException("Failed to read change log after " + seq);
+        }
+    }
+
+    @Override
+    public int prune(long keepRows) {
+        try (var connection = ConnectionManager.getWriteConnection();
+             var statement = connection.prepareStatement(PRUNE_SQL);
+             var timer = metrics.timeStatement(DAO_NAME, "prune")) {
+            statement.setLong(1, keepRows);
+            return statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to prune change log");
+        }
+    }
+
+    // Строка журнала в транзакции записи, которую ведёт вызывающий
+    static void append(Connection connection, ChangeLogEntry.Kind kind, String key) throws SQLException {
+        try (var statement = connection.prepareStatement(APPEND_SQL)) {
+            bindAppend(statement, kind, key);
+            statement.executeUpdate();
+        }
+    }
+
+    // Параметры строки журнала для statement, подготовленного по APPEND_SQL (в том числе для addBatch)
+    static void bindAppend(PreparedStatement statement, ChangeLogEntry.Kind kind, String key) throws SQLException {
+        statement.setString(1, kind.name());
+        statement.setString(2, key);
+        statement.setLong(3, System.currentTimeMillis());
+    }
+
+    private Connection watchConnection() throws SQLException {
+        if (watchConnection == null) {
+            watchConnection = ConnectionManager.openWatchConnection();
+        }
+        return watchConnection;
+    }
+
+    // После ошибки соединение открывается заново; data_version нового соединения с прежним не сравнима,
+    // поэтому следующий опрос в любом случае перечитает журнал
+    private void closeWatchConnection() {
+        if (watchConnection != null) {
+            try {
+                watchConnection.close();
+            } catch (SQLException ignored) {
+                // соединение и так выбрасываем
+            }
+            watchConnection = null;
+        }
+    }
+}
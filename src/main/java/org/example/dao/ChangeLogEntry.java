@@ -0,0 +1,10 @@
+package org.example.dao;
+
+// Строка журнала изменений: что поменялось (валюта или пара) и её ключ — код валюты или код пары
+public record ChangeLogEntry(long seq, Kind kind, String key) {
+
+    public enum Kind {
+        CURRENCY,
+        RATE
+    }
+}
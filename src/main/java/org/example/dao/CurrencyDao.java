@@ -2,11 +2,14 @@ package org.example.dao;
 
 import org.example.entity.Currency;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface CurrencyDao {
     Currency save(Currency currency);
     List<Currency> findAll();
+    List<Currency> findPage(PageQuery query);
     Optional<Currency> findByCode(String code);
+    List<Currency> findByCodes(Collection<String> codes);
 }
\ No newline at end of file
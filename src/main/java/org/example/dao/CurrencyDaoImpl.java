@@ -3,21 +3,29 @@ package org.example.dao;
 import org.example.entity.Currency;
 import org.example.exceptions.AlreadyExistsException;
 import org.example.exceptions.DatabaseException;
+import org.example.metrics.MetricsRegistry;
 import org.example.util.ConnectionManager;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public class CurrencyDaoImpl implements CurrencyDao {
+    private static final String DAO_NAME = "CurrencyDao";
     private static final CurrencyDaoImpl INSTANCE = new CurrencyDaoImpl();
 
     private static final String SAVE_SQL = "INSERT INTO Currencies (Code, FullName, Sign) VALUES (?, ?, ?)";
     private static final String FIND_ALL_SQL = "SELECT ID, Code, FullName, Sign FROM Currencies";
+    // Страница по уникальному индексу idx_currency_code: {условие} — см. KeysetCondition
+    private static final String FIND_PAGE_SQL = "SELECT ID, Code, FullName, Sign FROM Currencies %s ORDER BY Code LIMIT ?";
     private static final String FIND_BY_CODE_SQL = "SELECT ID, Code, FullName, Sign FROM Currencies WHERE Code = ?";
+    private static final String FIND_BY_CODES_SQL = "SELECT ID, Code, FullName, Sign FROM Currencies WHERE Code IN (%s)";
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
 
     private CurrencyDaoImpl() {
     }
@@ -28,18 +36,26 @@ public class CurrencyDaoImpl implements CurrencyDao {
 
     @Override
     public Currency save(Currency currency) {
-        try (var connection = ConnectionManager.getConnection();
-             var statement = connection.prepareStatement(SAVE_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setString(1, currency.getCode());
-            statement.setString(2, currency.getFullName());
-            statement.setString(3, currency.getSign());
+        try (var connection = ConnectionManager.getWriteConnection()) {
+            connection.setAutoCommit(false);
+            try (var statement = connection.prepareStatement(SAVE_SQL, Statement.RETURN_GENERATED_KEYS);
+                 var timer = metrics.timeStatement(DAO_NAME, "save")) {
+                statement.setString(1, currency.getCode());
+                statement.setString(2, currency.getFullName());
+                statement.setString(3, currency.getSign());
 
-            statement.executeUpdate();
-            ResultSet keys = statement.getGeneratedKeys();
-            if (keys.next()) {
-                currency.setId(keys.getInt(1));
+                statement.executeUpdate();
+                ResultSet keys = statement.getGeneratedKeys();
+                if (keys.next()) {
+                    currency.setId(keys.getInt(1));
+                }
+                ChangeLogDaoImpl.append(connection, ChangeLogEntry.Kind.CURRENCY, currency.getCode());
+                connection.commit();
+                return currency;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
-            return currency;
         } catch (SQLException e) {
             if (e.getErrorCode() == 19 || e.getMessage().contains("UNIQUE")) {
                 throw new AlreadyExistsException("Currency with code " + currency.getCode() + " already exists");
@@ -50,8 +66,9 @@ public class CurrencyDaoImpl implements CurrencyDao {
 
     @Override
     public List<Currency> findAll() {
-        try (var connection = ConnectionManager.getConnection();
-             var statement = connection.prepareStatement(FIND_ALL_SQL)) {
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_ALL_SQL);
+             var timer = metrics.timeStatement(DAO_NAME, "findAll")) {
             var resultSet = statement.executeQuery();
             List<Currency> currencies = new ArrayList<>();
             while (resultSet.next()) {
@@ -63,10 +80,30 @@ public class CurrencyDaoImpl implements CurrencyDao {
         }
     }
 
+    @Override
+    public List<Currency> findPage(PageQuery query) {
+        KeysetCondition condition = KeysetCondition.of("Code", query.afterKey(), query.prefix());
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_PAGE_SQL.formatted(condition.sql()));
+             var timer = metrics.timeStatement(DAO_NAME, "findPage")) {
+            statement.setInt(condition.bind(statement), query.limit());
+            try (var resultSet = statement.executeQuery()) {
+                List<Currency> currencies = new ArrayList<>();
+                while (resultSet.next()) {
+                    currencies.add(buildCurrency(resultSet));
+                }
+                return currencies;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to retrieve currencies page from database");
+        }
+    }
+
     @Override
     public Optional<Currency> findByCode(String code) {
-        try (var connection = ConnectionManager.getConnection();
-             var statement = connection.prepareStatement(FIND_BY_CODE_SQL)) {
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_BY_CODE_SQL);
+             var timer = metrics.timeStatement(DAO_NAME, "findByCode")) {
             statement.setString(1, code);
             try (var resultSet = statement.executeQuery()) {
                 if (!resultSet.next()) return Optional.empty();
@@ -77,6 +114,27 @@ public class CurrencyDaoImpl implements CurrencyDao {
         }
     }
 
+    @Override
+    public List<Currency> findByCodes(Collection<String> codes) {
+        List<Currency> currencies = new ArrayList<>();
+        if (codes.isEmpty()) {
+            return currencies;
+        }
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_BY_CODES_SQL.formatted(InClause.placeholders(codes.size())));
+             var timer = metrics.timeStatement(DAO_NAME, "findByCodes")) {
+            InClause.bind(statement, codes);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    currencies.add(buildCurrency(resultSet));
+                }
+                return currencies;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error searching for " + codes.size() + " currencies by code");
+        }
+    }
+
     private Currency buildCurrency(ResultSet resultSet) throws SQLException {
         Currency currency = new Currency();
         currency.setId(resultSet.getInt(1));
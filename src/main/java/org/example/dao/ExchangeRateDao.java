@@ -2,12 +2,19 @@ package org.example.dao;
 
 import org.example.entity.ExchangeRate;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface ExchangeRateDao {
     ExchangeRate save(ExchangeRate rate);
     List<ExchangeRate> findAll();
+    List<ExchangeRate> findPage(PageQuery query);
     Optional<ExchangeRate> findByCurrencyCodes(String code1, String code2);
+    List<ExchangeRate> findByPairKeys(Collection<String> pairKeys);
     boolean update(ExchangeRate rate);
+    void updateAll(Collection<ExchangeRate> rates);
+    List<ExchangeRate> findByPairKeysAt(Collection<String> pairKeys, long at);
+    Optional<ExchangeRate> findByCurrencyCodesAt(String code1, String code2, long at);
+    RateBulkWriter openBulkWriter(int chunkSize);
 }
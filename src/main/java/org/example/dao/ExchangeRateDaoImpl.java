@@ -4,16 +4,21 @@ import org.example.entity.Currency;
 import org.example.entity.ExchangeRate;
 import org.example.exceptions.AlreadyExistsException;
 import org.example.exceptions.DatabaseException;
+import org.example.metrics.MetricsRegistry;
 import org.example.util.ConnectionManager;
 
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public class ExchangeRateDaoImpl implements ExchangeRateDao {
+    private static final String DAO_NAME = "ExchangeRateDao";
     private static final ExchangeRateDaoImpl INSTANCE = new ExchangeRateDaoImpl();
 
     private static final String SAVE_SQL = """
@@ -21,39 +26,94 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
             VALUES (?, ?, ?)
             """;
 
+    // Чтение идёт из ExchangeRatePairs, которую ведут триггеры схемы: все поля пары в одной строке, без JOIN
     private static final String FIND_ALL_SQL = """
             SELECT
-                er.ID,
-                er.Rate,
-                c1.ID       AS BaseCurrencyId,
-                c1.Code     AS BaseCode,
-                c1.FullName AS BaseName,
-                c1.Sign     AS BaseSign,
-                c2.ID       AS TargetCurrencyId,
-                c2.Code     AS TargetCode,
-                c2.FullName AS TargetName,
-                c2.Sign     AS TargetSign
-            FROM ExchangeRates er
-            JOIN Currencies c1 ON er.BaseCurrencyId = c1.ID
-            JOIN Currencies c2 ON er.TargetCurrencyId = c2.ID
+                ExchangeRateId AS ID,
+                Rate,
+                BaseCurrencyId,
+                BaseCode,
+                BaseName,
+                BaseSign,
+                TargetCurrencyId,
+                TargetCode,
+                TargetName,
+                TargetSign
+            FROM ExchangeRatePairs
             """;
 
-    private static final String FIND_BY_CURRENCY_CODES_SQL = """
+    // Ключ пары — первичный ключ WITHOUT ROWID-таблицы: один спуск по B-дереву, строка и есть запись индекса
+    private static final String FIND_BY_CURRENCY_CODES_SQL = FIND_ALL_SQL + """
+            WHERE PairKey = ?
+            """;
+
+    private static final String FIND_BY_PAIR_KEYS_SQL = FIND_ALL_SQL + """
+            WHERE PairKey IN (%s)
+            """;
+
+    // Страница по ключу пары; с фильтром по валюте назначения — по индексу (TargetCode, PairKey)
+    private static final String FIND_PAGE_SQL = FIND_ALL_SQL + """
+            %s
+            ORDER BY PairKey
+            LIMIT ?
+            """;
+
+    // Курс на момент времени берётся подзапросом по ключу истории — один спуск по B-дереву на пару
+    private static final String FIND_ALL_AT_SQL = """
             SELECT
-                er.ID,
-                er.Rate,
-                c1.ID       AS BaseCurrencyId,
-                c1.Code     AS BaseCode,
-                c1.FullName AS BaseName,
-                c1.Sign     AS BaseSign,
-                c2.ID       AS TargetCurrencyId,
-                c2.Code     AS TargetCode,
-                c2.FullName AS TargetName,
-                c2.Sign     AS TargetSign
-            FROM ExchangeRates er
-            JOIN Currencies c1 ON er.BaseCurrencyId = c1.ID
-            JOIN Currencies c2 ON er.TargetCurrencyId = c2.ID
-            WHERE c1.Code = ? AND c2.Code = ?
+                p.ExchangeRateId AS ID,
+                (SELECT h.Rate
+                 FROM ExchangeRateHistory h
+                 WHERE h.ExchangeRateId = p.ExchangeRateId AND h.ValidFrom <= ?
+                 ORDER BY h.ValidFrom DESC
+                 LIMIT 1)   AS Rate,
+                p.BaseCurrencyId,
+                p.BaseCode,
+                p.BaseName,
+                p.BaseSign,
+                p.TargetCurrencyId,
+                p.TargetCode,
+                p.TargetName,
+                p.TargetSign
+            FROM ExchangeRatePairs p
+            """;
+
+    private static final String FIND_BY_CURRENCY_CODES_AT_SQL = FIND_ALL_AT_SQL + """
+            WHERE p.PairKey = ?
+            """;
+
+    private static final String FIND_BY_PAIR_KEYS_AT_SQL = FIND_ALL_AT_SQL + """
+            WHERE p.PairKey IN (%s)
+            """;
+
+    // История только дописывается: ValidFrom не меньше последнего момента пары плюс 1 мс, поэтому две записи
+    // в одну миллисекунду или при отставших часах дают две строки, а не замену. Последний момент пары —
+    // один спуск по первичному ключу; писатель один, и подзапрос идёт в той же транзакции, что и вставка
+    private static final String APPEND_HISTORY_SQL = """
+            INSERT INTO ExchangeRateHistory (ExchangeRateId, ValidFrom, Rate)
+            VALUES (?1,
+                    max(?2, coalesce((SELECT max(ValidFrom) + 1
+                                      FROM ExchangeRateHistory
+                                      WHERE ExchangeRateId = ?1), ?2)),
+                    ?3)
+            """;
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO ExchangeRates (BaseCurrencyId, TargetCurrencyId, Rate)
+            VALUES (?, ?, ?)
+            ON CONFLICT (BaseCurrencyId, TargetCurrencyId) DO UPDATE SET Rate = excluded.Rate
+            """;
+
+    // То же для массовой загрузки, где ID пары ещё не известен; повтор пары в одной пачке тоже получает +1 мс
+    private static final String APPEND_HISTORY_BY_PAIR_SQL = """
+            INSERT INTO ExchangeRateHistory (ExchangeRateId, ValidFrom, Rate)
+            SELECT r.ID,
+                   max(?1, coalesce((SELECT max(h.ValidFrom) + 1
+                                     FROM ExchangeRateHistory h
+                                     WHERE h.ExchangeRateId = r.ID), ?1)),
+                   ?2
+            FROM ExchangeRates r
+            WHERE r.BaseCurrencyId = ?3 AND r.TargetCurrencyId = ?4
             """;
 
     private static final String UPDATE_SQL = """
@@ -62,6 +122,8 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
             WHERE ID = ?
             """;
 
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
     private ExchangeRateDaoImpl() {
     }
 
@@ -71,18 +133,27 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
 
     @Override
     public ExchangeRate save(ExchangeRate rate) {
-        try (var connection = ConnectionManager.getConnection();
-             var statement = connection.prepareStatement(SAVE_SQL, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setInt(1, rate.getBaseCurrency().getId());
-            statement.setInt(2, rate.getTargetCurrency().getId());
-            statement.setBigDecimal(3, rate.getRate());
+        try (var connection = ConnectionManager.getWriteConnection()) {
+            connection.setAutoCommit(false);
+            try (var statement = connection.prepareStatement(SAVE_SQL, Statement.RETURN_GENERATED_KEYS);
+                 var timer = metrics.timeStatement(DAO_NAME, "save")) {
+                statement.setInt(1, rate.getBaseCurrency().getId());
+                statement.setInt(2, rate.getTargetCurrency().getId());
+                statement.setBigDecimal(3, rate.getRate());
 
-            statement.executeUpdate();
-            ResultSet keys = statement.getGeneratedKeys();
-            if (keys.next()) {
-                rate.setId(keys.getInt(1));
+                statement.executeUpdate();
+                ResultSet keys = statement.getGeneratedKeys();
+                if (keys.next()) {
+                    rate.setId(keys.getInt(1));
+                }
+                appendHistory(connection, rate);
+                ChangeLogDaoImpl.append(connection, ChangeLogEntry.Kind.RATE, pairKey(rate));
+                connection.commit();
+                return rate;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
             }
-            return rate;
         } catch (SQLException e) {
             if (e.getErrorCode() == 19 || e.getMessage().contains("UNIQUE constraint failed")) {
                 throw new AlreadyExistsException(
@@ -95,22 +166,73 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
 
     @Override
     public boolean update(ExchangeRate rate) {
-        try (var connection = ConnectionManager.getConnection();
-             var statement = connection.prepareStatement(UPDATE_SQL)) {
-            statement.setInt(1, rate.getBaseCurrency().getId());
-            statement.setInt(2, rate.getTargetCurrency().getId());
-            statement.setBigDecimal(3, rate.getRate());
-            statement.setInt(4, rate.getId());
-            return statement.executeUpdate() > 0;
+        try (var connection = ConnectionManager.getWriteConnection()) {
+            connection.setAutoCommit(false);
+            try (var statement = connection.prepareStatement(UPDATE_SQL);
+                 var timer = metrics.timeStatement(DAO_NAME, "update")) {
+                statement.setInt(1, rate.getBaseCurrency().getId());
+                statement.setInt(2, rate.getTargetCurrency().getId());
+                statement.setBigDecimal(3, rate.getRate());
+                statement.setInt(4, rate.getId());
+                if (statement.executeUpdate() == 0) {
+                    connection.rollback();
+                    return false;
+                }
+                appendHistory(connection, rate);
+                ChangeLogDaoImpl.append(connection, ChangeLogEntry.Kind.RATE, pairKey(rate));
+                connection.commit();
+                return true;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
         } catch (SQLException e) {
             throw new DatabaseException("Failed to update exchange rate ID: " + rate.getId());
         }
     }
 
+    @Override
+    public void updateAll(Collection<ExchangeRate> rates) {
+        try (var connection = ConnectionManager.getWriteConnection()) {
+            connection.setAutoCommit(false);
+            try (var statement = connection.prepareStatement(UPDATE_SQL);
+                 var history = connection.prepareStatement(APPEND_HISTORY_SQL);
+                 var changeLog = connection.prepareStatement(ChangeLogDaoImpl.APPEND_SQL);
+                 var timer = metrics.timeStatement(DAO_NAME, "updateAll")) {
+                long validFrom = System.currentTimeMillis();
+                for (ExchangeRate rate : rates) {
+                    statement.setInt(1, rate.getBaseCurrency().getId());
+                    statement.setInt(2, rate.getTargetCurrency().getId());
+                    statement.setBigDecimal(3, rate.getRate());
+                    statement.setInt(4, rate.getId());
+                    statement.addBatch();
+
+                    history.setInt(1, rate.getId());
+                    history.setLong(2, validFrom);
+                    history.setBigDecimal(3, rate.getRate());
+                    history.addBatch();
+
+                    ChangeLogDaoImpl.bindAppend(changeLog, ChangeLogEntry.Kind.RATE, pairKey(rate));
+                    changeLog.addBatch();
+                }
+                statement.executeBatch();
+                history.executeBatch();
+                changeLog.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to update " + rates.size() + " exchange rates");
+        }
+    }
+
     @Override
     public List<ExchangeRate> findAll() {
-        try (var connection = ConnectionManager.getConnection();
-             var statement = connection.prepareStatement(FIND_ALL_SQL)) {
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_ALL_SQL);
+             var timer = metrics.timeStatement(DAO_NAME, "findAll")) {
             var resultSet = statement.executeQuery();
             List<ExchangeRate> exchangeRates = new ArrayList<>();
             while (resultSet.next()) {
@@ -122,13 +244,51 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
         }
     }
 
+    @Override
+    public List<ExchangeRate> findPage(PageQuery query) {
+        // Базовая валюта — это первые три символа ключа пары, т.е. тот же префикс
+        String prefix = narrowerPrefix(query.prefix(), query.baseCode());
+        if (prefix == null && query.prefix() != null && query.baseCode() != null) {
+            return List.of();
+        }
+        KeysetCondition condition = KeysetCondition.of("PairKey", query.afterKey(), prefix);
+        if (query.targetCode() != null) {
+            condition.and("TargetCode = ?", query.targetCode());
+        }
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_PAGE_SQL.formatted(condition.sql()));
+             var timer = metrics.timeStatement(DAO_NAME, "findPage")) {
+            statement.setInt(condition.bind(statement), query.limit());
+            try (var resultSet = statement.executeQuery()) {
+                List<ExchangeRate> exchangeRates = new ArrayList<>();
+                while (resultSet.next()) {
+                    exchangeRates.add(buildExchangeRate(resultSet));
+                }
+                return exchangeRates;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to fetch exchange rates page");
+        }
+    }
+
+    // Пересечение двух префиксов — более длинный из них; null, если они несовместимы (или оба не заданы)
+    private static String narrowerPrefix(String first, String second) {
+        if (first == null || second == null) {
+            return first != null ? first : second;
+        }
+        if (first.startsWith(second)) {
+            return first;
+        }
+        return second.startsWith(first) ? second : null;
+    }
+
     @Override
     public Optional<ExchangeRate> findByCurrencyCodes(String code1, String code2) {
-        try (var connection = ConnectionManager.getConnection();
-             var statement = connection.prepareStatement(FIND_BY_CURRENCY_CODES_SQL)) {
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_BY_CURRENCY_CODES_SQL);
+             var timer = metrics.timeStatement(DAO_NAME, "findByCurrencyCodes")) {
 
-            statement.setString(1, code1.trim().toUpperCase());
-            statement.setString(2, code2.trim().toUpperCase());
+            statement.setString(1, pairKey(code1, code2));
 
             try (var resultSet = statement.executeQuery()) {
                 if (!resultSet.next()) {
@@ -141,6 +301,99 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
         }
     }
 
+    @Override
+    public List<ExchangeRate> findByPairKeys(Collection<String> pairKeys) {
+        List<ExchangeRate> exchangeRates = new ArrayList<>();
+        if (pairKeys.isEmpty()) {
+            return exchangeRates;
+        }
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_BY_PAIR_KEYS_SQL.formatted(InClause.placeholders(pairKeys.size())));
+             var timer = metrics.timeStatement(DAO_NAME, "findByPairKeys")) {
+            InClause.bind(statement, pairKeys);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    exchangeRates.add(buildExchangeRate(resultSet));
+                }
+                return exchangeRates;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error finding " + pairKeys.size() + " exchange rates by pair");
+        }
+    }
+
+    @Override
+    public List<ExchangeRate> findByPairKeysAt(Collection<String> pairKeys, long at) {
+        List<ExchangeRate> exchangeRates = new ArrayList<>();
+        if (pairKeys.isEmpty()) {
+            return exchangeRates;
+        }
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_BY_PAIR_KEYS_AT_SQL.formatted(InClause.placeholders(pairKeys.size())));
+             var timer = metrics.timeStatement(DAO_NAME, "findByPairKeysAt")) {
+            statement.setLong(1, at);
+            InClause.bind(statement, 2, pairKeys);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    // Пара появилась позже запрошенного момента
+                    if (resultSet.getBigDecimal("Rate") != null) {
+                        exchangeRates.add(buildExchangeRate(resultSet));
+                    }
+                }
+                return exchangeRates;
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to fetch " + pairKeys.size() + " exchange rates at " + at);
+        }
+    }
+
+    @Override
+    public Optional<ExchangeRate> findByCurrencyCodesAt(String code1, String code2, long at) {
+        try (var connection = ConnectionManager.getReadConnection();
+             var statement = connection.prepareStatement(FIND_BY_CURRENCY_CODES_AT_SQL);
+             var timer = metrics.timeStatement(DAO_NAME, "findByCurrencyCodesAt")) {
+
+            statement.setLong(1, at);
+            statement.setString(2, pairKey(code1, code2));
+
+            try (var resultSet = statement.executeQuery()) {
+                if (!resultSet.next() || resultSet.getBigDecimal("Rate") == null) {
+                    return Optional.empty();
+                }
+                return Optional.of(buildExchangeRate(resultSet));
+            }
+        } catch (SQLException e) {
+            throw new DatabaseException("Error finding exchange rate for pair: " + code1 + "/" + code2 + " at " + at);
+        }
+    }
+
+    @Override
+    public RateBulkWriter openBulkWriter(int chunkSize) {
+        try {
+            return new JdbcRateBulkWriter(ConnectionManager.getWriteConnection(), chunkSize);
+        } catch (SQLException e) {
+            throw new DatabaseException("Failed to start bulk exchange rate import");
+        }
+    }
+
+    private void appendHistory(Connection connection, ExchangeRate rate) throws SQLException {
+        try (var statement = connection.prepareStatement(APPEND_HISTORY_SQL);
+             var timer = metrics.timeStatement(DAO_NAME, "appendHistory")) {
+            statement.setInt(1, rate.getId());
+            statement.setLong(2, System.currentTimeMillis());
+            statement.setBigDecimal(3, rate.getRate());
+            statement.executeUpdate();
+        }
+    }
+
+    private static String pairKey(ExchangeRate rate) {
+        return rate.getBaseCurrency().getCode() + rate.getTargetCurrency().getCode();
+    }
+
+    private static String pairKey(String code1, String code2) {
+        return code1.trim().toUpperCase() + code2.trim().toUpperCase();
+    }
+
     private ExchangeRate buildExchangeRate(ResultSet rs) throws SQLException {
         Currency base = new Currency(
                 rs.getInt("BaseCurrencyId"),
@@ -163,4 +416,91 @@ public class ExchangeRateDaoImpl implements ExchangeRateDao {
                 rs.getBigDecimal("Rate")
         );
     }
-}
\ No newline at end of file
+
+    // Один писатель — одна транзакция, строки уходят в БД через addBatch по chunkSize. Импорт открывает
+    // отдельный писатель на каждую пачку из import.chunkSize строк, так что транзакций столько же, сколько пачек
+    private static class JdbcRateBulkWriter implements RateBulkWriter {
+        private final Connection connection;
+        private final PreparedStatement upsert;
+        private final PreparedStatement history;
+        private final PreparedStatement changeLog;
+        private final int chunkSize;
+        private final long validFrom = System.currentTimeMillis();
+        private int pending;
+        private boolean committed;
+
+        JdbcRateBulkWriter(Connection connection, int chunkSize) throws SQLException {
+            this.connection = connection;
+            this.chunkSize = chunkSize;
+            try {
+                connection.setAutoCommit(false);
+                this.upsert = connection.prepareStatement(UPSERT_SQL);
+                this.history = connection.prepareStatement(APPEND_HISTORY_BY_PAIR_SQL);
+                this.changeLog = connection.prepareStatement(ChangeLogDaoImpl.APPEND_SQL);
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void add(ExchangeRate rate) {
+            try {
+                upsert.setInt(1, rate.getBaseCurrency().getId());
+                upsert.setInt(2, rate.getTargetCurrency().getId());
+                upsert.setBigDecimal(3, rate.getRate());
+                upsert.addBatch();
+
+                history.setLong(1, validFrom);
+                history.setBigDecimal(2, rate.getRate());
+                history.setInt(3, rate.getBaseCurrency().getId());
+                history.setInt(4, rate.getTargetCurrency().getId());
+                history.addBatch();
+
+                ChangeLogDaoImpl.bindAppend(changeLog, ChangeLogEntry.Kind.RATE, pairKey(rate));
+                changeLog.addBatch();
+
+                if (++pending == chunkSize) {
+                    flush();
+                }
+            } catch (SQLException e) {
+                throw new DatabaseException("Failed to write exchange rate batch");
+            }
+        }
+
+        @Override
+        public void commit() {
+            try {
+                flush();
+                connection.commit();
+                committed = true;
+            } catch (SQLException e) {
+                throw new DatabaseException("Failed to commit exchange rate import");
+            }
+        }
+
+        @Override
+        public void close() {
+            try (connection; upsert; history; changeLog) {
+                if (!committed) {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                throw new DatabaseException("Failed to close exchange rate import");
+            }
+        }
+
+        // История ищет ID пары, поэтому её пачка идёт после пачки курсов
+        private void flush() throws SQLException {
+            if (pending == 0) {
+                return;
+            }
+            try (var timer = MetricsRegistry.getInstance().timeStatement(DAO_NAME, "bulkFlush")) {
+                upsert.executeBatch();
+                history.executeBatch();
+                changeLog.executeBatch();
+            }
+            pending = 0;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.example.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+
+// Список "?, ?, ..." для IN (...). SQLite принимает до 32766 параметров в запросе — вызывающие передают
+// пачки заметно меньше (ChangeLogPoller ограничивает их coherence.maxBatch)
+final class InClause {
+
+    private InClause() {
+    }
+
+    static String placeholders(int count) {
+        return "?, ".repeat(count - 1) + "?";
+    }
+
+    static void bind(PreparedStatement statement, Collection<String> values) throws SQLException {
+        bind(statement, 1, values);
+    }
+
+    // Значения IN (...) начиная с параметра firstIndex — когда перед списком в запросе есть другие параметры
+    static void bind(PreparedStatement statement, int firstIndex, Collection<String> values) throws SQLException {
+        int index = firstIndex;
+        for (String value : values) {
+            statement.setString(index++, value);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.dao;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Условие keyset-страницы по строковому ключу с индексом. Нижняя граница всегда одна — либо после курсора,
+// либо начало префикса, — чтобы SQLite начал спуск по индексу прямо с неё, а не фильтровал пройденное:
+// так стоимость страницы не зависит от её номера.
+final class KeysetCondition {
+    private final StringBuilder sql = new StringBuilder();
+    private final List<String> params = new ArrayList<>();
+
+    private KeysetCondition() {
+    }
+
+    // prefix == null — без ограничения по началу ключа
+    static KeysetCondition of(String keyColumn, String afterKey, String prefix) {
+        KeysetCondition condition = new KeysetCondition();
+        if (afterKey != null && (prefix == null || afterKey.compareTo(prefix) >= 0)) {
+            condition.and(keyColumn + " > ?", afterKey);
+        } else if (prefix != null) {
+            condition.and(keyColumn + " >= ?", prefix);
+        }
+        if (prefix != null) {
+            condition.and(keyColumn + " < ?", upperBound(prefix));
+        }
+        return condition;
+    }
+
+    KeysetCondition and(String predicate, String param) {
+        sql.append(sql.isEmpty() ? "WHERE " : " AND ").append(predicate);
+        params.add(param);
+        return this;
+    }
+
+    String sql() {
+        return sql.toString();
+    }
+
+    // Возвращает индекс следующего параметра
+    int bind(PreparedStatement statement) throws SQLException {
+        int index = 1;
+        for (String param : params) {
+            statement.setString(index++, param);
+        }
+        return index;
+    }
+
+    // Наименьшая строка, большая всех строк с этим префиксом (коды — латиница в верхнем регистре)
+    private static String upperBound(String prefix) {
+        char last = prefix.charAt(prefix.length() - 1);
+        return prefix.substring(0, prefix.length() - 1) + (char) (last + 1);
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.dao;
+
+// Страница keyset-выборки: строки строго после afterKey в порядке ключа (код валюты или код пары),
+// не больше limit. prefix ограничивает ключ по началу; baseCode/targetCode есть только у курсов.
+public record PageQuery(String afterKey, String prefix, String baseCode, String targetCode, int limit) {
+
+    public static PageQuery currencies(String afterKey, String prefix, int limit) {
+        return new PageQuery(afterKey, prefix, null, null, limit);
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.dao;
+
+import org.example.entity.ExchangeRate;
+
+// Пакетная запись курсов в одной транзакции. Без commit() close() откатывает всё записанное.
+public interface RateBulkWriter extends AutoCloseable {
+    void add(ExchangeRate rate);
+
+    void commit();
+
+    @Override
+    void close();
+}
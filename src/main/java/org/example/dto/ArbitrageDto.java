@@ -0,0 +1,22 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArbitrageDto {
+    // Котировка, замкнувшая цикл
+    private String pair;
+    private BigDecimal rate;
+    private List<String> cycle;
+    // Доход за один обход цикла: 0.0002 — это 0.02%
+    private BigDecimal profit;
+}
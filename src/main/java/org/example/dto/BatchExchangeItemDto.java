@@ -0,0 +1,27 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchExchangeItemDto {
+    private int index;
+    private int status;
+    private ExchangeResultDto result;
+    private String error;
+
+    public static BatchExchangeItemDto success(int index, ExchangeResultDto result) {
+        return new BatchExchangeItemDto(index, 200, result, null);
+    }
+
+    public static BatchExchangeItemDto failure(int index, int status, String error) {
+        return new BatchExchangeItemDto(index, status, null, error);
+    }
+}
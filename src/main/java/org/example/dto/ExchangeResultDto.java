@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Setter
 @Getter
@@ -17,4 +18,5 @@ public class ExchangeResultDto {
     private BigDecimal rate;
     private BigDecimal amount;
     private BigDecimal convertedAmount;
+    private List<String> path;
 }
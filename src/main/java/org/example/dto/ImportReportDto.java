@@ -0,0 +1,23 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportReportDto {
+    private int imported;
+    private int failed;
+    private List<ImportErrorDto> errors = new ArrayList<>();
+    // Номер строки, которой кончается последняя закоммиченная пачка; null — ничего не записано
+    private Integer lastCommittedLine;
+    // Почему загрузка остановилась раньше конца тела; null — тело прочитано целиком
+    private String abortedReason;
+}
@@ -0,0 +1,18 @@
+package org.example.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+// nextCursor == null — это последняя страница
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageDto<T> {
+    private List<T> items;
+    private String nextCursor;
+}
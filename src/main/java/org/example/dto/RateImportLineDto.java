@@ -0,0 +1,26 @@
+package org.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class RateImportLineDto {
+    @JsonIgnore
+    private int lineNumber;
+    private String baseCurrencyCode;
+    private String targetCurrencyCode;
+    private String rate;
+    // Ошибка разбора строки; такая строка сразу попадает в отчёт
+    @JsonIgnore
+    private String error;
+
+    public static RateImportLineDto malformed(int lineNumber, String error) {
+        return new RateImportLineDto(lineNumber, null, null, null, error);
+    }
+}
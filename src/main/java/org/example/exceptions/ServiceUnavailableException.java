@@ -0,0 +1,12 @@
+package org.example.exceptions;
+
+public class ServiceUnavailableException extends ApplicationException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+
+    @Override
+    public int getStatusCode() {
+        return 503;
+    }
+}
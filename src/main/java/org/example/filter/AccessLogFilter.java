@@ -0,0 +1,109 @@
+package org.example.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.accesslog.AccessLog;
+import org.example.config.AppProperties;
+import org.example.exceptions.ApplicationException;
+import org.example.metrics.MetricsRegistry;
+
+import java.io.IOException;
+
+@WebFilter(value = "/*", asyncSupported = true)
+public class AccessLogFilter implements Filter {
+    private AccessLog accessLog;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        if (AppProperties.getBoolean("accesslog.enabled", true)) {
+            accessLog = AccessLog.fromProperties();
+            MetricsRegistry.getInstance().registerAccessLog(accessLog::getWritten, accessLog::getDropped);
+        }
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        if (accessLog == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+
+        long timestamp = System.currentTimeMillis();
+        long start = System.nanoTime();
+        int status = 500;
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            status = res.getStatus();
+            async = req.isAsyncStarted();
+        } catch (ApplicationException e) {
+            status = e.getStatusCode();
+            throw e;
+        } finally {
+            if (async) {
+                req.getAsyncContext().addListener(new CompletionListener(req, res, timestamp, start));
+            } else {
+                record(req, status, timestamp, start);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (accessLog != null) {
+            accessLog.close();
+        }
+    }
+
+    private void record(HttpServletRequest req, int status, long timestamp, long start) {
+        long duration = System.nanoTime() - start;
+        String servlet = req.getHttpServletMapping() != null ? req.getHttpServletMapping().getServletName() : "unmapped";
+        if (accessLog.isSampled(servlet, status)) {
+            accessLog.record(timestamp, req.getMethod(), req.getRequestURI(), req.getQueryString(), status,
+                    duration, servlet, req.getRemoteAddr());
+        }
+    }
+
+    private final class CompletionListener implements AsyncListener {
+        private final HttpServletRequest req;
+        private final HttpServletResponse res;
+        private final long timestamp;
+        private final long start;
+
+        private CompletionListener(HttpServletRequest req, HttpServletResponse res, long timestamp, long start) {
+            this.req = req;
+            this.res = res;
+            this.timestamp = timestamp;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(req, res.getStatus(), timestamp, start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
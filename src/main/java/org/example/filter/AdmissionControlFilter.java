@@ -0,0 +1,142 @@
+package org.example.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.FilterConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.MappingMatch;
+import org.example.admission.AdaptiveLimit;
+import org.example.admission.AdmissionController;
+import org.example.config.AppProperties;
+import org.example.dto.ErrorResponseDto;
+import org.example.metrics.MetricsRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Set;
+
+// Сбрасывает лишнюю нагрузку сразу, вместо того чтобы держать запрос в очереди Hikari до connectionTimeout.
+// Отказ пишется здесь же, без исключения: в перегрузке не нужны ни стек, ни строка WARN на каждый запрос.
+@WebFilter(value = "/*", asyncSupported = true)
+public class AdmissionControlFilter implements Filter {
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private AdmissionController admission;
+    private Set<String> exemptPaths;
+    private Set<String> readOnlyPosts;
+
+    @Override
+    public void init(FilterConfig filterConfig) {
+        if (!AppProperties.getBoolean("admission.enabled", true)) {
+            return;
+        }
+        admission = AdmissionController.fromProperties();
+        // SSE держит соединение часами и заняло бы место в лимите навсегда; /metrics нужен именно в перегрузке
+        exemptPaths = Set.copyOf(AppProperties.getList("admission.exemptPaths", "/metrics,/exchangeRates/stream"));
+        // POST, который только читает (пакетная конвертация), идёт по лимиту чтений
+        readOnlyPosts = Set.copyOf(AppProperties.getList("admission.readOnlyPosts", "/exchange/batch"));
+
+        AdaptiveLimit readLimit = admission.getReadLimit();
+        metrics.registerAdmission("read", readLimit::getLimit, readLimit::getInFlight);
+        metrics.registerAdmission("write", admission::getWriteBudget, admission::getWritesInFlight);
+        metrics.addPoolWaitListener(admission);
+    }
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+        if (admission == null || isExempt(req)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        boolean write = isWrite(req);
+        AdmissionController.Rejection rejection = admission.tryAdmit(req.getRemoteAddr(), write);
+        if (rejection != null) {
+            reject(req, res, rejection);
+            return;
+        }
+
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            async = req.isAsyncStarted();
+        } finally {
+            if (async) {
+                // Место занято, пока обработчик работает на виртуальном потоке
+                req.getAsyncContext().addListener(new ReleaseListener(write));
+            } else {
+                admission.release(write);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (admission != null) {
+            metrics.removePoolWaitListener(admission);
+        }
+    }
+
+    private boolean isExempt(HttpServletRequest req) {
+        var mapping = req.getHttpServletMapping();
+        return (mapping != null && mapping.getMappingMatch() == MappingMatch.DEFAULT)
+                || exemptPaths.contains(req.getServletPath());
+    }
+
+    private boolean isWrite(HttpServletRequest req) {
+        return !READ_METHODS.contains(req.getMethod()) && !readOnlyPosts.contains(req.getServletPath());
+    }
+
+    private void reject(HttpServletRequest req, HttpServletResponse res,
+                        AdmissionController.Rejection rejection) throws IOException {
+        metrics.recordAdmissionRejected(rejection.reason());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Shed {} {} from {}: {}", req.getMethod(), req.getRequestURI(), req.getRemoteAddr(),
+                    rejection.reason());
+        }
+        res.setStatus(rejection.status());
+        res.setHeader("Retry-After", Long.toString(rejection.retryAfterSeconds()));
+        res.setContentType("application/json;charset=UTF-8");
+        objectMapper.writeValue(res.getWriter(), new ErrorResponseDto(rejection.message()));
+    }
+
+    private final class ReleaseListener implements AsyncListener {
+        private final boolean write;
+
+        private ReleaseListener(boolean write) {
+            this.write = write;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            admission.release(write);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
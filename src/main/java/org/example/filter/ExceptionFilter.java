@@ -10,18 +10,21 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.example.dto.ErrorResponseDto;
 import org.example.exceptions.AlreadyExistsException;
+import org.example.exceptions.ApplicationException;
 import org.example.exceptions.DatabaseException;
 import org.example.exceptions.EntityNotFoundException;
 import org.example.exceptions.InvalidParameterException;
+import org.example.exceptions.ServiceUnavailableException;
+import org.example.metrics.MetricsRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 
-@WebFilter("/*")
+@WebFilter(value = "/*", asyncSupported = true)
 public class ExceptionFilter implements Filter {
     private static final Logger logger = LoggerFactory.getLogger(ExceptionFilter.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private static final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException {
@@ -30,28 +33,35 @@ public class ExceptionFilter implements Filter {
 
         try {
             chain.doFilter(request, response);
-        } catch (InvalidParameterException e) {
-            logAndWriteError(res, req, e.getStatusCode(), e.getMessage(), "warn", e);
-        } catch (EntityNotFoundException e) {
-            logAndWriteError(res, req, e.getStatusCode(), e.getMessage(), "warn", e);
-        } catch (AlreadyExistsException e) {
-            logAndWriteError(res, req, e.getStatusCode(), e.getMessage(), "warn", e);
-        } catch (DatabaseException e) {
-            logAndWriteError(res, req, 500, "Database error: " + e.getMessage(), "error", e);
         } catch (Exception e) {
-            logAndWriteError(res, req, 500, "Internal server error: " + e.getMessage(), "error", e);
+            writeException(req, res, e);
         }
     }
 
-    private void logAndWriteError(HttpServletResponse res, HttpServletRequest req, int status,
-                                  String message, String logLevel, Exception e) throws IOException {
+    // Общий разбор ошибок: им пользуется и асинхронный режим, где обработчик работает уже вне цепочки фильтров
+    public static void writeException(HttpServletRequest req, HttpServletResponse res, Exception e) throws IOException {
+        if (e instanceof ServiceUnavailableException unavailable) {
+            res.setHeader("Retry-After", "1");
+            logAndWriteError(res, req, unavailable.getStatusCode(), e.getMessage(), "warn", e);
+        } else if (e instanceof InvalidParameterException || e instanceof EntityNotFoundException
+                || e instanceof AlreadyExistsException) {
+            logAndWriteError(res, req, ((ApplicationException) e).getStatusCode(), e.getMessage(), "warn", e);
+        } else if (e instanceof DatabaseException) {
+            logAndWriteError(res, req, 500, "Database error: " + e.getMessage(), "error", e);
+        } else {
+            logAndWriteError(res, req, 500, "Internal server error: " + e.getMessage(), "error", e);
+        }
+    }
 
-        String logMessage = String.format("Error during %s %s: %s", req.getMethod(), req.getRequestURI(), message);
+    private static void logAndWriteError(HttpServletResponse res, HttpServletRequest req, int status,
+                                         String message, String logLevel, Exception e) throws IOException {
+        MetricsRegistry.getInstance().recordError(e);
 
+        // 404 и 400 — обычный поток запросов: при выключенном WARN строку не собираем вовсе
         if ("error".equals(logLevel)) {
-            logger.error(logMessage, e);
-        } else {
-            logger.warn(logMessage);
+            logger.error("Error during {} {}: {}", req.getMethod(), req.getRequestURI(), message, e);
+        } else if (logger.isWarnEnabled()) {
+            logger.warn("Error during {} {}: {}", req.getMethod(), req.getRequestURI(), message);
         }
 
         res.setStatus(status);
@@ -0,0 +1,83 @@
+package org.example.filter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.Filter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.exceptions.ApplicationException;
+import org.example.metrics.MetricsRegistry;
+
+import java.io.IOException;
+
+@WebFilter(value = "/*", asyncSupported = true)
+public class MetricsFilter implements Filter {
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpServletRequest req = (HttpServletRequest) request;
+        HttpServletResponse res = (HttpServletResponse) response;
+
+        long start = System.nanoTime();
+        int status = 500;
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            status = res.getStatus();
+            async = req.isAsyncStarted();
+        } catch (ApplicationException e) {
+            // Порядок фильтров не задан: если ExceptionFilter внутри нас, статус уже выставлен,
+            // если снаружи — берём тот, который он запишет
+            status = e.getStatusCode();
+            throw e;
+        } finally {
+            if (async) {
+                // Обработчик ещё работает на виртуальном потоке: замер закрываем по завершении AsyncContext
+                req.getAsyncContext().addListener(new CompletionListener(req, res, start));
+            } else {
+                record(req, status, start);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest req, int status, long start) {
+        String servlet = req.getHttpServletMapping() != null ? req.getHttpServletMapping().getServletName() : "unmapped";
+        metrics.recordRequest(servlet, req.getMethod(), status, System.nanoTime() - start);
+    }
+
+    private final class CompletionListener implements AsyncListener {
+        private final HttpServletRequest req;
+        private final HttpServletResponse res;
+        private final long start;
+
+        private CompletionListener(HttpServletRequest req, HttpServletResponse res, long start) {
+            this.req = req;
+            this.res = res;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(req, res.getStatus(), start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
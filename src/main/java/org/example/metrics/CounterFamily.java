@@ -0,0 +1,30 @@
+package org.example.metrics;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class CounterFamily extends MetricFamily<LongAdder> {
+
+    CounterFamily(String name, String help, String... labelNames) {
+        super(name, help, List.of(labelNames));
+    }
+
+    public void increment(String... labelValues) {
+        labels(labelValues).increment();
+    }
+
+    // Для горячего пути: счётчик серии берётся один раз, а не ищется при каждом приращении
+    public LongAdder labels(String... labelValues) {
+        return series(List.of(labelValues), ignored -> new LongAdder());
+    }
+
+    @Override
+    String type() {
+        return "counter";
+    }
+
+    @Override
+    void writeSeries(StringBuilder out, String labels, LongAdder counter) {
+        out.append(name).append('{').append(labels).append("} ").append(counter.sum()).append('\n');
+    }
+}
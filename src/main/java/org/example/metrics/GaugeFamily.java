@@ -0,0 +1,26 @@
+package org.example.metrics;
+
+import java.util.List;
+import java.util.function.DoubleSupplier;
+
+// Значение читается в момент выгрузки /metrics
+public final class GaugeFamily extends MetricFamily<DoubleSupplier> {
+
+    GaugeFamily(String name, String help, String... labelNames) {
+        super(name, help, List.of(labelNames));
+    }
+
+    public void register(DoubleSupplier value, String... labelValues) {
+        series.put(List.of(labelValues), value);
+    }
+
+    @Override
+    String type() {
+        return "gauge";
+    }
+
+    @Override
+    void writeSeries(StringBuilder out, String labels, DoubleSupplier value) {
+        out.append(name).append('{').append(labels).append("} ").append(value.getAsDouble()).append('\n');
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+// Подключается через HikariConfig.setMetricsTrackerFactory: ожидание соединения, таймауты и состояние пула
+public final class HikariMetrics implements MetricsTrackerFactory {
+    private final MetricsRegistry registry;
+
+    public HikariMetrics(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        GaugeFamily connections = registry.poolConnections();
+        connections.register(poolStats::getActiveConnections, poolName, "active");
+        connections.register(poolStats::getIdleConnections, poolName, "idle");
+        connections.register(poolStats::getPendingThreads, poolName, "pending");
+        connections.register(poolStats::getMaxConnections, poolName, "max");
+
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                registry.connectionAcquired(poolName, elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                registry.connectionTimeout(poolName);
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.metrics;
+
+import java.util.List;
+
+public final class HistogramFamily extends MetricFamily<LatencyHistogram> {
+
+    HistogramFamily(String name, String help, String... labelNames) {
+        super(name, help, List.of(labelNames));
+    }
+
+    public LatencyHistogram labels(String... labelValues) {
+        return series(List.of(labelValues), ignored -> new LatencyHistogram());
+    }
+
+    public Timer startTimer(String... labelValues) {
+        return new Timer(labels(labelValues), System.nanoTime());
+    }
+
+    @Override
+    String type() {
+        return "histogram";
+    }
+
+    @Override
+    void writeSeries(StringBuilder out, String labels, LatencyHistogram histogram) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        long[] cumulative = histogram.cumulativeCounts();
+        for (int i = 0; i < LatencyHistogram.BUCKETS.length; i++) {
+            out.append(name).append("_bucket{").append(prefix).append("le=\"")
+                    .append(LatencyHistogram.BUCKETS[i]).append("\"} ").append(cumulative[i]).append('\n');
+        }
+        long count = cumulative[cumulative.length - 1];
+        out.append(name).append("_bucket{").append(prefix).append("le=\"+Inf\"} ").append(count).append('\n');
+        out.append(name).append("_sum{").append(labels).append("} ").append(histogram.sumSeconds()).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(count).append('\n');
+    }
+
+    // Замер для try-with-resources
+    public record Timer(LatencyHistogram histogram, long startNanos) implements AutoCloseable {
+        @Override
+        public void close() {
+            histogram.recordNanos(System.nanoTime() - startNanos);
+        }
+    }
+}
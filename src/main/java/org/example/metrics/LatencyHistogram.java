@@ -0,0 +1,58 @@
+package org.example.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Гистограмма с фиксированными границами: запись — бинарный поиск и два LongAdder, без блокировок
+public final class LatencyHistogram {
+    // Границы в секундах, как принято в Prometheus
+    static final double[] BUCKETS = {
+            0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10
+    };
+    private static final long[] BUCKET_NANOS = new long[BUCKETS.length];
+
+    static {
+        for (int i = 0; i < BUCKETS.length; i++) {
+            BUCKET_NANOS[i] = (long) (BUCKETS[i] * 1_000_000_000L);
+        }
+    }
+
+    // Последняя ячейка — +Inf
+    private final LongAdder[] counts = new LongAdder[BUCKETS.length + 1];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        int low = 0;
+        int high = BUCKET_NANOS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BUCKET_NANOS[mid] < nanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        counts[low].increment();
+        sumNanos.add(nanos);
+    }
+
+    // Накопленные (кумулятивные) значения по границам, последним идёт +Inf
+    long[] cumulativeCounts() {
+        long[] result = new long[counts.length];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i].sum();
+            result[i] = total;
+        }
+        return result;
+    }
+
+    double sumSeconds() {
+        return sumNanos.sum() / 1_000_000_000.0;
+    }
+}
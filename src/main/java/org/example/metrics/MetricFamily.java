@@ -0,0 +1,50 @@
+package org.example.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Метрика с набором меток: по значению меток хранится своя серия
+abstract class MetricFamily<T> {
+    final String name;
+    final String help;
+    final List<String> labelNames;
+    final Map<List<String>, T> series = new ConcurrentHashMap<>();
+
+    MetricFamily(String name, String help, List<String> labelNames) {
+        this.name = name;
+        this.help = help;
+        this.labelNames = labelNames;
+    }
+
+    T series(List<String> labelValues, Function<List<String>, T> factory) {
+        T existing = series.get(labelValues);
+        return existing != null ? existing : series.computeIfAbsent(labelValues, factory);
+    }
+
+    abstract String type();
+
+    abstract void writeSeries(StringBuilder out, String labels, T value);
+
+    void writeTo(StringBuilder out) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type()).append('\n');
+        series.forEach((labelValues, value) -> writeSeries(out, labels(labelValues), value));
+    }
+
+    private String labels(List<String> labelValues) {
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i < labelNames.size(); i++) {
+            if (i > 0) {
+                labels.append(',');
+            }
+            labels.append(labelNames.get(i)).append("=\"").append(escape(labelValues.get(i))).append('"');
+        }
+        return labels.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
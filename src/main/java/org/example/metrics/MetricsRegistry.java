@@ -0,0 +1,142 @@
+package org.example.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+// Все метрики приложения. Один экземпляр на процесс, как и DAO.
+public final class MetricsRegistry {
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final HistogramFamily httpRequests = new HistogramFamily(
+            "http_server_requests_seconds", "HTTP request latency by servlet, method and status",
+            "servlet", "method", "status");
+    private final HistogramFamily dbStatements = new HistogramFamily(
+            "db_statement_seconds", "Time spent executing a DAO statement, connection acquisition excluded",
+            "dao", "statement");
+    private final CounterFamily errors = new CounterFamily(
+            "app_errors_total", "Errors mapped to HTTP responses by exception type", "type");
+    private final HistogramFamily poolWait = new HistogramFamily(
+            "hikari_connection_wait_seconds", "Time spent waiting for a pooled connection", "pool");
+    private final CounterFamily poolTimeouts = new CounterFamily(
+            "hikari_connection_timeouts_total", "Connection requests that timed out", "pool");
+    private final GaugeFamily poolConnections = new GaugeFamily(
+            "hikari_connections", "Pool connections by state", "pool", "state");
+    private final CounterFamily singleFlight = new CounterFamily(
+            "single_flight_calls_total", "Cache-miss loads by role: leader queried the database, follower shared its result",
+            "name", "role");
+    private final GaugeFamily accessLog = new GaugeFamily(
+            "access_log_records", "Access log records written by the background writer or dropped on a full buffer",
+            "state");
+    private final CounterFamily admissionRejected = new CounterFamily(
+            "admission_rejected_total", "Requests shed before reaching a servlet", "reason");
+    private final GaugeFamily admission = new GaugeFamily(
+            "admission_concurrency", "Admission control: current concurrency limit and admitted requests in flight",
+            "class", "state");
+    private final CounterFamily rateCacheEvents = new CounterFamily(
+            "effective_rate_cache_events_total", "Effective-rate cache lookups, admissions and removals by event",
+            "event");
+    private final GaugeFamily rateCacheSize = new GaugeFamily(
+            "effective_rate_cache_entries", "Effective rates currently cached");
+    private final GaugeFamily arbitrageCycles = new GaugeFamily(
+            "rate_arbitrage_cycles", "Quotes that close a profitable conversion cycle");
+    private final CounterFamily rateCoherenceEvents = new CounterFamily(
+            "rate_book_coherence_events_total",
+            "Change log polls, changes applied from other processes, full reloads and failed polls", "event");
+
+    private final List<MetricFamily<?>> families = List.of(
+            httpRequests, dbStatements, errors, poolWait, poolTimeouts, poolConnections, singleFlight, accessLog,
+            admissionRejected, admission, rateCacheEvents, rateCacheSize, arbitrageCycles, rateCoherenceEvents);
+
+    private final List<PoolWaitListener> poolWaitListeners = new CopyOnWriteArrayList<>();
+
+    private MetricsRegistry() {
+    }
+
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    public void recordRequest(String servlet, String method, int status, long nanos) {
+        httpRequests.labels(servlet, method, Integer.toString(status)).recordNanos(nanos);
+    }
+
+    public HistogramFamily.Timer timeStatement(String dao, String statement) {
+        return dbStatements.startTimer(dao, statement);
+    }
+
+    public void recordError(Throwable error) {
+        errors.increment(error.getClass().getSimpleName());
+    }
+
+    public void recordSingleFlight(String name, String role) {
+        singleFlight.increment(name, role);
+    }
+
+    public void registerAccessLog(LongSupplier written, LongSupplier dropped) {
+        accessLog.register(written::getAsLong, "written");
+        accessLog.register(dropped::getAsLong, "dropped");
+    }
+
+    public void recordAdmissionRejected(String reason) {
+        admissionRejected.increment(reason);
+    }
+
+    public void registerAdmission(String requestClass, DoubleSupplier limit, DoubleSupplier inFlight) {
+        admission.register(limit, requestClass, "limit");
+        admission.register(inFlight, requestClass, "in_flight");
+    }
+
+    public LongAdder rateCacheEvents(String event) {
+        return rateCacheEvents.labels(event);
+    }
+
+    public void registerRateCacheSize(DoubleSupplier size) {
+        rateCacheSize.register(size);
+    }
+
+    public void registerArbitrageCycles(DoubleSupplier count) {
+        arbitrageCycles.register(count);
+    }
+
+    public LongAdder rateCoherenceEvents(String event) {
+        return rateCoherenceEvents.labels(event);
+    }
+
+    public void addPoolWaitListener(PoolWaitListener listener) {
+        poolWaitListeners.add(listener);
+    }
+
+    public void removePoolWaitListener(PoolWaitListener listener) {
+        poolWaitListeners.remove(listener);
+    }
+
+    void connectionAcquired(String pool, long waitNanos) {
+        poolWait.labels(pool).recordNanos(waitNanos);
+        for (PoolWaitListener listener : poolWaitListeners) {
+            listener.onConnectionAcquired(pool, waitNanos);
+        }
+    }
+
+    void connectionTimeout(String pool) {
+        poolTimeouts.increment(pool);
+        for (PoolWaitListener listener : poolWaitListeners) {
+            listener.onConnectionTimeout(pool);
+        }
+    }
+
+    GaugeFamily poolConnections() {
+        return poolConnections;
+    }
+
+    // Текстовый формат Prometheus 0.0.4
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        for (MetricFamily<?> family : families) {
+            family.writeTo(out);
+        }
+        return out.toString();
+    }
+}
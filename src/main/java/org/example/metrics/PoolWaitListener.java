@@ -0,0 +1,8 @@
+package org.example.metrics;
+
+// Ожидание соединения из пула Hikari — самый ранний признак перегрузки БД
+public interface PoolWaitListener {
+    void onConnectionAcquired(String pool, long waitNanos);
+
+    void onConnectionTimeout(String pool);
+}
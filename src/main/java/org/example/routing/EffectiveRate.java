@@ -0,0 +1,25 @@
+package org.example.routing;
+
+import org.example.cache.RateBook;
+import org.example.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+// Итоговый курс маршрута: fixedRate — для быстрого пути на long (null, если не помещается),
+// rate — то же значение в BigDecimal. Деление в BigDecimal нужно, только если long не хватило.
+public record EffectiveRate(Route route, List<String> path, FixedPoint fixedRate, BigDecimal rate,
+                            BigDecimal displayRate) {
+
+    public static EffectiveRate of(RateBook book, Route route) {
+        FixedPoint fixed;
+        try {
+            fixed = route.fixedRate(book);
+        } catch (ArithmeticException overflow) {
+            fixed = null;
+        }
+        BigDecimal rate = fixed != null ? BigDecimal.valueOf(fixed.unscaled(), fixed.scale()) : route.rate();
+        return new EffectiveRate(route, route.path(), fixed, rate, rate.setScale(6, RoundingMode.HALF_UP));
+    }
+}
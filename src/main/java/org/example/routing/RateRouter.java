@@ -0,0 +1,152 @@
+package org.example.routing;
+
+import org.example.cache.RateBook;
+import org.example.config.AppProperties;
+import org.example.entity.ExchangeRate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Поиск маршрута конвертации по книге курсов. Промежуточными могут быть только опорные валюты,
+// поэтому цена поиска зависит от числа опорных валют и maxHops, а не от размера книги:
+// каждый шаг — это поиск пары в хеш-таблице снимка, и изменение одной котировки ничего не пересчитывает.
+public class RateRouter {
+    private final List<String> pivots;
+    private final Set<String> pivotSet;
+    private final int maxHops;
+    private final RoutingPolicy policy;
+
+    public RateRouter(List<String> pivots, int maxHops, RoutingPolicy policy) {
+        if (maxHops < 1) {
+            throw new IllegalArgumentException("maxHops must be at least 1");
+        }
+        this.pivotSet = new LinkedHashSet<>(pivots);
+        this.pivots = List.copyOf(pivotSet);
+        this.maxHops = maxHops;
+        this.policy = policy;
+    }
+
+    public static RateRouter fromProperties() {
+        return new RateRouter(
+                AppProperties.getList("routing.pivots", "USD"),
+                AppProperties.getInt("routing.maxHops", 2),
+                RoutingPolicy.valueOf(AppProperties.get("routing.policy", RoutingPolicy.FEWEST_HOPS.name()))
+        );
+    }
+
+    public RoutingPolicy getPolicy() {
+        return policy;
+    }
+
+    // Все валюты, пары между которыми findRoute может посмотреть: концы маршрута и опорные валюты.
+    // Книге, собранной только из этих пар, маршрут найдётся тот же, что и по полной
+    public Set<String> candidateCodes(String from, String to) {
+        Set<String> codes = new LinkedHashSet<>();
+        codes.add(from);
+        codes.add(to);
+        if (maxHops > 1) {
+            codes.addAll(pivots);
+        }
+        return codes;
+    }
+
+    public Optional<Route> findRoute(RateBook book, String from, String to) {
+        if (from.equals(to)) {
+            return Optional.empty();
+        }
+
+        Route best = null;
+        Optional<RouteLeg> direct = directOrReverse(book, from, to);
+        if (direct.isPresent()) {
+            best = new Route(List.of(direct.get()));
+            if (policy == RoutingPolicy.FEWEST_HOPS) {
+                return Optional.of(best);
+            }
+        }
+
+        for (int hops = 2; hops <= maxHops; hops++) {
+            Set<String> visited = new HashSet<>();
+            visited.add(from);
+            best = searchVia(book, from, to, hops - 1, new ArrayList<>(), visited, best);
+            if (best != null && policy == RoutingPolicy.FEWEST_HOPS) {
+                return Optional.of(best);
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private Route searchVia(RateBook book, String current, String to, int pivotsLeft,
+                            List<RouteLeg> legs, Set<String> visited, Route best) {
+        if (pivotsLeft == 0) {
+            Optional<RouteLeg> last = pivotLeg(book, current, to);
+            if (last.isEmpty()) {
+                return best;
+            }
+            legs.add(last.get());
+            Route candidate = new Route(List.copyOf(legs));
+            legs.remove(legs.size() - 1);
+            return better(book, candidate, best);
+        }
+
+        for (String pivot : pivots) {
+            if (visited.contains(pivot) || pivot.equals(to)) {
+                continue;
+            }
+            Optional<RouteLeg> next = pivotLeg(book, current, pivot);
+            if (next.isEmpty()) {
+                continue;
+            }
+            legs.add(next.get());
+            visited.add(pivot);
+            best = searchVia(book, pivot, to, pivotsLeft - 1, legs, visited, best);
+            visited.remove(pivot);
+            legs.remove(legs.size() - 1);
+            if (best != null && policy == RoutingPolicy.FEWEST_HOPS) {
+                return best;
+            }
+        }
+        return best;
+    }
+
+    private Route better(RateBook book, Route candidate, Route best) {
+        if (best == null) {
+            return candidate;
+        }
+        if (policy == RoutingPolicy.FRESHEST && freshness(book, candidate) > freshness(book, best)) {
+            return candidate;
+        }
+        return best;
+    }
+
+    private long freshness(RateBook book, Route route) {
+        long oldest = Long.MAX_VALUE;
+        for (RouteLeg leg : route.legs()) {
+            oldest = Math.min(oldest, book.getUpdatedAt(leg.rate()));
+        }
+        return oldest;
+    }
+
+    private Optional<RouteLeg> directOrReverse(RateBook book, String from, String to) {
+        Optional<ExchangeRate> direct = book.findRate(from, to);
+        if (direct.isPresent()) {
+            return Optional.of(new RouteLeg(direct.get(), false));
+        }
+        return book.findRate(to, from).map(rate -> new RouteLeg(rate, true));
+    }
+
+    // Внутри маршрута предпочитаем котировку опорной валюты (USD→X, а не X→USD),
+    // как это делал прежний кросс-курс через USD
+    private Optional<RouteLeg> pivotLeg(RateBook book, String from, String to) {
+        if (pivotSet.contains(to) && !pivotSet.contains(from)) {
+            Optional<ExchangeRate> quotedByPivot = book.findRate(to, from);
+            if (quotedByPivot.isPresent()) {
+                return Optional.of(new RouteLeg(quotedByPivot.get(), true));
+            }
+        }
+        return directOrReverse(book, from, to);
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.routing;
+
+import org.example.cache.RateBook;
+import org.example.util.FixedPoint;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+public record Route(List<RouteLeg> legs) {
+    private static final int DIVISION_SCALE = 10;
+
+    public int hops() {
+        return legs.size();
+    }
+
+    public List<String> path() {
+        List<String> path = new ArrayList<>(legs.size() + 1);
+        path.add(legs.get(0).fromCode());
+        for (RouteLeg leg : legs) {
+            path.add(leg.toCode());
+        }
+        return path;
+    }
+
+    // Числители и знаменатели перемножаются отдельно, деление одно в конце —
+    // так для прямого, обратного и кросс-курса через USD результат совпадает с прежним расчётом
+    public BigDecimal rate() {
+        BigDecimal numerator = BigDecimal.ONE;
+        BigDecimal denominator = BigDecimal.ONE;
+        boolean hasInverted = false;
+        for (RouteLeg leg : legs) {
+            if (leg.inverted()) {
+                denominator = denominator.multiply(leg.rate().getRate());
+                hasInverted = true;
+            } else {
+                numerator = numerator.multiply(leg.rate().getRate());
+            }
+        }
+        if (!hasInverted) {
+            return numerator;
+        }
+        return numerator.divide(denominator, DIVISION_SCALE, RoundingMode.HALF_UP);
+    }
+
+    // То же, что rate(), но на long: null, если у какого-то курса нет мантиссы в снимке,
+    // ArithmeticException — если промежуточный результат не помещается в long
+    public FixedPoint fixedRate(RateBook book) {
+        long numerator = 1;
+        int numeratorScale = 0;
+        long denominator = 1;
+        int denominatorScale = 0;
+        boolean hasInverted = false;
+        for (int i = 0; i < legs.size(); i++) {
+            RouteLeg leg = legs.get(i);
+            FixedPoint rate = book.findFixedRate(leg.rate());
+            if (rate == null) {
+                return null;
+            }
+            if (leg.inverted()) {
+                denominator = Math.multiplyExact(denominator, rate.unscaled());
+                denominatorScale = Math.addExact(denominatorScale, rate.scale());
+                hasInverted = true;
+            } else {
+                numerator = Math.multiplyExact(numerator, rate.unscaled());
+                numeratorScale = Math.addExact(numeratorScale, rate.scale());
+            }
+        }
+        if (!hasInverted) {
+            return new FixedPoint(numerator, numeratorScale);
+        }
+
+        // numerator / denominator с масштабом 10: мантисса = round(num × 10^shift / den)
+        int shift = DIVISION_SCALE - numeratorScale + denominatorScale;
+        long quotient = shift >= 0
+                ? FixedPoint.divideHalfUp(Math.multiplyExact(numerator, FixedPoint.pow10(shift)), denominator)
+                : FixedPoint.divideHalfUp(numerator, Math.multiplyExact(denominator, FixedPoint.pow10(-shift)));
+        return new FixedPoint(quotient, DIVISION_SCALE);
+    }
+}
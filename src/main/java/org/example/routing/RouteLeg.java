@@ -0,0 +1,15 @@
+package org.example.routing;
+
+import org.example.entity.ExchangeRate;
+
+// Один шаг маршрута: котировка из книги курсов, взятая напрямую или обратной (1 / rate)
+public record RouteLeg(ExchangeRate rate, boolean inverted) {
+
+    public String fromCode() {
+        return inverted ? rate.getTargetCurrency().getCode() : rate.getBaseCurrency().getCode();
+    }
+
+    public String toCode() {
+        return inverted ? rate.getBaseCurrency().getCode() : rate.getTargetCurrency().getCode();
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.routing;
+
+public enum RoutingPolicy {
+    // Меньше всего промежуточных валют
+    FEWEST_HOPS,
+    // Самый старый курс на маршруте — самый свежий среди кандидатов
+    FRESHEST
+}
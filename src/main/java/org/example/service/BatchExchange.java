@@ -0,0 +1,11 @@
+package org.example.service;
+
+import org.example.dto.ExchangeResultDto;
+
+import java.math.BigDecimal;
+
+// Конвертации одного пакета, привязанные к одному снимку курсов
+@FunctionalInterface
+public interface BatchExchange {
+    ExchangeResultDto exchange(String baseCode, String targetCode, BigDecimal amount);
+}
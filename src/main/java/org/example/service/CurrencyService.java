@@ -1,12 +1,18 @@
 package org.example.service;
 
 import org.example.dto.CurrencyDto;
+import org.example.dto.PageDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface CurrencyService {
     List<CurrencyDto> getAllCurrencies();
 
+    void forEachCurrency(Consumer<CurrencyDto> action);
+
+    PageDto<CurrencyDto> getCurrencyPage(String cursor, String prefix, int limit);
+
     CurrencyDto findByCode(String code);
 
     CurrencyDto addNewCurrency(String code, String name, String sign);
@@ -1,42 +1,71 @@
 package org.example.service;
 
+import org.example.cache.RateBookHolder;
+import org.example.config.AppProperties;
 import org.example.dao.CurrencyDao;
+import org.example.dao.PageQuery;
 import org.example.dto.CurrencyDto;
+import org.example.dto.PageDto;
 import org.example.entity.Currency;
+import org.example.exceptions.AlreadyExistsException;
 import org.example.exceptions.EntityNotFoundException;
 import org.example.exceptions.InvalidParameterException;
 import org.example.mapper.CurrencyMapper;
+import org.example.util.PageCursor;
+import org.example.util.SingleFlight;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public class CurrencyServiceImpl implements CurrencyService {
+    private static final long LOAD_TIMEOUT_MS = AppProperties.getLong("singleflight.timeoutMs", 5000);
+
     private final CurrencyDao CurrencyDao;
     private final CurrencyMapper currencyMapper;
+    private final RateBookHolder rateBookHolder;
+    // Промах снимка дочитывается из БД; одновременные промахи по одному коду делят один запрос
+    private final SingleFlight<String, Optional<Currency>> currencyLoads = new SingleFlight<>("currency", LOAD_TIMEOUT_MS);
 
     public CurrencyServiceImpl(
             CurrencyDao CurrencyDao,
-            CurrencyMapper currencyMapper) {
+            CurrencyMapper currencyMapper,
+            RateBookHolder rateBookHolder) {
         this.CurrencyDao = CurrencyDao;
         this.currencyMapper = currencyMapper;
+        this.rateBookHolder = rateBookHolder;
     }
 
 
     public List<CurrencyDto> getAllCurrencies() {
         List<CurrencyDto> currencies = new ArrayList<>();
-        List<Currency> allCurrencies = CurrencyDao.findAll();
-        for (Currency currency : allCurrencies) {
-            CurrencyDto currencyDTO = currencyMapper.toDto(currency);
-            currencies.add(currencyDTO);
-        }
+        forEachCurrency(currencies::add);
         return currencies;
     }
 
+    public void forEachCurrency(Consumer<CurrencyDto> action) {
+        for (Currency currency : rateBookHolder.get().getCurrencies()) {
+            action.accept(currencyMapper.toDto(currency));
+        }
+    }
+
+    // Страницы читаются из БД по индексу, а не из снимка: клиенту, листающему каталог, не нужен весь список
+    public PageDto<CurrencyDto> getCurrencyPage(String cursor, String prefix, int limit) {
+        String afterKey = PageCursor.decode(cursor);
+        String codePrefix = Pages.codeFilter(prefix, 1, 3, "prefix");
+        List<Currency> rows = CurrencyDao.findPage(PageQuery.currencies(afterKey, codePrefix, limit + 1));
+        return Pages.of(rows, limit, Currency::getCode, currencyMapper::toDto);
+    }
+
     public CurrencyDto findByCode(String code) {
         if (code == null || code.length() != 3) {
             throw new InvalidParameterException("Invalid currency code");
         }
-        return CurrencyDao.findByCode(code)
+        String upperCode = code.toUpperCase();
+        return rateBookHolder.get().findCurrency(upperCode)
+                .or(() -> currencyLoads.load(upperCode, () -> CurrencyDao.findByCode(upperCode)
+                        .map(rateBookHolder::publishCurrencyIfAbsent)))
                 .map(currencyMapper::toDto)
                 .orElseThrow(() -> new EntityNotFoundException("Currency with code " + code + " not found"));
     }
@@ -49,7 +78,7 @@ public class CurrencyServiceImpl implements CurrencyService {
         }
 
         Currency currency = getCurrency(code, name, sign);
-        Currency saved = CurrencyDao.save(currency);
+        Currency saved = rateBookHolder.commitCurrency(() -> CurrencyDao.save(currency));
         return currencyMapper.toDto(saved);
 
     }
@@ -65,6 +94,10 @@ public class CurrencyServiceImpl implements CurrencyService {
 
         String formattedCode = code.trim().toUpperCase();
 
+        if (rateBookHolder.get().findCurrency(formattedCode).isPresent()) {
+            throw new AlreadyExistsException("Currency with code " + formattedCode + " already exists");
+        }
+
         Currency currency = new Currency();
         currency.setCode(formattedCode);
         currency.setFullName(name);
@@ -1,19 +1,35 @@
 package org.example.service;
 
+import org.example.dto.ArbitrageDto;
 import org.example.dto.ExchangeRateDto;
+import org.example.dto.ImportReportDto;
+import org.example.dto.PageDto;
+import org.example.dto.RateImportLineDto;
 
 import java.math.BigDecimal;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ExchangeRateService {
     List<ExchangeRateDto> getAllExchangeRates();
 
+    void forEachExchangeRate(Consumer<ExchangeRateDto> action);
+
+    PageDto<ExchangeRateDto> getExchangeRatePage(String cursor, String baseCode, String targetCode, String prefix, int limit);
+
     ExchangeRateDto getExchangeRateByCodes(String baseCode, String targetCode);
 
+    ExchangeRateDto getExchangeRateByCodesAt(String baseCode, String targetCode, long at);
+
     ExchangeRateDto addExchangeRate(String baseCode, String targetCode, BigDecimal rate);
 
     ExchangeRateDto updateExchangeRate(String baseCode, String targetCode, BigDecimal rate);
 
     Optional<ExchangeRateDto> findByCodes(String baseCode, String targetCode);
+
+    ImportReportDto importExchangeRates(Iterator<RateImportLineDto> lines);
+
+    List<ArbitrageDto> getArbitrageCycles();
 }
\ No newline at end of file
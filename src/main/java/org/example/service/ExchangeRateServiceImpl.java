@@ -1,80 +1,157 @@
 package org.example.service;
 
-import org.example.dao.CurrencyDao;
+import org.example.arbitrage.ArbitrageDetector;
+import org.example.arbitrage.ArbitrageViolation;
+import org.example.cache.RateBook;
+import org.example.cache.RateBookHolder;
+import org.example.config.AppProperties;
 import org.example.dao.ExchangeRateDao;
-import org.example.dto.CurrencyDto;
+import org.example.dao.PageQuery;
+import org.example.dao.RateBulkWriter;
+import org.example.dto.ArbitrageDto;
 import org.example.dto.ExchangeRateDto;
+import org.example.dto.ImportErrorDto;
+import org.example.dto.ImportReportDto;
+import org.example.dto.PageDto;
+import org.example.dto.RateImportLineDto;
+import org.example.entity.Currency;
 import org.example.entity.ExchangeRate;
+import org.example.exceptions.AlreadyExistsException;
 import org.example.exceptions.DatabaseException;
 import org.example.exceptions.EntityNotFoundException;
 import org.example.exceptions.InvalidParameterException;
+import org.example.exceptions.ServiceUnavailableException;
 import org.example.mapper.ExchangeRateMapper;
+import org.example.util.PageCursor;
+import org.example.util.SingleFlight;
 
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public class ExchangeRateServiceImpl implements ExchangeRateService {
+    private static final int IMPORT_CHUNK_SIZE = AppProperties.getInt("import.chunkSize", 1000);
+    private static final int IMPORT_MAX_REPORTED_ERRORS = AppProperties.getInt("import.maxReportedErrors", 1000);
+    private static final long LOAD_TIMEOUT_MS = AppProperties.getLong("singleflight.timeoutMs", 5000);
+
     private final ExchangeRateDao ExchangeRateDao;
-    private final CurrencyDao CurrencyDao;
     private final ExchangeRateMapper exchangeRateMapper;
-    private final CurrencyServiceImpl currencyService;
+    private final RateBookHolder rateBookHolder;
+    private final RateUpdatePipeline updatePipeline;
+    private final ArbitrageDetector arbitrageDetector;
+    private final SingleFlight<String, Optional<ExchangeRate>> rateLoads = new SingleFlight<>("exchangeRate", LOAD_TIMEOUT_MS);
+
+    public ExchangeRateServiceImpl(
+            ExchangeRateDao ExchangeRateDao,
+            ExchangeRateMapper exchangeRateMapper,
+            RateBookHolder rateBookHolder) {
+        this(ExchangeRateDao, exchangeRateMapper, rateBookHolder, null);
+    }
+
+    // updatePipeline == null — каждое обновление пишется в БД сразу
+    public ExchangeRateServiceImpl(
+            ExchangeRateDao ExchangeRateDao,
+            ExchangeRateMapper exchangeRateMapper,
+            RateBookHolder rateBookHolder,
+            RateUpdatePipeline updatePipeline) {
+        this(ExchangeRateDao, exchangeRateMapper, rateBookHolder, updatePipeline, null);
+    }
 
+    // arbitrageDetector == null — поиск арбитража выключен
     public ExchangeRateServiceImpl(
-            ExchangeRateDao ExchangeRateDao, CurrencyDao CurrencyDao,
+            ExchangeRateDao ExchangeRateDao,
             ExchangeRateMapper exchangeRateMapper,
-            CurrencyServiceImpl currencyService) {
+            RateBookHolder rateBookHolder,
+            RateUpdatePipeline updatePipeline,
+            ArbitrageDetector arbitrageDetector) {
         this.ExchangeRateDao = ExchangeRateDao;
-        this.CurrencyDao = CurrencyDao;
         this.exchangeRateMapper = exchangeRateMapper;
-        this.currencyService = currencyService;
+        this.rateBookHolder = rateBookHolder;
+        this.updatePipeline = updatePipeline;
+        this.arbitrageDetector = arbitrageDetector;
     }
 
 
     @Override
     public List<ExchangeRateDto> getAllExchangeRates() {
         List<ExchangeRateDto> exchangeRates = new ArrayList<>();
-        List<ExchangeRate> allExchangeRates = ExchangeRateDao.findAll();
-        for (ExchangeRate exchangeRate : allExchangeRates) {
-            ExchangeRateDto exchangeRateDTO = exchangeRateMapper.toDto(exchangeRate);
-            exchangeRates.add(exchangeRateDTO);
-        }
+        forEachExchangeRate(exchangeRates::add);
         return exchangeRates;
     }
 
+    @Override
+    public void forEachExchangeRate(Consumer<ExchangeRateDto> action) {
+        for (ExchangeRate exchangeRate : rateBookHolder.get().getRates()) {
+            action.accept(exchangeRateMapper.toDto(exchangeRate));
+        }
+    }
+
+    @Override
+    public PageDto<ExchangeRateDto> getExchangeRatePage(String cursor, String baseCode, String targetCode,
+                                                        String prefix, int limit) {
+        PageQuery query = new PageQuery(
+                PageCursor.decode(cursor),
+                Pages.codeFilter(prefix, 1, 6, "prefix"),
+                Pages.codeFilter(baseCode, 3, 3, "base"),
+                Pages.codeFilter(targetCode, 3, 3, "target"),
+                limit + 1
+        );
+        List<ExchangeRate> rows = ExchangeRateDao.findPage(query);
+        return Pages.of(rows, limit,
+                rate -> rate.getBaseCurrency().getCode() + rate.getTargetCurrency().getCode(),
+                exchangeRateMapper::toDto);
+    }
+
     @Override
     public ExchangeRateDto getExchangeRateByCodes(String baseCode, String targetCode) {
         if (baseCode == null || baseCode.length() != 3 || targetCode == null || targetCode.length() != 3) {
             throw new InvalidParameterException("Invalid currency code");
         }
-        return ExchangeRateDao.findByCurrencyCodes(baseCode, targetCode)
+        return findInBook(baseCode, targetCode)
                 .map(exchangeRateMapper::toDto)
                 .orElseThrow(() -> new EntityNotFoundException("Exchange rate with codes " + baseCode + targetCode + " not found"));
     }
 
     @Override
-    public ExchangeRateDto addExchangeRate(String baseCode, String targetCode, BigDecimal rate) {
-        CurrencyDto baseCurrency = currencyService.findByCode(baseCode);
-        CurrencyDto targetCurrency = currencyService.findByCode(targetCode);
-
+    public ExchangeRateDto getExchangeRateByCodesAt(String baseCode, String targetCode, long at) {
         if (baseCode == null || baseCode.length() != 3 || targetCode == null || targetCode.length() != 3) {
             throw new InvalidParameterException("Invalid currency code");
         }
+        // История живёт только в БД, снимок курсов тут не участвует
+        return ExchangeRateDao.findByCurrencyCodesAt(baseCode, targetCode, at)
+                .map(exchangeRateMapper::toDto)
+                .orElseThrow(() -> new EntityNotFoundException(
+                        "Exchange rate with codes " + baseCode + targetCode + " not found at " + Instant.ofEpochMilli(at)));
+    }
 
-        if (CurrencyDao.findByCode(targetCode).isEmpty()) {
-            throw new EntityNotFoundException("Currency " + targetCode + " is not exists");
+    @Override
+    public ExchangeRateDto addExchangeRate(String baseCode, String targetCode, BigDecimal rate) {
+        if (baseCode == null || baseCode.length() != 3 || targetCode == null || targetCode.length() != 3) {
+            throw new InvalidParameterException("Invalid currency code");
         }
 
-        if (CurrencyDao.findByCode(baseCode).isEmpty()) {
-            throw new EntityNotFoundException("Currency " + baseCode + " is not exists");
+        RateBook book = rateBookHolder.get();
+        Currency baseCurrency = book.findCurrency(baseCode.toUpperCase())
+                .orElseThrow(() -> new EntityNotFoundException("Currency " + baseCode + " is not exists"));
+        Currency targetCurrency = book.findCurrency(targetCode.toUpperCase())
+                .orElseThrow(() -> new EntityNotFoundException("Currency " + targetCode + " is not exists"));
+
+        if (book.findRate(baseCurrency.getCode(), targetCurrency.getCode()).isPresent()) {
+            throw new AlreadyExistsException(
+                    "Exchange rate for " + baseCurrency.getCode() + "/" + targetCurrency.getCode() + " already exists"
+            );
         }
 
-        ExchangeRateDto exchangeRate = new ExchangeRateDto();
-        exchangeRate.setBaseCurrency(baseCurrency);
-        exchangeRate.setTargetCurrency(targetCurrency);
-        exchangeRate.setRate(rate);
-        ExchangeRate saved = ExchangeRateDao.save(exchangeRateMapper.toEntity(exchangeRate));
+        rejectArbitrage(baseCurrency.getCode(), targetCurrency.getCode(), rate);
+        ExchangeRate exchangeRate = new ExchangeRate(0, baseCurrency, targetCurrency, rate);
+        ExchangeRate saved = rateBookHolder.commitRate(() -> ExchangeRateDao.save(exchangeRate));
         return exchangeRateMapper.toDto(saved);
 
     }
@@ -85,24 +162,169 @@ public class ExchangeRateServiceImpl implements ExchangeRateService {
             throw new InvalidParameterException("Invalid currency code");
         }
 
-        ExchangeRate existingEntity = ExchangeRateDao.findByCurrencyCodes(baseCode, targetCode)
+        ExchangeRate existingEntity = findInBook(baseCode, targetCode)
                 .orElseThrow(() -> new EntityNotFoundException("Exchange rate with codes " + baseCode + targetCode + " not found"));
 
-        existingEntity.setRate(rate);
+        rejectArbitrage(existingEntity.getBaseCurrency().getCode(), existingEntity.getTargetCurrency().getCode(), rate);
 
-        boolean isUpdated = ExchangeRateDao.update(existingEntity);
+        // Объекты из снимка не меняем — публикуем новый
+        ExchangeRate updatedEntity = new ExchangeRate(
+                existingEntity.getId(),
+                existingEntity.getBaseCurrency(),
+                existingEntity.getTargetCurrency(),
+                rate
+        );
 
-        if (!isUpdated) {
-            throw new DatabaseException("Failed to update exchange rate in database");
+        if (updatePipeline != null) {
+            updatePipeline.submit(updatedEntity);
+            return exchangeRateMapper.toDto(updatedEntity);
         }
 
-        return exchangeRateMapper.toDto(existingEntity);
+        rateBookHolder.commitRate(() -> {
+            boolean isUpdated = ExchangeRateDao.update(updatedEntity);
+            if (!isUpdated) {
+                throw new DatabaseException("Failed to update exchange rate in database");
+            }
+            return updatedEntity;
+        });
+
+        return exchangeRateMapper.toDto(updatedEntity);
     }
 
     @Override
     public Optional<ExchangeRateDto> findByCodes(String baseCode, String targetCode) {
-        return ExchangeRateDao.findByCurrencyCodes(baseCode, targetCode)
+        return findInBook(baseCode, targetCode)
                 .map(exchangeRateMapper::toDto);
     }
 
+    // Тело запроса читается лениво и может идти долго, поэтому строки разбираются и проверяются без блокировок,
+    // а каждая пачка из import.chunkSize строк пишется своей короткой транзакцией: соединение писателя занято
+    // только на время записи пачки. Параллельные записи идут между пачками и в снимок попадают как обычно.
+    // Если запись пачки или чтение тела обрывается, загрузка останавливается, а уже закоммиченные пачки остаются:
+    // отчёт с abortedReason говорит, сколько строк записано (imported) и какой строкой кончается записанное
+    // (lastCommittedLine) — всё после неё в БД не попало. Снимок перечитывается один раз в конце.
+    @Override
+    public ImportReportDto importExchangeRates(Iterator<RateImportLineDto> lines) {
+        // Коды валют сверяем с одним снимком, в БД за ними не ходим
+        RateBook book = rateBookHolder.get();
+        ImportReportDto report = new ImportReportDto();
+        List<ExchangeRate> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        int chunkLastLine = 0;
+        try {
+            while (lines.hasNext()) {
+                RateImportLineDto line = lines.next();
+                try {
+                    chunk.add(toImportedRate(book, line));
+                    chunkLastLine = line.getLineNumber();
+                } catch (InvalidParameterException | EntityNotFoundException e) {
+                    report.setFailed(report.getFailed() + 1);
+                    if (report.getErrors().size() < IMPORT_MAX_REPORTED_ERRORS) {
+                        report.getErrors().add(new ImportErrorDto(line.getLineNumber(), e.getMessage()));
+                    }
+                }
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    writeImportChunk(chunk, chunkLastLine, report);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeImportChunk(chunk, chunkLastLine, report);
+            }
+        } catch (DatabaseException e) {
+            report.setAbortedReason("Database error: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            report.setAbortedReason("Failed to read request body: " + e.getCause().getMessage());
+        } finally {
+            if (report.getImported() > 0) {
+                rateBookHolder.reload();
+            }
+        }
+        return report;
+    }
+
+    private void writeImportChunk(List<ExchangeRate> chunk, int lastLine, ImportReportDto report) {
+        try (RateBulkWriter writer = ExchangeRateDao.openBulkWriter(IMPORT_CHUNK_SIZE)) {
+            chunk.forEach(writer::add);
+            writer.commit();
+        }
+        report.setImported(report.getImported() + chunk.size());
+        report.setLastCommittedLine(lastLine);
+        chunk.clear();
+    }
+
+    @Override
+    public List<ArbitrageDto> getArbitrageCycles() {
+        if (arbitrageDetector == null) {
+            throw new ServiceUnavailableException("Arbitrage detection is disabled");
+        }
+        return arbitrageDetector.getViolations().stream()
+                .map(violation -> new ArbitrageDto(violation.pair(), violation.rate(), violation.cycle(),
+                        BigDecimal.valueOf(violation.profit()).setScale(8, RoundingMode.HALF_UP)))
+                .toList();
+    }
+
+    // Проверка до записи и сама запись не атомарны: два одновременных изменения могут вместе дать цикл,
+    // его покажет GET /arbitrage. Массовая загрузка не проверяется, её циклы тоже видны только там.
+    private void rejectArbitrage(String baseCode, String targetCode, BigDecimal rate) {
+        if (arbitrageDetector == null) {
+            return;
+        }
+        Optional<ArbitrageViolation> violation = arbitrageDetector.rejection(baseCode, targetCode, rate);
+        if (violation.isPresent()) {
+            throw new InvalidParameterException(String.format(Locale.ROOT,
+                    "Rate %s for %s/%s creates an arbitrage cycle %s with profit %.4f%%",
+                    rate.toPlainString(), baseCode, targetCode, String.join(" -> ", violation.get().cycle()),
+                    violation.get().profit() * 100));
+        }
+    }
+
+    private ExchangeRate toImportedRate(RateBook book, RateImportLineDto line) {
+        if (line.getError() != null) {
+            throw new InvalidParameterException(line.getError());
+        }
+        String baseCode = line.getBaseCurrencyCode();
+        String targetCode = line.getTargetCurrencyCode();
+        if (baseCode == null || targetCode == null || line.getRate() == null) {
+            throw new InvalidParameterException("Missing fields: baseCurrencyCode, targetCurrencyCode, and rate are required");
+        }
+        baseCode = baseCode.trim().toUpperCase();
+        targetCode = targetCode.trim().toUpperCase();
+        if (baseCode.length() != 3 || targetCode.length() != 3) {
+            throw new InvalidParameterException("Invalid currency code");
+        }
+        if (baseCode.equals(targetCode)) {
+            throw new InvalidParameterException("Base and target currencies must differ");
+        }
+
+        BigDecimal rate;
+        try {
+            rate = new BigDecimal(line.getRate().trim());
+        } catch (NumberFormatException e) {
+            throw new InvalidParameterException("Invalid rate format: rate must be a decimal number");
+        }
+        if (rate.signum() <= 0) {
+            throw new InvalidParameterException("Rate must be positive");
+        }
+
+        String base = baseCode;
+        String target = targetCode;
+        Currency baseCurrency = book.findCurrency(base)
+                .orElseThrow(() -> new EntityNotFoundException("Currency " + base + " is not exists"));
+        Currency targetCurrency = book.findCurrency(target)
+                .orElseThrow(() -> new EntityNotFoundException("Currency " + target + " is not exists"));
+        return new ExchangeRate(0, baseCurrency, targetCurrency, rate);
+    }
+
+    // Промах снимка (пару записал другой процесс или снимок ещё не перечитан) дочитывается из БД.
+    // Одновременные промахи по одной паре делят один запрос, а не занимают каждый своё соединение пула.
+    private Optional<ExchangeRate> findInBook(String baseCode, String targetCode) {
+        String base = baseCode.trim().toUpperCase();
+        String target = targetCode.trim().toUpperCase();
+        Optional<ExchangeRate> cached = rateBookHolder.get().findRate(base, target);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return rateLoads.load(RateBook.pairKey(base, target), () -> ExchangeRateDao.findByCurrencyCodes(base, target)
+                .map(rateBookHolder::publishRateIfAbsent));
+    }
+
 }
@@ -7,4 +7,8 @@ import java.math.BigDecimal;
 
 public interface ExchangeService {
     ExchangeResultDto exchange(String baseCode, String targetCode, BigDecimal amount);
-}
\ No newline at end of file
+
+    ExchangeResultDto exchange(String baseCode, String targetCode, BigDecimal amount, long at);
+
+    BatchExchange startBatch();
+}
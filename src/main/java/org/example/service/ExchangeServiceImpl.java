@@ -1,64 +1,112 @@
 package org.example.service;
 
 import lombok.RequiredArgsConstructor;
-import org.example.dto.CurrencyDto;
-import org.example.dto.ExchangeRateDto;
+import org.example.cache.EffectiveRateCache;
+import org.example.cache.RateBook;
+import org.example.cache.RateBookHolder;
 import org.example.dto.ExchangeResultDto;
+import org.example.entity.Currency;
 import org.example.exceptions.EntityNotFoundException;
 import org.example.exceptions.InvalidParameterException;
+import org.example.mapper.CurrencyMapper;
+import org.example.routing.EffectiveRate;
+import org.example.routing.RateRouter;
+import org.example.util.FixedPoint;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Optional;
 
 @RequiredArgsConstructor
 public class ExchangeServiceImpl implements ExchangeService {
-    private final CurrencyServiceImpl currencyService;
-    private final ExchangeRateServiceImpl exchangeRateService;
+    private final RateBookHolder rateBookHolder;
+    private final CurrencyMapper currencyMapper;
+    private final RateRouter rateRouter;
+    // null — кэш выключен
+    private final EffectiveRateCache rateCache;
+
+    public ExchangeServiceImpl(RateBookHolder rateBookHolder, CurrencyMapper currencyMapper, RateRouter rateRouter) {
+        this(rateBookHolder, currencyMapper, rateRouter, null);
+    }
 
     @Override
     public ExchangeResultDto exchange(String baseCode, String targetCode, BigDecimal amount) {
-        if (baseCode == null || baseCode.length() != 3 || targetCode == null || targetCode.length() != 3) {
-            throw new InvalidParameterException("Invalid currency code");
-        }
+        // Весь расчёт идёт по одному снимку, в БД не ходим
+        return exchange(rateBookHolder.get(), baseCode, targetCode, amount);
+    }
+
+    @Override
+    public ExchangeResultDto exchange(String baseCode, String targetCode, BigDecimal amount, long at) {
+        requireCodes(baseCode, targetCode);
+        // Из истории читаются только пары, которые может посмотреть поиск маршрута, а не вся таблица курсов
+        var codes = rateRouter.candidateCodes(baseCode.toUpperCase(), targetCode.toUpperCase());
+        return exchange(rateBookHolder.asOf(at, codes), baseCode, targetCode, amount);
+    }
+
+    @Override
+    public BatchExchange startBatch() {
+        RateBook book = rateBookHolder.get();
+        return (baseCode, targetCode, amount) -> exchange(book, baseCode, targetCode, amount);
+    }
+
+    private ExchangeResultDto exchange(RateBook book, String baseCode, String targetCode, BigDecimal amount) {
+        requireCodes(baseCode, targetCode);
 
         ExchangeResultDto result = new ExchangeResultDto();
 
-        CurrencyDto baseCurrency = currencyService.findByCode(baseCode);
-        CurrencyDto targetCurrency = currencyService.findByCode(targetCode);
+        Currency baseCurrency = findCurrency(book, baseCode);
+        Currency targetCurrency = findCurrency(book, targetCode);
 
-        result.setBaseCurrency(baseCurrency);
-        result.setTargetCurrency(targetCurrency);
+        result.setBaseCurrency(currencyMapper.toDto(baseCurrency));
+        result.setTargetCurrency(currencyMapper.toDto(targetCurrency));
         result.setAmount(amount);
 
-        BigDecimal rate = calculateRate(baseCode, targetCode);
-
-        result.setRate(rate.setScale(6, RoundingMode.HALF_UP));
-        result.setConvertedAmount(amount.multiply(rate).setScale(2, RoundingMode.HALF_UP));
+        String from = baseCurrency.getCode();
+        String to = targetCurrency.getCode();
+        // Кэш хранит курсы текущего снимка; история и пакет, начатый на прежнем снимке, считаются заново
+        EffectiveRate rate = rateCache != null && book == rateBookHolder.get()
+                ? rateCache.get(book, from, to, () -> effectiveRate(book, from, to))
+                : effectiveRate(book, from, to);
+        convert(rate, amount, result);
+        result.setPath(rate.path());
 
         return result;
     }
 
-    private BigDecimal calculateRate(String baseCode, String targetCode) {
-        Optional<ExchangeRateDto> directRate = exchangeRateService.findByCodes(baseCode, targetCode);
-        if (directRate.isPresent()) {
-            return directRate.get().getRate();
-        }
+    private EffectiveRate effectiveRate(RateBook book, String from, String to) {
+        return rateRouter.findRoute(book, from, to)
+                .map(route -> EffectiveRate.of(book, route))
+                .orElseThrow(() -> new EntityNotFoundException("Exchange rate not found"));
+    }
 
-        Optional<ExchangeRateDto> reverseRate = exchangeRateService.findByCodes(targetCode, baseCode);
-        if (reverseRate.isPresent()) {
-            return BigDecimal.ONE.divide(reverseRate.get().getRate(), 10, RoundingMode.HALF_UP);
+    // Быстрый путь считает на long без промежуточных BigDecimal; при переполнении — прежний расчёт.
+    // Оба дают одинаковый результат вплоть до масштаба.
+    private void convert(EffectiveRate rate, BigDecimal amount, ExchangeResultDto result) {
+        result.setRate(rate.displayRate());
+        try {
+            FixedPoint fixed = rate.fixedRate();
+            if (fixed != null && FixedPoint.fits(amount)) {
+                long converted = FixedPoint.rescale(
+                        Math.multiplyExact(FixedPoint.unscaledOf(amount), fixed.unscaled()),
+                        Math.addExact(amount.scale(), fixed.scale()),
+                        2);
+                result.setConvertedAmount(BigDecimal.valueOf(converted, 2));
+                return;
+            }
+        } catch (ArithmeticException overflow) {
+            // считаем в BigDecimal ниже
         }
 
-        Optional<ExchangeRateDto> usdToBase = exchangeRateService.findByCodes("USD", baseCode);
-        Optional<ExchangeRateDto> usdToTarget = exchangeRateService.findByCodes("USD", targetCode);
+        result.setConvertedAmount(amount.multiply(rate.rate()).setScale(2, RoundingMode.HALF_UP));
+    }
 
-        if (usdToBase.isPresent() && usdToTarget.isPresent()) {
-            BigDecimal usdToBaseRate = usdToBase.get().getRate();
-            BigDecimal usdToTargetRate = usdToTarget.get().getRate();
-            return usdToTargetRate.divide(usdToBaseRate, 10, RoundingMode.HALF_UP);
+    private static void requireCodes(String baseCode, String targetCode) {
+        if (baseCode == null || baseCode.length() != 3 || targetCode == null || targetCode.length() != 3) {
+            throw new InvalidParameterException("Invalid currency code");
         }
+    }
 
-        throw new EntityNotFoundException("Exchange rate not found");
+    private Currency findCurrency(RateBook book, String code) {
+        return book.findCurrency(code.toUpperCase())
+                .orElseThrow(() -> new EntityNotFoundException("Currency with code " + code + " not found"));
     }
-}
\ No newline at end of file
+}
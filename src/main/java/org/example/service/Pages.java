@@ -0,0 +1,41 @@
+package org.example.service;
+
+import org.example.dto.PageDto;
+import org.example.exceptions.InvalidParameterException;
+import org.example.util.PageCursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+// Общее для постраничных выборок сервисов: проверка фильтров и сборка страницы из limit + 1 строк
+final class Pages {
+    private static final Pattern LETTERS = Pattern.compile("[A-Za-z]+");
+
+    private Pages() {
+    }
+
+    // null, если фильтр не задан; иначе 1..maxLength латинских букв в верхнем регистре
+    static String codeFilter(String value, int minLength, int maxLength, String name) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.length() < minLength || trimmed.length() > maxLength || !LETTERS.matcher(trimmed).matches()) {
+            throw new InvalidParameterException("Invalid '" + name + "' filter value: " + value);
+        }
+        return trimmed.toUpperCase();
+    }
+
+    // rows запрошены с limit + 1: лишняя строка означает, что есть следующая страница
+    static <E, T> PageDto<T> of(List<E> rows, int limit, Function<E, String> key, Function<E, T> mapper) {
+        int size = Math.min(rows.size(), limit);
+        List<T> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(mapper.apply(rows.get(i)));
+        }
+        String nextCursor = rows.size() > limit ? PageCursor.encode(key.apply(rows.get(limit - 1))) : null;
+        return new PageDto<>(items, nextCursor);
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.service;
+
+import org.example.cache.RateBook;
+import org.example.cache.RateBookHolder;
+import org.example.config.AppProperties;
+import org.example.dao.ExchangeRateDao;
+import org.example.entity.ExchangeRate;
+import org.example.exceptions.DatabaseException;
+import org.example.exceptions.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Схлопывание частых обновлений курса: в пределах окна по паре выживает последнее значение,
+// а накопленное уходит в БД одной транзакцией. Снимок курсов обновляется сразу при приёме; пока значение
+// не закоммичено, перечитывание снимка (импорт, опрос журнала изменений) кладёт его поверх прочитанного из БД.
+public class RateUpdatePipeline implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RateUpdatePipeline.class);
+
+    public enum Durability {
+        // Ответ сразу после приёма в очередь; при сбое записи снимок перечитывается из БД
+        ACK_ON_ENQUEUE,
+        // Ответ только после коммита пачки, в которую попало обновление
+        ACK_ON_COMMIT
+    }
+
+    private record Pending(ExchangeRate rate, List<CompletableFuture<Void>> waiters) {
+    }
+
+    private final RateBookHolder rateBookHolder;
+    private final ExchangeRateDao exchangeRateDao;
+    private final long windowMillis;
+    private final int maxPending;
+    private final long enqueueTimeoutMillis;
+    private final Durability durability;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private Map<String, Pending> pending = new LinkedHashMap<>();
+    // Принятые и ещё не закоммиченные значения: и ожидающие окна, и пачка, которая сейчас пишется
+    private final Map<String, ExchangeRate> unflushed = new ConcurrentHashMap<>();
+    private boolean running = true;
+    private final Thread flusher;
+
+    public RateUpdatePipeline(RateBookHolder rateBookHolder, ExchangeRateDao exchangeRateDao,
+                              long windowMillis, int maxPending, long enqueueTimeoutMillis, Durability durability) {
+        this.rateBookHolder = rateBookHolder;
+        this.exchangeRateDao = exchangeRateDao;
+        this.windowMillis = windowMillis;
+        this.maxPending = maxPending;
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.durability = durability;
+        rateBookHolder.setUnflushedRates(Collections.unmodifiableMap(unflushed));
+        this.flusher = new Thread(this::runFlusher, "rate-update-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    public static RateUpdatePipeline fromProperties(RateBookHolder rateBookHolder, ExchangeRateDao exchangeRateDao) {
+        return new RateUpdatePipeline(
+                rateBookHolder,
+                exchangeRateDao,
+                AppProperties.getLong("updates.coalescing.windowMs", 50),
+                AppProperties.getInt("updates.coalescing.maxPending", 10_000),
+                AppProperties.getLong("updates.coalescing.enqueueTimeoutMs", 100),
+                Durability.valueOf(AppProperties.get("updates.coalescing.durability", Durability.ACK_ON_COMMIT.name()))
+        );
+    }
+
+    public void submit(ExchangeRate rate) {
+        CompletableFuture<Void> committed = enqueue(rate);
+        if (committed == null) {
+            return;
+        }
+        try {
+            committed.get(windowMillis + enqueueTimeoutMillis + 30_000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for rate update to commit");
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Timed out waiting for rate update to commit");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new DatabaseException("Failed to update exchange rate in database");
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(ExchangeRate rate) {
+        String key = RateBook.pairKey(rate);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(enqueueTimeoutMillis);
+        lock.lock();
+        try {
+            // Новая пара при заполненной очереди ждёт флаша; повтор уже ожидающей пары места не занимает
+            while (!pending.containsKey(key) && pending.size() >= maxPending) {
+                if (!running) {
+                    throw new ServiceUnavailableException("Rate update pipeline is shut down");
+                }
+                long left = deadline - System.nanoTime();
+                if (left <= 0) {
+                    throw new ServiceUnavailableException("Too many pending rate updates, retry later");
+                }
+                notFull.awaitNanos(left);
+            }
+            if (!running) {
+                throw new ServiceUnavailableException("Rate update pipeline is shut down");
+            }
+
+            Pending previous = pending.get(key);
+            List<CompletableFuture<Void>> waiters = previous != null ? previous.waiters() : new ArrayList<>();
+            CompletableFuture<Void> committed = null;
+            if (durability == Durability.ACK_ON_COMMIT) {
+                committed = new CompletableFuture<>();
+                waiters.add(committed);
+            }
+            pending.put(key, new Pending(rate, waiters));
+            unflushed.put(key, rate);
+            // Публикуем под той же блокировкой, чтобы порядок в снимке совпадал с порядком в очереди
+            rateBookHolder.publishRate(rate);
+            notEmpty.signal();
+            return committed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for rate update queue");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            Map<String, Pending> batch;
+            lock.lock();
+            try {
+                while (pending.isEmpty() && running) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (running) {
+                sleepWindow();
+            }
+
+            lock.lock();
+            try {
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            flush(batch);
+        }
+    }
+
+    private void sleepWindow() {
+        try {
+            Thread.sleep(windowMillis);
+        } catch (InterruptedException e) {
+            // close() будит поток, чтобы сразу записать остаток
+        }
+    }
+
+    private void flush(Map<String, Pending> batch) {
+        List<ExchangeRate> rates = new ArrayList<>(batch.size());
+        for (Pending p : batch.values()) {
+            rates.add(p.rate());
+        }
+        try {
+            exchangeRateDao.updateAll(rates);
+            forgetUnflushed(batch);
+            rateBookHolder.ratesCommitted(rates);
+            batch.values().forEach(p -> p.waiters().forEach(w -> w.complete(null)));
+            logger.debug("Flushed {} coalesced rate updates", rates.size());
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush {} coalesced rate updates, reloading rate book", rates.size(), e);
+            // В снимке лежат значения, которые БД не приняла: перечитываем записанное. Накопленное для
+            // следующей пачки reload() кладёт поверх. Ожидающие узнают об ошибке, когда снимок уже исправлен
+            forgetUnflushed(batch);
+            rateBookHolder.reload();
+            batch.values().forEach(p -> p.waiters().forEach(w -> w.completeExceptionally(e)));
+        }
+    }
+
+    // Более новое значение той же пары, принятое во время записи, остаётся до своей пачки
+    private void forgetUnflushed(Map<String, Pending> batch) {
+        batch.forEach((key, p) -> unflushed.remove(key, p.rate()));
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flusher.interrupt();
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.servlet;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.service.ExchangeRateService;
+
+import java.io.IOException;
+
+// Котировки, замыкающие прибыльный цикл конвертаций
+@WebServlet(value = "/arbitrage", asyncSupported = true)
+public class ArbitrageServlet extends BaseServlet {
+    private ExchangeRateService exchangeRateService;
+
+    @Override
+    public void init() {
+        this.exchangeRateService = (ExchangeRateService) getServletContext().getAttribute("exchangeRateService");
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeJson(response, HttpServletResponse.SC_OK, exchangeRateService.getArbitrageCycles());
+    }
+}
@@ -0,0 +1,242 @@
+package org.example.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.AppProperties;
+import org.example.exceptions.ServiceUnavailableException;
+import org.example.filter.ExceptionFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Асинхронный режим: поток Tomcat только запускает AsyncContext и сразу возвращается в пул,
+// а обработчик выполняется на виртуальном потоке. Семафор ограничивает число одновременно работающих
+// обработчиков, а с ним и очередь к пулу соединений: остальные ждут не дольше async.acquireTimeoutMs и получают 503.
+// Срок запроса (async.timeoutMs) отсчитывает свой таймер, а не контейнер: если onTimeout вернётся, не завершив
+// запрос, Tomcat сам ответит ошибкой и переиспользует request/response, пока обработчик ещё с ними работает.
+// Так ни один поток Tomcat не ждёт обработчик из-за таймаута.
+public final class AsyncDispatcher implements AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(AsyncDispatcher.class);
+
+    private static final int QUEUED = 0;
+    private static final int RUNNING = 1;
+    private static final int ABANDONED = 2;
+    // Срок вышел, пока обработчик работал: по окончании он сам отвечает 503
+    private static final int EXPIRED = 3;
+    private static final int DONE = 4;
+
+    @FunctionalInterface
+    public interface Handler {
+        void handle() throws ServletException, IOException;
+    }
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("request-", 0).factory());
+    private final ScheduledThreadPoolExecutor deadlines = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "async-deadlines");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+    private final long requestTimeoutMs;
+    private final long errorWaitMs;
+
+    public AsyncDispatcher(int maxConcurrent, long acquireTimeoutMs, long requestTimeoutMs) {
+        this(maxConcurrent, acquireTimeoutMs, requestTimeoutMs, 1_000);
+    }
+
+    public AsyncDispatcher(int maxConcurrent, long acquireTimeoutMs, long requestTimeoutMs, long errorWaitMs) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.requestTimeoutMs = requestTimeoutMs;
+        this.errorWaitMs = errorWaitMs;
+        this.deadlines.setRemoveOnCancelPolicy(true);
+    }
+
+    public static AsyncDispatcher fromProperties() {
+        return new AsyncDispatcher(
+                AppProperties.getInt("async.maxConcurrent", 64),
+                AppProperties.getLong("async.acquireTimeoutMs", 2_000),
+                AppProperties.getLong("async.timeoutMs", 30_000),
+                AppProperties.getLong("async.errorWaitMs", 1_000)
+        );
+    }
+
+    public void dispatch(HttpServletRequest request, HttpServletResponse response, Handler handler) {
+        AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(0);
+        AsyncRequest task = new AsyncRequest(asyncContext, request, response, handler);
+        asyncContext.addListener(task);
+        try {
+            task.deadline = deadlines.schedule(task::expire, requestTimeoutMs, TimeUnit.MILLISECONDS);
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Приложение останавливается
+            task.abandon(new ServiceUnavailableException("Server is shutting down"));
+        }
+    }
+
+    @Override
+    public void close() {
+        deadlines.shutdownNow();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(requestTimeoutMs, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Ответ пишет ровно одна сторона: либо обработчик, либо таймер срока, пока обработчик ещё в очереди.
+    // Запущенный обработчик не прерываем — после complete() контейнер переиспользует request/response.
+    private final class AsyncRequest implements Runnable, AsyncListener {
+        private final AsyncContext asyncContext;
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final Handler handler;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile ScheduledFuture<?> deadline;
+
+        private AsyncRequest(AsyncContext asyncContext, HttpServletRequest request,
+                             HttpServletResponse response, Handler handler) {
+            this.asyncContext = asyncContext;
+            this.request = request;
+            this.response = response;
+            this.handler = handler;
+        }
+
+        @Override
+        public void run() {
+            boolean acquired = false;
+            try {
+                acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!state.compareAndSet(QUEUED, RUNNING)) {
+                // Пока ждали семафор, ответ уже отдал слушатель таймаута
+                if (acquired) {
+                    permits.release();
+                }
+                return;
+            }
+
+            try {
+                if (!acquired) {
+                    throw new ServiceUnavailableException("Too many requests in flight, please retry");
+                }
+                handler.handle();
+            } catch (Exception e) {
+                writeException(e);
+            } finally {
+                if (acquired) {
+                    permits.release();
+                }
+                try {
+                    if (!state.compareAndSet(RUNNING, DONE) && !response.isCommitted()) {
+                        writeException(new ServiceUnavailableException("Request timed out"));
+                    }
+                } finally {
+                    cancelDeadline();
+                    asyncContext.complete();
+                    finished.countDown();
+                }
+            }
+        }
+
+        // Поток таймера: не начатый обработчик снимается с ответом 503, работающий только помечается
+        void expire() {
+            if (!abandon(new ServiceUnavailableException("Request timed out waiting for execution"))) {
+                state.compareAndSet(RUNNING, EXPIRED);
+            }
+        }
+
+        private void cancelDeadline() {
+            ScheduledFuture<?> scheduled = deadline;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        // Снимает с очереди ещё не начатый обработчик; false — обработчик уже работает
+        boolean abandon(Exception reason) {
+            if (!state.compareAndSet(QUEUED, ABANDONED)) {
+                return false;
+            }
+            cancelDeadline();
+            if (reason != null) {
+                writeException(reason);
+            }
+            asyncContext.complete();
+            return true;
+        }
+
+        // Таймаут контейнера выключен (setTimeout(0)), срок отсчитывает таймер deadlines
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        // Клиент отвалился: отвечать уже некому. После возврата отсюда контейнер сам завершает запрос, поэтому
+        // работающий обработчик ждём — но не дольше async.errorWaitMs: обычно он уже получил ошибку записи
+        // и заканчивает. Дольше поток Tomcat не держим, поздние обращения обработчика к ответу дадут ошибку
+        @Override
+        public void onError(AsyncEvent event) {
+            if (!abandon(null)) {
+                awaitHandler();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void awaitHandler() {
+            int current = state.get();
+            if (current != RUNNING && current != EXPIRED) {
+                return;
+            }
+            try {
+                if (!finished.await(errorWaitMs, TimeUnit.MILLISECONDS)) {
+                    logger.warn("Handler for {} still running {} ms after a connection error",
+                            request.getRequestURI(), errorWaitMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void writeException(Exception e) {
+            try {
+                if (!response.isCommitted()) {
+                    response.resetBuffer();
+                }
+                ExceptionFilter.writeException(request, response, e);
+            } catch (IOException | IllegalStateException writeError) {
+                logger.debug("Cannot write error response for {}: {}", request.getRequestURI(), writeError.getMessage());
+            }
+        }
+    }
+}
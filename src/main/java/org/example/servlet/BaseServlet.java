@@ -1,15 +1,105 @@
 package org.example.servlet;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.cache.ResponseCache;
+import org.example.config.AppProperties;
 import org.example.dto.ErrorResponseDto;
+import org.example.dto.PageDto;
+import org.example.exceptions.InvalidParameterException;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 public abstract class BaseServlet extends HttpServlet {
+    private static final boolean STREAMING_ENABLED = AppProperties.getBoolean("json.streaming.enabled", true);
+    private static final int DEFAULT_PAGE_LIMIT = AppProperties.getInt("pagination.defaultLimit", 100);
+    private static final int MAX_PAGE_LIMIT = AppProperties.getInt("pagination.maxLimit", 1000);
+    protected static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
     protected final ObjectMapper objectMapper = new ObjectMapper();
+    // Без flush после каждого элемента — буфер контейнера сам отдаёт ответ частями
+    protected final ObjectWriter streamWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    // При async.enabled обработчик уходит на виртуальный поток, а поток контейнера сразу освобождается
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        AsyncDispatcher dispatcher = (AsyncDispatcher) getServletContext().getAttribute("asyncDispatcher");
+        if (dispatcher == null || !request.isAsyncSupported() || request.isAsyncStarted()) {
+            super.service(request, response);
+            return;
+        }
+        dispatcher.dispatch(request, response, () -> super.service(request, response));
+    }
+
+    // ?at= принимает ISO-8601 (2024-05-01T12:00:00Z) или epoch millis; null, если параметра нет
+    protected Long parseAt(HttpServletRequest request) {
+        String at = request.getParameter("at");
+        if (at == null || at.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(at.trim());
+        } catch (NumberFormatException ignored) {
+            // не число — пробуем как дату
+        }
+        try {
+            return Instant.parse(at.trim()).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            throw new InvalidParameterException("Invalid 'at' parameter: expected ISO-8601 instant or epoch milliseconds");
+        }
+    }
+
+    // Постраничный режим включают limit, cursor или любой из фильтров; без них список отдаётся целиком, как раньше
+    protected boolean isPageRequest(HttpServletRequest request, String... filters) {
+        if (request.getParameter("limit") != null || request.getParameter("cursor") != null) {
+            return true;
+        }
+        for (String filter : filters) {
+            if (request.getParameter(filter) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected int parseLimit(HttpServletRequest request) {
+        String limit = request.getParameter("limit");
+        if (limit == null || limit.isBlank()) {
+            return DEFAULT_PAGE_LIMIT;
+        }
+        try {
+            int value = Integer.parseInt(limit.trim());
+            if (value >= 1 && value <= MAX_PAGE_LIMIT) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+            // то же сообщение, что и для значения вне диапазона
+        }
+        throw new InvalidParameterException("Invalid 'limit' parameter: expected an integer from 1 to " + MAX_PAGE_LIMIT);
+    }
+
+    // Тело — тот же JSON-массив, что и без пагинации; курсор следующей страницы уходит заголовком
+    protected void writePage(HttpServletResponse response, PageDto<?> page) throws IOException {
+        if (page.getNextCursor() != null) {
+            response.setHeader(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        writeJson(response, HttpServletResponse.SC_OK, page.getItems());
+    }
 
     protected void writeError(HttpServletResponse response, int status, String message) throws IOException {
         ErrorResponseDto error = new ErrorResponseDto(message);
@@ -21,4 +111,107 @@ public abstract class BaseServlet extends HttpServlet {
         response.setContentType("application/json;charset=UTF-8");
         objectMapper.writeValue(response.getWriter(), data);
     }
-}
\ No newline at end of file
+
+    // Пишет JSON-массив по одному элементу, не собирая весь список в памяти
+    protected <T> void writeJsonArray(HttpServletResponse response, int status, Consumer<Consumer<T>> source) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json;charset=UTF-8");
+        if (!STREAMING_ENABLED) {
+            List<T> items = new ArrayList<>();
+            source.accept(items::add);
+            objectMapper.writeValue(response.getWriter(), items);
+            return;
+        }
+
+        writeArray(response.getOutputStream(), source);
+    }
+
+    // Отдаёт тело из ResponseCache с ETag/Last-Modified; без кэша в контексте пишет как обычно
+    protected void writeCachedJson(HttpServletRequest request, HttpServletResponse response,
+                                   String key, Supplier<Object> data) throws IOException {
+        ResponseCache cache = responseCache();
+        if (cache == null) {
+            writeJson(response, HttpServletResponse.SC_OK, data.get());
+            return;
+        }
+        writeCached(request, response, cache.get(key, () -> objectMapper.writeValueAsBytes(data.get())));
+    }
+
+    protected <T> void writeCachedJsonArray(HttpServletRequest request, HttpServletResponse response,
+                                            String key, Consumer<Consumer<T>> source) throws IOException {
+        ResponseCache cache = responseCache();
+        if (cache == null) {
+            writeJsonArray(response, HttpServletResponse.SC_OK, source);
+            return;
+        }
+        writeCached(request, response, cache.get(key, () -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            writeArray(out, source);
+            return out.toByteArray();
+        }));
+    }
+
+    private ResponseCache responseCache() {
+        return (ResponseCache) getServletContext().getAttribute("responseCache");
+    }
+
+    private void writeCached(HttpServletRequest request, HttpServletResponse response,
+                             ResponseCache.Entry entry) throws IOException {
+        response.setHeader("ETag", entry.etag());
+        response.setDateHeader("Last-Modified", entry.lastModified());
+        // Браузер может хранить ответ, но обязан перепроверить его по ETag
+        response.setHeader("Cache-Control", "no-cache");
+
+        if (isNotModified(request, entry)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("application/json;charset=UTF-8");
+        response.setContentLength(entry.body().length);
+        response.getOutputStream().write(entry.body());
+    }
+
+    private boolean isNotModified(HttpServletRequest request, ResponseCache.Entry entry) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String candidate = tag.trim();
+                if (candidate.startsWith("W/")) {
+                    candidate = candidate.substring(2);
+                }
+                if (candidate.equals("*") || candidate.equals(entry.etag())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long ifModifiedSince;
+        try {
+            ifModifiedSince = request.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return ifModifiedSince != -1 && entry.lastModified() / 1000 <= ifModifiedSince / 1000;
+    }
+
+    private <T> void writeArray(OutputStream out, Consumer<Consumer<T>> source) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.writeStartArray();
+            try {
+                source.accept(item -> {
+                    try {
+                        streamWriter.writeValue(generator, item);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.example.servlet;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.cache.ResponseCache;
 import org.example.dto.CurrencyDto;
 import org.example.exceptions.InvalidParameterException;
 import org.example.service.CurrencyService;
@@ -11,7 +12,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 
-@WebServlet("/currencies")
+@WebServlet(value = "/currencies", asyncSupported = true)
 public class CurrenciesServlet extends BaseServlet {
     private CurrencyService currencyService;
     private static final Logger logger = LoggerFactory.getLogger(CurrenciesServlet.class);
@@ -23,8 +24,13 @@ public class CurrenciesServlet extends BaseServlet {
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        logger.info("GET request for all currencies");
-        writeJson(response, HttpServletResponse.SC_OK, currencyService.getAllCurrencies());
+        if (isPageRequest(request, "prefix")) {
+            writePage(response, currencyService.getCurrencyPage(
+                    request.getParameter("cursor"), request.getParameter("prefix"), parseLimit(request)));
+            return;
+        }
+        logger.debug("GET request for all currencies");
+        writeCachedJsonArray(request, response, ResponseCache.CURRENCIES, currencyService::forEachCurrency);
     }
 
     @Override
@@ -34,7 +40,7 @@ public class CurrenciesServlet extends BaseServlet {
         String code = request.getParameter("code");
         String sign = request.getParameter("sign");
 
-        logger.info("Attempting to create a new currency: code={}, name={}", code, name);
+        logger.debug("Attempting to create a new currency: code={}, name={}", code, name);
 
         if (code == null || name == null || sign == null ||
             code.isBlank() || name.isBlank() || sign.isBlank()) {
@@ -42,7 +48,7 @@ public class CurrenciesServlet extends BaseServlet {
         }
 
         CurrencyDto newCurrency = currencyService.addNewCurrency(code, name, sign);
-        logger.info("Currency successfully saved: ID={}", newCurrency.getId());
+        logger.debug("Currency successfully saved: ID={}", newCurrency.getId());
 
         writeJson(response, HttpServletResponse.SC_CREATED, newCurrency);
         logger.debug("Response sent to client");
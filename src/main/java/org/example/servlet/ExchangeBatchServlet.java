@@ -0,0 +1,125 @@
+package org.example.servlet;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.config.AppProperties;
+import org.example.dto.BatchExchangeItemDto;
+import org.example.dto.ExchangeRequestDto;
+import org.example.exceptions.ApplicationException;
+import org.example.exceptions.InvalidParameterException;
+import org.example.service.BatchExchange;
+import org.example.service.ExchangeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+@WebServlet(value = "/exchange/batch", asyncSupported = true)
+public class ExchangeBatchServlet extends BaseServlet {
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeBatchServlet.class);
+    private static final int MAX_ITEMS = AppProperties.getInt("exchange.batch.maxItems", 10_000);
+
+    private ExchangeService exchangeService;
+    private ObjectReader itemReader;
+
+    @Override
+    public void init() {
+        this.exchangeService = (ExchangeService) getServletContext().getAttribute("exchangeService");
+        this.itemReader = objectMapper.readerFor(ExchangeRequestDto.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(request.getInputStream())) {
+            if (firstToken(parser) != JsonToken.START_ARRAY) {
+                throw new InvalidParameterException("Request body must be a JSON array of {from, to, amount} items");
+            }
+
+            BatchExchange batch = exchangeService.startBatch();
+
+            response.setStatus(HttpServletResponse.SC_OK);
+            response.setContentType("application/json;charset=UTF-8");
+            int count;
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+                generator.writeStartArray();
+                count = writeItems(parser, generator, batch);
+                generator.writeEndArray();
+            }
+            logger.debug("Batch exchange processed: {} items", count);
+        }
+    }
+
+    private JsonToken firstToken(JsonParser parser) throws IOException {
+        try {
+            return parser.nextToken();
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private int writeItems(JsonParser parser, JsonGenerator generator, BatchExchange batch) throws IOException {
+        int index = 0;
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new InvalidParameterException("Unexpected end of JSON array");
+                }
+                if (index == MAX_ITEMS) {
+                    streamWriter.writeValue(generator, BatchExchangeItemDto.failure(index, 413,
+                            "Batch is limited to " + MAX_ITEMS + " items, the rest were skipped"));
+                    return index;
+                }
+
+                BatchExchangeItemDto item;
+                if (token == JsonToken.START_OBJECT) {
+                    item = convert(batch, index, itemReader.readValue(parser));
+                } else {
+                    parser.skipChildren();
+                    item = BatchExchangeItemDto.failure(index, 400, "Batch item must be a JSON object");
+                }
+                streamWriter.writeValue(generator, item);
+                index++;
+            }
+        } catch (JsonProcessingException e) {
+            // Ответ уже начат — ошибку разбора отдаём последним элементом массива
+            writeMalformed(generator, index, e.getOriginalMessage());
+        } catch (InvalidParameterException e) {
+            writeMalformed(generator, index, e.getMessage());
+        }
+        return index;
+    }
+
+    private void writeMalformed(JsonGenerator generator, int index, String message) throws IOException {
+        streamWriter.writeValue(generator, BatchExchangeItemDto.failure(index, 400, "Malformed batch body: " + message));
+    }
+
+    private BatchExchangeItemDto convert(BatchExchange batch, int index, ExchangeRequestDto item) {
+        try {
+            if (item.getFrom() == null || item.getTo() == null || item.getAmount() == null ||
+                item.getFrom().isBlank() || item.getTo().isBlank() || item.getAmount().isBlank()) {
+                throw new InvalidParameterException("Missing required fields: from, to, and amount are required");
+            }
+
+            BigDecimal amount;
+            try {
+                amount = new BigDecimal(item.getAmount().trim());
+            } catch (NumberFormatException e) {
+                throw new InvalidParameterException("Invalid amount format: must be a decimal number");
+            }
+
+            return BatchExchangeItemDto.success(index, batch.exchange(item.getFrom(), item.getTo(), amount));
+        } catch (ApplicationException e) {
+            return BatchExchangeItemDto.failure(index, e.getStatusCode(), e.getMessage());
+        }
+    }
+}
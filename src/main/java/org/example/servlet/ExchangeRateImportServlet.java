@@ -0,0 +1,52 @@
+package org.example.servlet;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.dto.ImportReportDto;
+import org.example.dto.RateImportLineDto;
+import org.example.service.ExchangeRateService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+@WebServlet(value = "/exchangeRates/import", asyncSupported = true)
+public class ExchangeRateImportServlet extends BaseServlet {
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateImportServlet.class);
+
+    private ExchangeRateService exchangeRateService;
+    private ObjectReader lineReader;
+
+    @Override
+    public void init() {
+        this.exchangeRateService = (ExchangeRateService) getServletContext().getAttribute("exchangeRateService");
+        this.lineReader = objectMapper.readerFor(RateImportLineDto.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String contentType = request.getContentType();
+        boolean ndjson = contentType != null && (contentType.contains("ndjson") || contentType.contains("jsonl"));
+        if (request.getCharacterEncoding() == null) {
+            request.setCharacterEncoding("UTF-8");
+        }
+        logger.info("Bulk exchange rate import started, format={}", ndjson ? "ndjson" : "csv");
+
+        ImportReportDto report = exchangeRateService.importExchangeRates(
+                new RateImportReader(request.getReader(), ndjson ? lineReader : null));
+
+        // Оборванная загрузка отвечает 500, но с отчётом: клиенту нужно знать, до какой строки всё записано
+        if (report.getAbortedReason() != null) {
+            logger.error("Bulk exchange rate import aborted: imported={}, lastCommittedLine={}, reason={}",
+                    report.getImported(), report.getLastCommittedLine(), report.getAbortedReason());
+            writeJson(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, report);
+            return;
+        }
+        logger.info("Bulk exchange rate import finished: imported={}, failed={}", report.getImported(), report.getFailed());
+        writeJson(response, HttpServletResponse.SC_OK, report);
+    }
+}
@@ -3,6 +3,7 @@ package org.example.servlet;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.cache.ResponseCache;
 import org.example.dto.ExchangeRateDto;
 import org.example.exceptions.InvalidParameterException;
 import org.example.service.ExchangeRateService;
@@ -12,7 +13,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.math.BigDecimal;
 
-@WebServlet("/exchangeRates")
+@WebServlet(value = "/exchangeRates", asyncSupported = true)
 public class ExchangeRateServlet extends BaseServlet {
     private ExchangeRateService exchangeRateService;
     private static final Logger logger = LoggerFactory.getLogger(ExchangeRateServlet.class);
@@ -24,8 +25,17 @@ public class ExchangeRateServlet extends BaseServlet {
 
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-        logger.info("GET request for all exchange rates");
-        writeJson(response, HttpServletResponse.SC_OK, exchangeRateService.getAllExchangeRates());
+        if (isPageRequest(request, "base", "target", "prefix")) {
+            writePage(response, exchangeRateService.getExchangeRatePage(
+                    request.getParameter("cursor"),
+                    request.getParameter("base"),
+                    request.getParameter("target"),
+                    request.getParameter("prefix"),
+                    parseLimit(request)));
+            return;
+        }
+        logger.debug("GET request for all exchange rates");
+        writeCachedJsonArray(request, response, ResponseCache.EXCHANGE_RATES, exchangeRateService::forEachExchangeRate);
 
     }
 
@@ -36,7 +46,7 @@ public class ExchangeRateServlet extends BaseServlet {
         String targetCurrencyCode = request.getParameter("targetCurrencyCode");
         String rateParam = request.getParameter("rate");
 
-        logger.info("Attempting to create a new exchange rate: {} to {}", baseCurrencyCode, targetCurrencyCode);
+        logger.debug("Attempting to create a new exchange rate: {} to {}", baseCurrencyCode, targetCurrencyCode);
 
 
         if (baseCurrencyCode == null || targetCurrencyCode == null || rateParam == null ||
@@ -53,7 +63,7 @@ public class ExchangeRateServlet extends BaseServlet {
 
 
         ExchangeRateDto newRate = exchangeRateService.addExchangeRate(baseCurrencyCode, targetCurrencyCode, rate);
-        logger.info("Exchange rate created successfully with ID: {}", newRate.getId());
+        logger.debug("Exchange rate created successfully with ID: {}", newRate.getId());
 
         writeJson(response, HttpServletResponse.SC_CREATED, newRate);
 
@@ -13,7 +13,7 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.math.BigDecimal;
 
-@WebServlet("/exchange")
+@WebServlet(value = "/exchange", asyncSupported = true)
 public class ExchangeServlet extends BaseServlet {
     private ExchangeService exchangeService;
     private static final Logger logger = LoggerFactory.getLogger(ExchangeServlet.class);
@@ -30,7 +30,9 @@ public class ExchangeServlet extends BaseServlet {
         String targetCode = request.getParameter("to");
         String amountParam = request.getParameter("amount");
 
-        logger.info("Exchange request: from={}, to={}, amount={}", baseCode, targetCode, amountParam);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Exchange request: from={}, to={}, amount={}", baseCode, targetCode, amountParam);
+        }
 
         try {
             if (baseCode == null || targetCode == null || amountParam == null ||
@@ -45,18 +47,23 @@ public class ExchangeServlet extends BaseServlet {
                 throw new InvalidParameterException("Invalid amount format: must be a decimal number");
             }
 
-            ExchangeResultDto dto = exchangeService.exchange(baseCode, targetCode, amount);
+            Long at = parseAt(request);
+            ExchangeResultDto dto = at == null
+                    ? exchangeService.exchange(baseCode, targetCode, amount)
+                    : exchangeService.exchange(baseCode, targetCode, amount, at);
 
-            logger.info("Exchange calculated: {} {} -> {} {} (Rate: {})",
-                    amount, baseCode, dto.getConvertedAmount(), targetCode, dto.getRate());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Exchange calculated: {} {} -> {} {} (Rate: {})",
+                        amount, baseCode, dto.getConvertedAmount(), targetCode, dto.getRate());
+            }
 
             writeJson(response, HttpServletResponse.SC_OK, dto);
 
         } catch (InvalidParameterException e) {
-            logger.warn("Exchange validation failed: {}", e.getMessage());
+            logger.debug("Exchange validation failed: {}", e.getMessage());
             writeError(response, e.getStatusCode(), e.getMessage());
         } catch (EntityNotFoundException e) {
-            logger.warn("Exchange rate not found for {} -> {}", baseCode, targetCode);
+            logger.debug("Exchange rate not found for {} -> {}", baseCode, targetCode);
             writeError(response, e.getStatusCode(), e.getMessage());
         } catch (Exception e) {
             logger.error("Critical error during currency exchange calculation", e);
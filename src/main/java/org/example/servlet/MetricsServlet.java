@@ -0,0 +1,19 @@
+package org.example.servlet;
+
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.metrics.MetricsRegistry;
+
+import java.io.IOException;
+
+@WebServlet(value = "/metrics", asyncSupported = true)
+public class MetricsServlet extends BaseServlet {
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/plain; version=0.0.4; charset=utf-8");
+        response.getWriter().write(MetricsRegistry.getInstance().scrape());
+    }
+}
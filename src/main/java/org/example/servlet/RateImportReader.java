@@ -0,0 +1,78 @@
+package org.example.servlet;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.example.dto.RateImportLineDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Читает тело загрузки построчно: CSV (base,target,rate) или NDJSON ({"baseCurrencyCode":..,"targetCurrencyCode":..,"rate":..}).
+// Пустые строки и заголовок CSV пропускаются, ошибки разбора возвращаются как строки с error.
+class RateImportReader implements Iterator<RateImportLineDto> {
+    private final BufferedReader reader;
+    private final ObjectReader ndjsonReader;
+    private int lineNumber;
+    private RateImportLineDto next;
+
+    RateImportReader(BufferedReader reader, ObjectReader ndjsonReader) {
+        this.reader = reader;
+        this.ndjsonReader = ndjsonReader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || isCsvHeader(line)) {
+                    continue;
+                }
+                next = ndjsonReader != null ? parseJson(line) : parseCsv(line);
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public RateImportLineDto next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        RateImportLineDto line = next;
+        next = null;
+        return line;
+    }
+
+    private boolean isCsvHeader(String line) {
+        return ndjsonReader == null && lineNumber == 1 && line.trim().toLowerCase().startsWith("base");
+    }
+
+    private RateImportLineDto parseCsv(String line) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            return RateImportLineDto.malformed(lineNumber, "Expected 3 comma-separated fields: base,target,rate");
+        }
+        return new RateImportLineDto(lineNumber, fields[0], fields[1], fields[2], null);
+    }
+
+    private RateImportLineDto parseJson(String line) {
+        try {
+            RateImportLineDto dto = ndjsonReader.readValue(line);
+            dto.setLineNumber(lineNumber);
+            return dto;
+        } catch (JsonProcessingException e) {
+            return RateImportLineDto.malformed(lineNumber, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.exceptions.InvalidParameterException;
+import org.example.exceptions.ServiceUnavailableException;
+import org.example.stream.RateStreamHub;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// SSE: GET /exchangeRates/stream[?pair=USDEUR,USDGBP][&base=USD]
+@WebServlet(value = "/exchangeRates/stream", asyncSupported = true)
+public class RateStreamServlet extends BaseServlet {
+    private static final Logger logger = LoggerFactory.getLogger(RateStreamServlet.class);
+    private RateStreamHub rateStreamHub;
+
+    @Override
+    public void init() {
+        this.rateStreamHub = (RateStreamHub) getServletContext().getAttribute("rateStreamHub");
+    }
+
+    // Соединение живёт на неблокирующей записи и не занимает поток, поэтому виртуальный поток ему не нужен
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+        if ("GET".equals(request.getMethod())) {
+            doGet(request, response);
+        } else {
+            super.service(request, response);
+        }
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (rateStreamHub == null) {
+            throw new ServiceUnavailableException("Rate stream is disabled");
+        }
+        if (!rateStreamHub.hasCapacity()) {
+            throw new ServiceUnavailableException("Too many stream subscribers, please retry later");
+        }
+        Set<String> pairs = codes(request.getParameter("pair"), 6, "pair");
+        Set<String> bases = codes(request.getParameter("base"), 3, "base");
+
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType("text/event-stream;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        // Прокси (nginx) не должен копить события в буфере
+        response.setHeader("X-Accel-Buffering", "no");
+
+        AsyncContext asyncContext = request.startAsync();
+        asyncContext.setTimeout(0);
+        boolean reconnect = request.getHeader("Last-Event-ID") != null;
+        if (rateStreamHub.subscribe(asyncContext, response.getOutputStream(), pairs, bases, reconnect) == null) {
+            // Место заняли между проверкой и подпиской: пустой поток, EventSource переподключится сам
+            asyncContext.complete();
+            return;
+        }
+        logger.debug("Rate stream subscriber connected: pairs={}, bases={}", pairs, bases);
+    }
+
+    private Set<String> codes(String param, int length, String name) {
+        if (param == null || param.isBlank()) {
+            return Set.of();
+        }
+        Set<String> codes = Arrays.stream(param.split(","))
+                .map(String::trim)
+                .filter(code -> !code.isEmpty())
+                .map(String::toUpperCase)
+                .collect(Collectors.toUnmodifiableSet());
+        for (String code : codes) {
+            if (code.length() != length) {
+                throw new InvalidParameterException("Invalid '" + name + "' filter value: " + code);
+            }
+        }
+        return codes;
+    }
+}
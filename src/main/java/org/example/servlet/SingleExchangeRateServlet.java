@@ -4,6 +4,7 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.example.cache.ResponseCache;
 import org.example.dto.ExchangeRateDto;
 import org.example.exceptions.InvalidParameterException;
 import org.example.service.ExchangeRateService;
@@ -14,7 +15,7 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 
-@WebServlet("/exchangeRate/*")
+@WebServlet(value = "/exchangeRate/*", asyncSupported = true)
 public class SingleExchangeRateServlet extends BaseServlet {
     private static final Logger logger = LoggerFactory.getLogger(SingleExchangeRateServlet.class);
     private ExchangeRateService exchangeRateService;
@@ -36,23 +37,36 @@ public class SingleExchangeRateServlet extends BaseServlet {
     @Override
     protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String pathInfo = request.getPathInfo();
-        logger.info("Fetching exchange rate for path: {}", pathInfo);
+        logger.debug("Fetching exchange rate for path: {}", pathInfo);
 
         String pair = validateAndGetPair(pathInfo);
         String base = pair.substring(0, 3);
         String target = pair.substring(3, 6);
 
-        ExchangeRateDto dto = exchangeRateService.getExchangeRateByCodes(base, target);
+        Long at = parseAt(request);
+        if (at != null) {
+            ExchangeRateDto dto = exchangeRateService.getExchangeRateByCodesAt(base, target, at);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Exchange rate found: {}/{} = {} at {}", base, target, dto.getRate(), at);
+            }
+            writeJson(response, HttpServletResponse.SC_OK, dto);
+            return;
+        }
 
-        logger.info("Exchange rate found: {}/{} = {}", base, target, dto.getRate());
-        writeJson(response, HttpServletResponse.SC_OK, dto);
+        writeCachedJson(request, response, ResponseCache.exchangeRateKey(base, target), () -> {
+            ExchangeRateDto dto = exchangeRateService.getExchangeRateByCodes(base, target);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Exchange rate found: {}/{} = {}", base, target, dto.getRate());
+            }
+            return dto;
+        });
     }
 
     protected void doPatch(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String pathInfo = request.getPathInfo();
         String pair = validateAndGetPair(pathInfo);
 
-        logger.info("Attempting to update exchange rate for: {}", pair);
+        logger.debug("Attempting to update exchange rate for: {}", pair);
 
         String body = new String(request.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
         String rateParam = extractRate(body);
@@ -61,7 +75,7 @@ public class SingleExchangeRateServlet extends BaseServlet {
         try {
             rate = new BigDecimal(rateParam);
         } catch (NumberFormatException e) {
-            logger.warn("Failed to parse rate from body: {}", rateParam);
+            logger.debug("Failed to parse rate from body: {}", rateParam);
             throw new InvalidParameterException("Invalid rate format");
         }
 
@@ -70,13 +84,13 @@ public class SingleExchangeRateServlet extends BaseServlet {
 
         ExchangeRateDto dto = exchangeRateService.updateExchangeRate(base, target, rate);
 
-        logger.info("Successfully updated rate for {} to {}", pair, rate);
+        logger.debug("Successfully updated rate for {} to {}", pair, rate);
         writeJson(response, HttpServletResponse.SC_OK, dto);
     }
 
     private String validateAndGetPair(String pathInfo) {
         if (pathInfo == null || pathInfo.length() != 7) {
-            logger.warn("Invalid path format provided: {}", pathInfo);
+            logger.debug("Invalid path format provided: {}", pathInfo);
             throw new InvalidParameterException("Invalid currency pair in path. Correct format is /ABCXYZ");
         }
         return pathInfo.substring(1).toUpperCase();
@@ -84,7 +98,7 @@ public class SingleExchangeRateServlet extends BaseServlet {
 
     private String extractRate(String body) {
         if (!body.contains("rate=")) {
-            logger.warn("Request body does not contain 'rate' parameter");
+            logger.debug("Request body does not contain 'rate' parameter");
             throw new InvalidParameterException("Missing parameter in form body: rate");
         }
         return body.split("=")[1].trim();
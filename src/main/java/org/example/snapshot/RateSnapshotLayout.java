@@ -0,0 +1,57 @@
+package org.example.snapshot;
+
+// Формат файла снимка курсов, все числа little-endian:
+//    0       int          MAGIC ("RBKS")
+//    4       int          FORMAT_VERSION
+//    8       long         версия снимка RateBook, из которого записан файл
+//   16       long         момент записи, epoch millis
+//   24       int          число валют N
+//   28       int          резерв, 0
+//   32       long[N]      коды валют по возрастанию, упакованные codeKey
+//   32 + 8N  double[N×N]  курсы: строка — базовая валюта, столбец — целевая, NaN — котировки нет
+// Опубликованный файл не меняется: следующая версия пишется рядом и заменяет его переименованием.
+public final class RateSnapshotLayout {
+    public static final int MAGIC = 0x534B4252;
+    public static final int FORMAT_VERSION = 1;
+    public static final int MAX_CODE_LENGTH = 8;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int FORMAT_VERSION_OFFSET = 4;
+    static final int BOOK_VERSION_OFFSET = 8;
+    static final int WRITTEN_AT_OFFSET = 16;
+    static final int CURRENCY_COUNT_OFFSET = 24;
+    static final int HEADER_SIZE = 32;
+
+    private RateSnapshotLayout() {
+    }
+
+    // Код как long: i-й символ — в байте 7 - i, остаток нулями, поэтому беззнаковый порядок ключей совпадает
+    // с порядком кодов. 0 — код не помещается: пустой, длиннее MAX_CODE_LENGTH или не ASCII
+    public static long codeKey(CharSequence code) {
+        int length = code.length();
+        if (length == 0 || length > MAX_CODE_LENGTH) {
+            return 0;
+        }
+        long key = 0;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            if (c == 0 || c > 0x7F) {
+                return 0;
+            }
+            key |= (long) c << (8 * (MAX_CODE_LENGTH - 1 - i));
+        }
+        return key;
+    }
+
+    static long ratesOffset(int currencies) {
+        return HEADER_SIZE + 8L * currencies;
+    }
+
+    static long fileSize(int currencies) {
+        return ratesOffset(currencies) + 8L * currencies * currencies;
+    }
+
+    static long rateOffset(int currencies, int baseIndex, int targetIndex) {
+        return ratesOffset(currencies) + 8L * ((long) baseIndex * currencies + targetIndex);
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+// Чтение файла снимка курсов (RateSnapshotWriter) для соседних процессов: файл отображается в память и не
+// разбирается, код валюты ищется двоичным поиском по индексу, курс — одно чтение из матрицы.
+// Поиск не выделяет память и может идти из нескольких потоков: чтения абсолютные, позиция буфера не меняется.
+// Новая версия файла подхватывается явным refresh(), например раз в несколько миллисекунд из своего потока.
+public final class RateSnapshotReader {
+
+    private record Mapping(MappedByteBuffer buffer, int currencies, Object fileKey, long modifiedMillis) {
+    }
+
+    private final Path path;
+    private volatile Mapping mapping;
+
+    private RateSnapshotReader(Path path, Mapping mapping) {
+        this.path = path;
+        this.mapping = mapping;
+    }
+
+    public static RateSnapshotReader open(Path path) throws IOException {
+        return new RateSnapshotReader(path, map(path, Files.readAttributes(path, BasicFileAttributes.class)));
+    }
+
+    // true, если файл заменён новой версией и отображение переключено на неё. Прежнее отображение остаётся
+    // корректным (переименование не трогает старый файл), пока на него есть ссылки
+    public boolean refresh() throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Mapping current = mapping;
+        if (Objects.equals(attributes.fileKey(), current.fileKey())
+                && attributes.lastModifiedTime().toMillis() == current.modifiedMillis()) {
+            return false;
+        }
+        mapping = map(path, attributes);
+        return true;
+    }
+
+    private static Mapping map(Path path, BasicFileAttributes attributes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < RateSnapshotLayout.HEADER_SIZE) {
+                throw new IOException("Rate snapshot " + path + " is truncated");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(RateSnapshotLayout.MAGIC_OFFSET) != RateSnapshotLayout.MAGIC) {
+                throw new IOException(path + " is not a rate snapshot");
+            }
+            int format = buffer.getInt(RateSnapshotLayout.FORMAT_VERSION_OFFSET);
+            if (format != RateSnapshotLayout.FORMAT_VERSION) {
+                throw new IOException("Unsupported rate snapshot format " + format + " in " + path);
+            }
+            int currencies = buffer.getInt(RateSnapshotLayout.CURRENCY_COUNT_OFFSET);
+            if (currencies < 0 || RateSnapshotLayout.fileSize(currencies) != size) {
+                throw new IOException("Rate snapshot " + path + " has " + size + " bytes, expected "
+                        + RateSnapshotLayout.fileSize(Math.max(currencies, 0)) + " for " + currencies + " currencies");
+            }
+            return new Mapping(buffer, currencies, attributes.fileKey(), attributes.lastModifiedTime().toMillis());
+        }
+    }
+
+    public long getVersion() {
+        return mapping.buffer().getLong(RateSnapshotLayout.BOOK_VERSION_OFFSET);
+    }
+
+    public long getWrittenAt() {
+        return mapping.buffer().getLong(RateSnapshotLayout.WRITTEN_AT_OFFSET);
+    }
+
+    public int getCurrencyCount() {
+        return mapping.currencies();
+    }
+
+    // Номер валюты в текущей версии файла или -1. Номера меняются от версии к версии
+    public int indexOf(CharSequence code) {
+        return indexOf(mapping, RateSnapshotLayout.codeKey(code));
+    }
+
+    // Котировка base→target в том виде, как она записана в сервисе, или NaN
+    public double rate(int baseIndex, int targetIndex) {
+        Mapping current = mapping;
+        return rate(current, baseIndex, targetIndex);
+    }
+
+    // Прямая котировка, иначе обратная к котировке target→base (как при конвертации), иначе NaN.
+    // Кросс-курсов через опорные валюты в файле нет — их по-прежнему считает GET /exchange
+    public double rate(CharSequence baseCode, CharSequence targetCode) {
+        Mapping current = mapping;
+        int base = indexOf(current, RateSnapshotLayout.codeKey(baseCode));
+        int target = indexOf(current, RateSnapshotLayout.codeKey(targetCode));
+        if (base < 0 || target < 0) {
+            return Double.NaN;
+        }
+        double direct = rate(current, base, target);
+        return Double.isNaN(direct) ? 1 / rate(current, target, base) : direct;
+    }
+
+    private static double rate(Mapping mapping, int baseIndex, int targetIndex) {
+        int currencies = mapping.currencies();
+        if (baseIndex < 0 || baseIndex >= currencies || targetIndex < 0 || targetIndex >= currencies) {
+            return Double.NaN;
+        }
+        return mapping.buffer().getDouble((int) RateSnapshotLayout.rateOffset(currencies, baseIndex, targetIndex));
+    }
+
+    private static int indexOf(Mapping mapping, long key) {
+        if (key == 0) {
+            return -1;
+        }
+        MappedByteBuffer buffer = mapping.buffer();
+        int low = 0;
+        int high = mapping.currencies() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Long.compareUnsigned(buffer.getLong(RateSnapshotLayout.HEADER_SIZE + 8 * mid), key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,195 @@
+package org.example.snapshot;
+
+import org.example.cache.RateBook;
+import org.example.cache.RateBookHolder;
+import org.example.cache.RateBookListener;
+import org.example.config.AppProperties;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Публикация снимка курсов файлом для соседних процессов (формат — RateSnapshotLayout, чтение — RateSnapshotReader).
+// Слушатель только отмечает, что снимок изменился; фоновый поток пишет текущий RateBook во временный файл рядом
+// и переименованием ставит его на место прежнего, так что читатель видит либо старую версию, либо новую целиком.
+// Частые изменения схлопываются: файл пишется не чаще раза в minIntervalMs и всегда из последнего снимка.
+public final class RateSnapshotWriter implements RateBookListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RateSnapshotWriter.class);
+
+    private final RateBookHolder rateBookHolder;
+    private final Path path;
+    private final Path tempPath;
+    private final long minIntervalMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    // Первая версия файла пишется сразу после старта
+    private boolean dirty = true;
+    private boolean running = true;
+    private final Thread writer;
+    private ByteBuffer buffer = ByteBuffer.allocate(0);
+
+    public RateSnapshotWriter(RateBookHolder rateBookHolder, Path path, long minIntervalMillis) {
+        this.rateBookHolder = rateBookHolder;
+        this.path = path;
+        // Свой временный файл у каждого процесса: несколько экземпляров сервиса могут публиковать один и тот же путь
+        this.tempPath = path.resolveSibling(path.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        this.minIntervalMillis = minIntervalMillis;
+        this.writer = new Thread(this::runWriter, "rate-snapshot-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public static RateSnapshotWriter fromProperties(RateBookHolder rateBookHolder) {
+        return new RateSnapshotWriter(
+                rateBookHolder,
+                Path.of(AppProperties.get("snapshot.file.path",
+                        System.getProperty("user.home") + File.separator + "currency-exchange.rates")),
+                AppProperties.getLong("snapshot.file.minIntervalMs", 50)
+        );
+    }
+
+    @Override
+    public void onCurrencySaved(Currency currency) {
+        markDirty();
+    }
+
+    @Override
+    public void onRateSaved(ExchangeRate rate) {
+        markDirty();
+    }
+
+    @Override
+    public void onReloaded() {
+        markDirty();
+    }
+
+    private void markDirty() {
+        lock.lock();
+        try {
+            dirty = true;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void runWriter() {
+        while (true) {
+            lock.lock();
+            try {
+                while (!dirty && running) {
+                    changed.awaitUninterruptibly();
+                }
+                if (!dirty) {
+                    return;
+                }
+                dirty = false;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                write(rateBookHolder.get());
+            } catch (IOException | RuntimeException e) {
+                // Прежняя версия файла остаётся на месте; следующее изменение попробует записать снова
+                logger.warn("Failed to publish rate snapshot to {}", path, e);
+            }
+            pause();
+        }
+    }
+
+    // Пауза ждёт на условии, а не в sleep: close() будит поток сигналом. Прерывание закрыло бы FileChannel
+    // посреди записи (ClosedByInterruptException)
+    private void pause() {
+        lock.lock();
+        try {
+            long remaining = TimeUnit.MILLISECONDS.toNanos(minIntervalMillis);
+            while (running && remaining > 0) {
+                remaining = changed.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            // Флаг не восстанавливается: с ним не прошла бы ни одна следующая запись. Пауза просто заканчивается раньше
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void write(RateBook book) throws IOException {
+        long[] keys = book.getCurrencies().stream()
+                .mapToLong(currency -> RateSnapshotLayout.codeKey(currency.getCode()))
+                .filter(key -> key != 0)
+                .sorted()
+                .distinct()
+                .toArray();
+        int currencies = keys.length;
+        long size = RateSnapshotLayout.fileSize(currencies);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Rate snapshot for " + currencies + " currencies does not fit in one mapping");
+        }
+
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate((int) size);
+        }
+        ByteBuffer out = buffer.clear().limit((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(RateSnapshotLayout.MAGIC_OFFSET, RateSnapshotLayout.MAGIC);
+        out.putInt(RateSnapshotLayout.FORMAT_VERSION_OFFSET, RateSnapshotLayout.FORMAT_VERSION);
+        out.putLong(RateSnapshotLayout.BOOK_VERSION_OFFSET, book.getVersion());
+        out.putLong(RateSnapshotLayout.WRITTEN_AT_OFFSET, System.currentTimeMillis());
+        out.putInt(RateSnapshotLayout.CURRENCY_COUNT_OFFSET, currencies);
+        out.putInt(RateSnapshotLayout.CURRENCY_COUNT_OFFSET + 4, 0);
+        for (int i = 0; i < currencies; i++) {
+            out.putLong(RateSnapshotLayout.HEADER_SIZE + 8 * i, keys[i]);
+        }
+        int ratesOffset = (int) RateSnapshotLayout.ratesOffset(currencies);
+        for (int offset = ratesOffset; offset < size; offset += 8) {
+            out.putDouble(offset, Double.NaN);
+        }
+        for (ExchangeRate rate : book.getRates()) {
+            // Ключи в keys отсортированы как беззнаковые, а у ASCII-кодов старший бит всегда 0 — обычный поиск подходит
+            int base = Arrays.binarySearch(keys, RateSnapshotLayout.codeKey(rate.getBaseCurrency().getCode()));
+            int target = Arrays.binarySearch(keys, RateSnapshotLayout.codeKey(rate.getTargetCurrency().getCode()));
+            if (base >= 0 && target >= 0 && rate.getRate() != null) {
+                out.putDouble((int) RateSnapshotLayout.rateOffset(currencies, base, target), rate.getRate().doubleValue());
+            }
+        }
+
+        try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+        Files.move(tempPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        logger.debug("Published rate snapshot v{} with {} currencies to {}", book.getVersion(), currencies, path);
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            running = false;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
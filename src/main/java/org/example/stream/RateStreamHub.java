@@ -0,0 +1,183 @@
+package org.example.stream;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import org.example.cache.RateBookListener;
+import org.example.config.AppProperties;
+import org.example.entity.ExchangeRate;
+import org.example.mapper.ExchangeRateMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Рассылка изменений курсов подписчикам SSE. Слушатель RateBookHolder только кладёт событие в очередь,
+// кадр сериализуется один раз в потоке рассылки, а запись в соединения неблокирующая (WriteListener):
+// ни поток, сохраняющий курс, ни поток рассылки никогда не ждут медленного клиента.
+public final class RateStreamHub implements RateBookListener, AutoCloseable {
+    private static final Logger logger = LoggerFactory.getLogger(RateStreamHub.class);
+
+    static final byte[] HEARTBEAT = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+    static final byte[] CONNECTED = ": connected\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final ExchangeRateMapper exchangeRateMapper;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final long heartbeatMs;
+
+    private final Set<RateStreamSubscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final BlockingQueue<ExchangeRate> changes;
+    // Очередь рассылки переполнилась или снимок перечитан целиком: всем нужен resync
+    private final AtomicBoolean resyncPending = new AtomicBoolean();
+    private final AtomicLong eventId = new AtomicLong();
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public RateStreamHub(ExchangeRateMapper exchangeRateMapper, int subscriberBuffer, int maxSubscribers,
+                         int pendingChanges, long heartbeatMs) {
+        this.exchangeRateMapper = exchangeRateMapper;
+        this.subscriberBuffer = subscriberBuffer;
+        this.maxSubscribers = maxSubscribers;
+        this.heartbeatMs = heartbeatMs;
+        this.changes = new ArrayBlockingQueue<>(pendingChanges);
+        this.dispatcher = new Thread(this::dispatchLoop, "rate-stream-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public static RateStreamHub fromProperties(ExchangeRateMapper exchangeRateMapper) {
+        return new RateStreamHub(
+                exchangeRateMapper,
+                AppProperties.getInt("stream.subscriberBuffer", 256),
+                AppProperties.getInt("stream.maxSubscribers", 10_000),
+                AppProperties.getInt("stream.pendingChanges", 10_000),
+                AppProperties.getLong("stream.heartbeatMs", 15_000)
+        );
+    }
+
+    // null, если подписчиков уже слишком много
+    public RateStreamSubscriber subscribe(AsyncContext asyncContext, ServletOutputStream out,
+                                          Set<String> pairs, Set<String> bases, boolean resync) {
+        if (!hasCapacity()) {
+            return null;
+        }
+        RateStreamSubscriber subscriber = new RateStreamSubscriber(
+                this, asyncContext, out, subscriberBuffer, pairs, bases);
+        asyncContext.addListener(subscriber);
+        // До setWriteListener поток ответа блокирующий и isReady() недоступен
+        out.setWriteListener(subscriber);
+        subscribers.add(subscriber);
+        subscriber.enqueue(CONNECTED);
+        if (resync) {
+            // Истории событий не храним: переподключившемуся клиенту проще перечитать курсы целиком
+            subscriber.enqueue(resyncFrame());
+        }
+        return subscriber;
+    }
+
+    public boolean hasCapacity() {
+        return running && subscribers.size() < maxSubscribers;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    void unsubscribe(RateStreamSubscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    byte[] resyncFrame() {
+        return frame("resync", "{}");
+    }
+
+    // Только закоммиченные курсы: значение, принятое очередью обновлений, ещё может откатиться при сбое записи
+    @Override
+    public void onRateCommitted(ExchangeRate rate) {
+        if (!changes.offer(rate)) {
+            resyncPending.set(true);
+        }
+    }
+
+    @Override
+    public void onReloaded() {
+        // Массовая загрузка, сбой записи или чужие изменения сверх coherence.maxBatch: точечных событий не будет,
+        // клиенты перечитывают всё
+        changes.clear();
+        resyncPending.set(true);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        dispatcher.interrupt();
+        for (RateStreamSubscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        subscribers.clear();
+    }
+
+    private void dispatchLoop() {
+        long nextHeartbeat = System.currentTimeMillis() + heartbeatMs;
+        while (running) {
+            try {
+                ExchangeRate rate = changes.poll(Math.max(1, nextHeartbeat - System.currentTimeMillis()),
+                        TimeUnit.MILLISECONDS);
+                if (resyncPending.getAndSet(false)) {
+                    changes.clear();
+                    broadcast(resyncFrame());
+                } else if (rate != null) {
+                    publish(rate);
+                }
+                if (System.currentTimeMillis() >= nextHeartbeat) {
+                    // Заодно выявляет оборванные соединения: запись в них завершится ошибкой
+                    broadcast(HEARTBEAT);
+                    nextHeartbeat = System.currentTimeMillis() + heartbeatMs;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Rate stream dispatch failed", e);
+            }
+        }
+    }
+
+    private void publish(ExchangeRate rate) {
+        String base = rate.getBaseCurrency().getCode();
+        String target = rate.getTargetCurrency().getCode();
+        byte[] frame;
+        try {
+            frame = frame("rate", objectMapper.writeValueAsString(exchangeRateMapper.toDto(rate)));
+        } catch (JsonProcessingException e) {
+            logger.error("Cannot serialize rate {}{}", base, target, e);
+            return;
+        }
+        for (RateStreamSubscriber subscriber : subscribers) {
+            if (subscriber.accepts(base, target)) {
+                subscriber.enqueue(frame);
+            }
+        }
+    }
+
+    private void broadcast(byte[] frame) {
+        for (RateStreamSubscriber subscriber : subscribers) {
+            subscriber.enqueue(frame);
+        }
+    }
+
+    private byte[] frame(String event, String data) {
+        return ("id: " + eventId.incrementAndGet() + "\nevent: " + event + "\ndata: " + data + "\n\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+}
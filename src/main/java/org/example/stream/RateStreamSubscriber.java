@@ -0,0 +1,132 @@
+package org.example.stream;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Одно SSE-соединение. Кадры копятся в ограниченной очереди и уходят в сокет, пока он готов (isReady);
+// если сокет занят, дописывает контейнер в onWritePossible. Переполнение очереди означает медленного
+// клиента: недоставленное выбрасывается, а вместо него отправляется один resync.
+public final class RateStreamSubscriber implements WriteListener, AsyncListener {
+    private final RateStreamHub hub;
+    private final AsyncContext asyncContext;
+    private final ServletOutputStream out;
+    private final ArrayBlockingQueue<byte[]> queue;
+    private final Set<String> pairs;
+    private final Set<String> bases;
+    // Запись в один поток ответа не должна идти из двух потоков сразу
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean awaitingWritable;
+    private volatile boolean closed;
+
+    RateStreamSubscriber(RateStreamHub hub, AsyncContext asyncContext, ServletOutputStream out,
+                         int capacity, Set<String> pairs, Set<String> bases) {
+        this.hub = hub;
+        this.asyncContext = asyncContext;
+        this.out = out;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.pairs = pairs;
+        this.bases = bases;
+    }
+
+    boolean accepts(String baseCode, String targetCode) {
+        if (pairs.isEmpty() && bases.isEmpty()) {
+            return true;
+        }
+        return bases.contains(baseCode) || pairs.contains(baseCode + targetCode);
+    }
+
+    void enqueue(byte[] frame) {
+        if (closed) {
+            return;
+        }
+        if (!queue.offer(frame)) {
+            queue.clear();
+            queue.offer(hub.resyncFrame());
+        }
+        drain();
+    }
+
+    @Override
+    public void onWritePossible() {
+        awaitingWritable = false;
+        drain();
+    }
+
+    // Пишет, пока сокет принимает данные. Внешний цикл подхватывает кадр, добавленный, пока замок держал
+    // другой поток, и вызов onWritePossible, пришедший раньше, чем мы отпустили замок.
+    private void drain() {
+        while (!closed && !awaitingWritable && !queue.isEmpty() && writeLock.tryLock()) {
+            try {
+                byte[] frame;
+                while (isReady() && (frame = queue.poll()) != null) {
+                    out.write(frame);
+                }
+                if (!awaitingWritable) {
+                    out.flush();
+                    isReady();
+                }
+            } catch (IOException | IllegalStateException e) {
+                close();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    // Флаг ставится до isReady(): иначе onWritePossible может прийти раньше и его сброс потеряется
+    private boolean isReady() {
+        awaitingWritable = true;
+        if (!out.isReady()) {
+            // Контейнер вызовет onWritePossible, когда сокет освободится
+            return false;
+        }
+        awaitingWritable = false;
+        return true;
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        close();
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        hub.unsubscribe(this);
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException ignored) {
+            // контейнер уже завершил запрос
+        }
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {
+        closed = true;
+        hub.unsubscribe(this);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onError(AsyncEvent event) {
+        close();
+    }
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {
+    }
+}
@@ -2,37 +2,100 @@ package org.example.util;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import org.example.config.AppProperties;
+import org.example.metrics.HikariMetrics;
+import org.example.metrics.MetricsRegistry;
 
 import java.io.File;
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.Properties;
 
+// SQLite допускает одного писателя, поэтому чтение и запись разведены:
+// пул только для чтения и ровно одно соединение для записи — остальные писатели ждут его в очереди пула,
+// а не ловят SQLITE_BUSY. PRAGMA и размеры пулов берутся из application.properties (db.*).
 public final class ConnectionManager {
-    private static final HikariDataSource ds;
+    public static final String READ_POOL = "sqlite-reader";
+    public static final String WRITE_POOL = "sqlite-writer";
+
+    // Ключи, которые sqlite-jdbc понимает как PRAGMA при открытии соединения
+    private static final String PRAGMA_PREFIX = "db.pragma.";
+    private static final String OPEN_MODE_READ_ONLY = "1";
+
+    private static final HikariDataSource writeDs;
+    private static final HikariDataSource readDs;
+    private static final String url;
+    private static final Map<String, String> pragmas;
 
     private ConnectionManager() {
     }
 
     static {
         try {
-            String dbPath = System.getProperty("user.home") + File.separator + "currency-exchange.db";
-            String url = "jdbc:sqlite:" + dbPath;
+            String dbPath = AppProperties.get("db.path",
+                    System.getProperty("user.home") + File.separator + "currency-exchange.db");
+            url = "jdbc:sqlite:" + dbPath;
 
             DatabaseInitializer.initialize(dbPath, url);
 
-            HikariConfig config = new HikariConfig();
-            config.setJdbcUrl(url);
-            config.setDriverClassName("org.sqlite.JDBC");
-            config.setMaximumPoolSize(10);
-            config.addDataSourceProperty("journal_mode", "WAL");
+            pragmas = AppProperties.getByPrefix(PRAGMA_PREFIX);
+
+            // Писатель создаётся первым: он переводит файл в WAL до того, как откроются читатели
+            HikariConfig writeConfig = baseConfig(url, WRITE_POOL);
+            writeConfig.setMaximumPoolSize(1);
+            writeConfig.setMinimumIdle(1);
+            writeConfig.setConnectionTimeout(AppProperties.getLong("db.writer.connectionTimeoutMs", 30_000));
+            pragmas.forEach(writeConfig::addDataSourceProperty);
+            writeDs = new HikariDataSource(writeConfig);
 
-            ds = new HikariDataSource(config);
+            HikariConfig readConfig = baseConfig(url, READ_POOL);
+            readConfig.setMaximumPoolSize(AppProperties.getInt("db.readPool.size", 4));
+            readConfig.setConnectionTimeout(AppProperties.getLong("db.readPool.connectionTimeoutMs", 30_000));
+            pragmas.forEach((name, value) -> {
+                // Режим журнала хранится в файле, с read-only соединения его не меняют
+                if (!name.equals("journal_mode")) {
+                    readConfig.addDataSourceProperty(name, value);
+                }
+            });
+            readConfig.addDataSourceProperty("open_mode", OPEN_MODE_READ_ONLY);
+            // Hikari выставляет флаг readOnly каждому соединению, а sqlite-jdbc не даёт менять его после открытия
+            readConfig.setReadOnly(true);
+            readDs = new HikariDataSource(readConfig);
         } catch (Exception e) {
             throw new ExceptionInInitializerError("Failed to initialize ConnectionManager: " + e.getMessage());
         }
     }
 
-    public static Connection getConnection() throws SQLException {
-        return ds.getConnection();
+    private static HikariConfig baseConfig(String url, String poolName) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(url);
+        config.setDriverClassName("org.sqlite.JDBC");
+        config.setPoolName(poolName);
+        config.setMetricsTrackerFactory(new HikariMetrics(MetricsRegistry.getInstance()));
+        return config;
+    }
+
+    public static Connection getReadConnection() throws SQLException {
+        return readDs.getConnection();
+    }
+
+    // Отдельное read-only соединение вне пула. PRAGMA data_version сравнивают между вызовами на одном и том же
+    // соединении, поэтому ChangeLogDao держит его у себя, а не берёт каждый раз новое из пула читателей
+    public static Connection openWatchConnection() throws SQLException {
+        Properties properties = new Properties();
+        pragmas.forEach((name, value) -> {
+            if (!name.equals("journal_mode")) {
+                properties.setProperty(name, value);
+            }
+        });
+        properties.setProperty("open_mode", OPEN_MODE_READ_ONLY);
+        return DriverManager.getConnection(url, properties);
+    }
+
+    // Единственное соединение на запись; следующий писатель ждёт, пока текущий его не вернёт
+    public static Connection getWriteConnection() throws SQLException {
+        return writeDs.getConnection();
     }
-}
\ No newline at end of file
+}
@@ -18,31 +18,40 @@ class DatabaseInitializer {
 
     static void initialize(String dbPath, String url) throws ClassNotFoundException {
         File dbFile = new File(dbPath);
-        if (!dbFile.exists()) {
-            Class.forName("org.sqlite.JDBC");
+        boolean isNew = !dbFile.exists();
+        Class.forName("org.sqlite.JDBC");
+        if (isNew) {
             logger.info("Initializing new database at: {}", dbPath);
-            try (Connection conn = DriverManager.getConnection(url)) {
-                conn.setAutoCommit(false);
+        } else {
+            logger.debug("Database file already exists. Applying schema migrations only.");
+        }
 
-                runScript(conn, "database/schema.sql");
+        try (Connection conn = DriverManager.getConnection(url)) {
+            conn.setAutoCommit(false);
+
+            // schema.sql идемпотентен и догоняет старые файлы БД до текущей схемы
+            runScript(conn, "database/schema.sql");
+            if (isNew) {
                 runScript(conn, "database/data.sql");
+            }
+            runScript(conn, "database/migration.sql");
 
-                conn.commit();
-                logger.info("Database initialized successfully.");
-            } catch (Exception e) {
-                logger.error("Database initialization failed. Deleting corrupted file.", e);
-                if (dbFile.exists()) {
-                    boolean deleted = dbFile.delete();
-                    if (deleted) {
-                        logger.info("Corrupted database file was successfully deleted.");
-                    } else {
-                        logger.warn("Failed to delete corrupted database file: {}. Check file permissions or locks.", dbPath);
-                    }
+            conn.commit();
+            logger.info("Database initialized successfully.");
+        } catch (Exception e) {
+            if (!isNew) {
+                throw new RuntimeException("Critical error during DB migration", e);
+            }
+            logger.error("Database initialization failed. Deleting corrupted file.", e);
+            if (dbFile.exists()) {
+                boolean deleted = dbFile.delete();
+                if (deleted) {
+                    logger.info("Corrupted database file was successfully deleted.");
+                } else {
+                    logger.warn("Failed to delete corrupted database file: {}. Check file permissions or locks.", dbPath);
                 }
-                throw new RuntimeException("Critical error during DB initialization", e);
             }
-        } else {
-            logger.debug("Database file already exists. Skipping initialization.");
+            throw new RuntimeException("Critical error during DB initialization", e);
         }
     }
 
@@ -53,15 +62,9 @@ class DatabaseInitializer {
             }
 
             String content = new String(is.readAllBytes(), StandardCharsets.UTF_8);
-            String cleanSql = content.replaceAll("--.*", "");
-            String[] queries = cleanSql.split(";");
-
-            for (String query : queries) {
-                String trimmed = query.trim();
-                if (!trimmed.isEmpty()) {
-                    try (Statement stmt = conn.createStatement()) {
-                        stmt.execute(trimmed);
-                    }
+            for (String query : SqlScript.split(content)) {
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.execute(query);
                 }
             }
         }
@@ -0,0 +1,67 @@
+package org.example.util;
+
+import java.math.BigDecimal;
+
+// Десятичное число как long-мантисса и масштаб: value = unscaled × 10^-scale, ровно как у BigDecimal.
+// Арифметика точная или с округлением HALF_UP; при переполнении long бросается ArithmeticException,
+// и вызывающий пересчитывает в BigDecimal.
+public record FixedPoint(long unscaled, int scale) {
+    private static final long[] POW10 = new long[19];
+
+    static {
+        POW10[0] = 1;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = POW10[i - 1] * 10;
+        }
+    }
+
+    // null, если мантисса не помещается в long
+    public static FixedPoint of(BigDecimal value) {
+        return fits(value) ? new FixedPoint(unscaledOf(value), value.scale()) : null;
+    }
+
+    public static boolean fits(BigDecimal value) {
+        return value.precision() <= 18;
+    }
+
+    // Только для чисел, прошедших fits(); при нулевом масштабе обходится без BigInteger
+    public static long unscaledOf(BigDecimal value) {
+        return value.scale() == 0 ? value.longValue() : value.unscaledValue().longValue();
+    }
+
+    public static long pow10(int exponent) {
+        if (exponent < 0 || exponent >= POW10.length) {
+            throw new ArithmeticException("10^" + exponent + " does not fit in long");
+        }
+        return POW10[exponent];
+    }
+
+    // Мантисса того же значения в масштабе newScale, как BigDecimal.setScale(newScale, HALF_UP)
+    public static long rescale(long unscaled, int scale, int newScale) {
+        if (newScale >= scale) {
+            return Math.multiplyExact(unscaled, pow10(newScale - scale));
+        }
+        return divideHalfUp(unscaled, pow10(scale - newScale));
+    }
+
+    // Частное с округлением HALF_UP: половина округляется от нуля
+    public static long divideHalfUp(long dividend, long divisor) {
+        if (divisor == -1) {
+            return Math.negateExact(dividend);
+        }
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder == 0) {
+            return quotient;
+        }
+        long absRemainder = Math.absExact(remainder);
+        if (absRemainder >= Math.absExact(divisor) - absRemainder) {
+            return (dividend < 0) == (divisor < 0) ? quotient + 1 : quotient - 1;
+        }
+        return quotient;
+    }
+
+    public BigDecimal toBigDecimal(int newScale) {
+        return BigDecimal.valueOf(rescale(unscaled, scale, newScale), newScale);
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.util;
+
+import org.example.exceptions.InvalidParameterException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+// Курсор страницы для клиента непрозрачен: внутри ключ последней отданной строки (код валюты или пары)
+public final class PageCursor {
+    private static final Pattern KEY = Pattern.compile("[A-Z]{3}|[A-Z]{6}");
+
+    private PageCursor() {
+    }
+
+    public static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // null, если курсора нет (первая страница)
+    public static String decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String key;
+        try {
+            key = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.US_ASCII);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidParameterException("Invalid 'cursor' parameter");
+        }
+        if (!KEY.matcher(key).matches()) {
+            throw new InvalidParameterException("Invalid 'cursor' parameter");
+        }
+        return key;
+    }
+}
@@ -0,0 +1,69 @@
+package org.example.util;
+
+import org.example.exceptions.ServiceUnavailableException;
+import org.example.metrics.MetricsRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Схлопывание одновременных загрузок одного ключа: первый вызвавший грузит сам, в своём потоке,
+// остальные ждут его результат не дольше timeoutMs. Ошибка загрузки достаётся каждому ждущему.
+// Результат не кэшируется — следующий вызов после завершения загрузки снова идёт в источник.
+public final class SingleFlight<K, V> {
+    private final String name;
+    private final long timeoutMs;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    public SingleFlight(String name, long timeoutMs) {
+        this.name = name;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            metrics.recordSingleFlight(name, "follower");
+            return await(key, existing);
+        }
+
+        metrics.recordSingleFlight(name, "leader");
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Убираем до следующей загрузки: ждущие уже держат ссылку на завершённый flight
+            inFlight.remove(key, flight);
+        }
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(K key, CompletableFuture<V> flight) {
+        try {
+            return flight.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ServiceUnavailableException("Timed out waiting for " + name + " " + key + " to load");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Interrupted while waiting for " + name + " " + key + " to load");
+        } catch (ExecutionException e) {
+            // Загрузчик бросает только unchecked — пробрасываем то же исключение, чтобы ответ совпал с ответом ведущего
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw (Error) e.getCause();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+// Разбор SQL-скрипта на отдельные выражения. Точка с запятой внутри тела триггера (BEGIN ... END)
+// выражение не завершает. Комментарии "--" вырезаются до конца строки. Внутри строковых литералов и имён
+// в кавычках ('...', "...", кавычка удваивается) ни "--", ни ";" ничего не значат.
+public final class SqlScript {
+    private static final Pattern TRIGGER_START = Pattern.compile("(?is)^CREATE\\s+(TEMP\\s+|TEMPORARY\\s+)?TRIGGER\\b.*");
+    private static final Pattern TRIGGER_END = Pattern.compile("(?is).*\\bEND$");
+
+    private SqlScript() {
+    }
+
+    public static List<String> split(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        // Открытая кавычка или 0 вне литерала. Удвоенная кавычка — это закрытие и сразу открытие
+        char quote = 0;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+                current.append(c);
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                current.append(c);
+            } else if (c == '-' && script.startsWith("-", i + 1)) {
+                // Перевод строки остаётся разделителем
+                int lineEnd = script.indexOf('\n', i);
+                i = (lineEnd < 0 ? script.length() : lineEnd) - 1;
+            } else if (c == ';') {
+                String statement = current.toString().trim();
+                if (TRIGGER_START.matcher(statement).matches() && !TRIGGER_END.matcher(statement).matches()) {
+                    current.append(';');
+                } else {
+                    if (!statement.isEmpty()) {
+                        statements.add(statement);
+                    }
+                    current.setLength(0);
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        String tail = current.toString().trim();
+        if (!tail.isEmpty()) {
+            statements.add(tail);
+        }
+        return statements;
+    }
+}
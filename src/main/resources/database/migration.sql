@@ -0,0 +1,17 @@
+-- Выполняется при каждом старте, поэтому все запросы идемпотентны
+
+-- Курсы без истории (записанные до её появления) считаем действующими с начала эпохи
+INSERT OR IGNORE INTO ExchangeRateHistory (ExchangeRateId, ValidFrom, Rate)
+SELECT er.ID, 0, er.Rate
+FROM ExchangeRates er
+WHERE NOT EXISTS (SELECT 1 FROM ExchangeRateHistory h WHERE h.ExchangeRateId = er.ID);
+
+-- Файлы БД, созданные до появления ExchangeRatePairs: триггеры не видели уже существующих курсов
+INSERT OR IGNORE INTO ExchangeRatePairs
+SELECT b.Code || t.Code, er.ID,
+       b.ID, b.Code, b.FullName, b.Sign,
+       t.ID, t.Code, t.FullName, t.Sign,
+       er.Rate
+FROM ExchangeRates er
+JOIN Currencies b ON b.ID = er.BaseCurrencyId
+JOIN Currencies t ON t.ID = er.TargetCurrencyId;
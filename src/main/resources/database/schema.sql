@@ -20,3 +20,117 @@ CREATE TABLE IF NOT EXISTS ExchangeRates
 );
 
 CREATE UNIQUE INDEX IF NOT EXISTS idx_exchange_pair ON ExchangeRates (BaseCurrencyId, TargetCurrencyId);
+
+-- История курсов: только дописывается. Ключ (пара, момент) кластерный, поэтому
+-- поиск курса на момент времени — один спуск по B-дереву, а новые записи пары ложатся в конец её диапазона.
+-- ValidFrom строго растёт в пределах пары: запись в ту же миллисекунду или при отставших часах получает
+-- момент на 1 мс позже предыдущего (ExchangeRateDaoImpl), поэтому строки истории не заменяются
+CREATE TABLE IF NOT EXISTS ExchangeRateHistory
+(
+    ExchangeRateId INTEGER        NOT NULL,
+    ValidFrom      INTEGER        NOT NULL, -- epoch millis
+    Rate           DECIMAL(10, 6) NOT NULL,
+    PRIMARY KEY (ExchangeRateId, ValidFrom),
+    FOREIGN KEY (ExchangeRateId) REFERENCES ExchangeRates (ID)
+) WITHOUT ROWID;
+
+-- Денормализованные пары для чтения без JOIN: коды, названия, знаки и курс в одной строке.
+-- Ключ — код пары (USDEUR), таблица WITHOUT ROWID сама является индексом по нему, поэтому
+-- поиск пары — один спуск по B-дереву без обращения к ExchangeRates и Currencies.
+-- Поддерживается только триггерами ниже; приложение в неё не пишет.
+CREATE TABLE IF NOT EXISTS ExchangeRatePairs
+(
+    PairKey          VARCHAR(6)     NOT NULL PRIMARY KEY,
+    ExchangeRateId   INTEGER        NOT NULL,
+    BaseCurrencyId   INTEGER        NOT NULL,
+    BaseCode         VARCHAR(3)     NOT NULL,
+    BaseName         VARCHAR(100)   NOT NULL,
+    BaseSign         VARCHAR(5),
+    TargetCurrencyId INTEGER        NOT NULL,
+    TargetCode       VARCHAR(3)     NOT NULL,
+    TargetName       VARCHAR(100)   NOT NULL,
+    TargetSign       VARCHAR(5),
+    Rate             DECIMAL(10, 6) NOT NULL
+) WITHOUT ROWID;
+
+-- Фильтр по валюте назначения с постраничным обходом в порядке ключа пары
+CREATE INDEX IF NOT EXISTS idx_exchange_pairs_target ON ExchangeRatePairs (TargetCode, PairKey);
+
+CREATE TRIGGER IF NOT EXISTS trg_exchange_rates_insert
+    AFTER INSERT ON ExchangeRates
+BEGIN
+    INSERT OR REPLACE INTO ExchangeRatePairs
+    SELECT b.Code || t.Code, NEW.ID,
+           b.ID, b.Code, b.FullName, b.Sign,
+           t.ID, t.Code, t.FullName, t.Sign,
+           NEW.Rate
+    FROM Currencies b, Currencies t
+    WHERE b.ID = NEW.BaseCurrencyId AND t.ID = NEW.TargetCurrencyId;
+END;
+
+-- Обычное обновление меняет только курс: правим одну строку по ключу
+CREATE TRIGGER IF NOT EXISTS trg_exchange_rates_update_rate
+    AFTER UPDATE OF Rate ON ExchangeRates
+    WHEN OLD.BaseCurrencyId = NEW.BaseCurrencyId AND OLD.TargetCurrencyId = NEW.TargetCurrencyId
+BEGIN
+    UPDATE ExchangeRatePairs
+    SET Rate = NEW.Rate
+    WHERE PairKey = (SELECT Code FROM Currencies WHERE ID = NEW.BaseCurrencyId)
+                 || (SELECT Code FROM Currencies WHERE ID = NEW.TargetCurrencyId);
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_exchange_rates_update_pair
+    AFTER UPDATE OF BaseCurrencyId, TargetCurrencyId ON ExchangeRates
+    WHEN OLD.BaseCurrencyId <> NEW.BaseCurrencyId OR OLD.TargetCurrencyId <> NEW.TargetCurrencyId
+BEGIN
+    DELETE FROM ExchangeRatePairs
+    WHERE PairKey = (SELECT Code FROM Currencies WHERE ID = OLD.BaseCurrencyId)
+                 || (SELECT Code FROM Currencies WHERE ID = OLD.TargetCurrencyId);
+    INSERT OR REPLACE INTO ExchangeRatePairs
+    SELECT b.Code || t.Code, NEW.ID,
+           b.ID, b.Code, b.FullName, b.Sign,
+           t.ID, t.Code, t.FullName, t.Sign,
+           NEW.Rate
+    FROM Currencies b, Currencies t
+    WHERE b.ID = NEW.BaseCurrencyId AND t.ID = NEW.TargetCurrencyId;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_exchange_rates_delete
+    AFTER DELETE ON ExchangeRates
+BEGIN
+    DELETE FROM ExchangeRatePairs WHERE ExchangeRateId = OLD.ID;
+END;
+
+-- Переименование валюты меняет ключи всех её пар: пересобираем их целиком (редкая операция)
+CREATE TRIGGER IF NOT EXISTS trg_currencies_update
+    AFTER UPDATE OF Code, FullName, Sign ON Currencies
+BEGIN
+    DELETE FROM ExchangeRatePairs WHERE BaseCurrencyId = NEW.ID OR TargetCurrencyId = NEW.ID;
+    INSERT OR REPLACE INTO ExchangeRatePairs
+    SELECT b.Code || t.Code, er.ID,
+           b.ID, b.Code, b.FullName, b.Sign,
+           t.ID, t.Code, t.FullName, t.Sign,
+           er.Rate
+    FROM ExchangeRates er
+    JOIN Currencies b ON b.ID = er.BaseCurrencyId
+    JOIN Currencies t ON t.ID = er.TargetCurrencyId
+    WHERE er.BaseCurrencyId = NEW.ID OR er.TargetCurrencyId = NEW.ID;
+END;
+
+CREATE TRIGGER IF NOT EXISTS trg_currencies_delete
+    AFTER DELETE ON Currencies
+BEGIN
+    DELETE FROM ExchangeRatePairs WHERE BaseCurrencyId = OLD.ID OR TargetCurrencyId = OLD.ID;
+END;
+
+-- Журнал изменений для других процессов на том же файле БД: DAO дописывают строку в транзакции самой записи,
+-- процессы читают журнал после своего последнего Seq и перечитывают только изменённые валюты и пары.
+-- AUTOINCREMENT не переиспользует номера, а запись в SQLite одна за раз, поэтому Seq идут подряд в порядке коммитов;
+-- пропуск в начале чтения означает, что журнал уже подрезан.
+CREATE TABLE IF NOT EXISTS ChangeLog
+(
+    Seq       INTEGER PRIMARY KEY AUTOINCREMENT,
+    Kind      VARCHAR(8) NOT NULL, -- CURRENCY или RATE
+    EntityKey VARCHAR(6) NOT NULL, -- код валюты или пары (USDEUR)
+    ChangedAt INTEGER    NOT NULL  -- epoch millis
+);
@@ -1,65 +1,57 @@
 $(document).ready(function() {
     const host = "http://localhost:8080/currency-exchange/"
 
-    // Fetch the list of currencies and populate the select element
-    function requestCurrencies() {
+    const pageSize = 50;
+    const currencySelects = ["#new-rate-base-currency", "#new-rate-target-currency",
+        "#convert-base-currency", "#convert-target-currency"];
+
+    function showApiError(jqXHR) {
+        const error = JSON.parse(jqXHR.responseText);
+        const toast = $('#api-error-toast');
+
+        $(toast).find('.toast-body').text(error.message);
+        toast.toast("show");
+    }
+
+    // Fetch a page of currencies and append it to the table and the select elements;
+    // without a cursor the first page replaces what was shown before
+    function requestCurrencies(cursor) {
         $.ajax({
             url: `${host}/currencies`,
             type: "GET",
+            data: cursor ? {limit: pageSize, cursor: cursor} : {limit: pageSize},
             dataType: "json",
-            success: function (data) {
+            success: function (data, textStatus, jqXHR) {
                 const tbody = $('.currencies-table tbody');
-                tbody.empty();
+                if (!cursor) {
+                    tbody.empty();
+                    $.each(currencySelects, function (index, select) {
+                        $(select).empty();
+                    });
+                }
                 $.each(data, function(index, currency) {
                     const row = $('<tr></tr>');
                     row.append($('<td></td>').text(currency.code));
                     row.append($('<td></td>').text(currency.name));
                     row.append($('<td></td>').text(currency.sign));
                     tbody.append(row);
-                });
-
-                const newRateBaseCurrency = $("#new-rate-base-currency");
-                newRateBaseCurrency.empty();
-
-                // populate the base currency select element with the list of currencies
-                $.each(data, function (index, currency) {
-                    newRateBaseCurrency.append(`<option value="${currency.code}">${currency.code}</option>`);
-                });
-
-                const newRateTargetCurrency = $("#new-rate-target-currency");
-                newRateTargetCurrency.empty();
 
-                // populate the target currency select element with the list of currencies
-                $.each(data, function (index, currency) {
-                    newRateTargetCurrency.append(`<option value="${currency.code}">${currency.code}</option>`);
+                    $.each(currencySelects, function (index, select) {
+                        $(select).append($('<option></option>').val(currency.code).text(currency.code));
+                    });
                 });
 
-                const convertBaseCurrency = $("#convert-base-currency");
-                convertBaseCurrency.empty();
-
-                // populate the base currency select element with the list of currencies
-                $.each(data, function (index, currency) {
-                    convertBaseCurrency.append(`<option value="${currency.code}">${currency.code}</option>`);
-                });
-
-                const convertTargetCurrency = $("#convert-target-currency");
-                convertTargetCurrency.empty();
-
-                // populate the base currency select element with the list of currencies
-                $.each(data, function (index, currency) {
-                    convertTargetCurrency.append(`<option value="${currency.code}">${currency.code}</option>`);
-                });
+                const next = jqXHR.getResponseHeader("X-Next-Cursor");
+                $("#currencies-more").toggleClass("d-none", !next).data("cursor", next);
             },
-            error: function (jqXHR, textStatus, errorThrown) {
-                const error = JSON.parse(jqXHR.responseText);
-                const toast = $('#api-error-toast');
-
-                $(toast).find('.toast-body').text(error.message);
-                toast.toast("show");
-            }
+            error: showApiError
         });
     }
 
+    $("#currencies-more").click(function () {
+        requestCurrencies($(this).data("cursor"));
+    });
+
     requestCurrencies();
 
     $("#add-currency").submit(function(e) {
@@ -84,14 +76,27 @@ $(document).ready(function() {
         return false;
     });
 
-    function requestExchangeRates() {
+    // Fetch a page of exchange rates, optionally filtered on the server by pair prefix (USD, USDE, ...)
+    function requestExchangeRates(cursor) {
+        const params = {limit: pageSize};
+        const prefix = $("#exchange-rates-filter").val().trim();
+        if (prefix) {
+            params.prefix = prefix;
+        }
+        if (cursor) {
+            params.cursor = cursor;
+        }
+
         $.ajax({
             url: `${host}/exchangeRates`,
             type: "GET",
+            data: params,
             dataType: "json",
-            success: function(response) {
+            success: function(response, textStatus, jqXHR) {
                 const tbody = $('.exchange-rates-table tbody');
-                tbody.empty();
+                if (!cursor) {
+                    tbody.empty();
+                }
                 $.each(response, function(index, rate) {
                     const row = $('<tr></tr>');
                     const currency = rate.baseCurrency.code + rate.targetCurrency.code;
@@ -104,17 +109,22 @@ $(document).ready(function() {
                     ));
                     tbody.append(row);
                 });
-            },
-            error: function() {
-                const error = JSON.parse(jqXHR.responseText);
-                const toast = $('#api-error-toast');
 
-                $(toast).find('.toast-body').text(error.message);
-                toast.toast("show");
-            }
+                const next = jqXHR.getResponseHeader("X-Next-Cursor");
+                $("#exchange-rates-more").toggleClass("d-none", !next).data("cursor", next);
+            },
+            error: showApiError
         });
     }
 
+    $("#exchange-rates-more").click(function () {
+        requestExchangeRates($(this).data("cursor"));
+    });
+
+    $("#exchange-rates-filter").on("input", function () {
+        requestExchangeRates();
+    });
+
     requestExchangeRates();
 
     $(document).delegate('.exchange-rate-edit', 'click', function() {
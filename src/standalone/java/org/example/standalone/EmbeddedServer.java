@@ -0,0 +1,118 @@
+package org.example.standalone;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.servlets.DefaultServlet;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.util.descriptor.web.FilterDef;
+import org.apache.tomcat.util.descriptor.web.FilterMap;
+import org.example.config.ApplicationContextListener;
+import org.example.filter.AccessLogFilter;
+import org.example.filter.AdmissionControlFilter;
+import org.example.filter.ExceptionFilter;
+import org.example.filter.MetricsFilter;
+import org.example.servlet.ArbitrageServlet;
+import org.example.servlet.CurrenciesServlet;
+import org.example.servlet.ExchangeBatchServlet;
+import org.example.servlet.ExchangeRateImportServlet;
+import org.example.servlet.ExchangeRateServlet;
+import org.example.servlet.ExchangeServlet;
+import org.example.servlet.MetricsServlet;
+import org.example.servlet.RateStreamServlet;
+import org.example.servlet.SingleCurrencyServlet;
+import org.example.servlet.SingleExchangeRateServlet;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// Приложение во встроенном Tomcat: слушатель, фильтры и сервлеты регистрируются явно, без сканирования
+// классов и web.xml — ни аннотации, ни jar-ы при старте не просматриваются.
+public final class EmbeddedServer implements AutoCloseable {
+    public static final String CONTEXT_PATH = "/currency-exchange";
+
+    private static final List<Class<? extends HttpServlet>> SERVLETS = List.of(
+            CurrenciesServlet.class,
+            SingleCurrencyServlet.class,
+            ExchangeRateServlet.class,
+            SingleExchangeRateServlet.class,
+            ExchangeRateImportServlet.class,
+            RateStreamServlet.class,
+            ExchangeServlet.class,
+            ExchangeBatchServlet.class,
+            ArbitrageServlet.class,
+            MetricsServlet.class
+    );
+
+    private final Tomcat tomcat = new Tomcat();
+
+    // port 0 — любой свободный; webappDir со статикой (index.html, js, css) необязателен
+    public EmbeddedServer(Path baseDir, int port, Path webappDir) {
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(port);
+        tomcat.getConnector();
+
+        boolean hasStatic = webappDir != null && Files.isDirectory(webappDir);
+        Path docBase = hasStatic ? webappDir : baseDir;
+        Context context = tomcat.addContext(CONTEXT_PATH, docBase.toAbsolutePath().toString());
+        context.addApplicationListener(ApplicationContextListener.class.getName());
+
+        // Журнал доступа и метрики снаружи, чтобы в них попадало и время обработки ошибок
+        addFilter(context, "accessLogFilter", new AccessLogFilter());
+        addFilter(context, "metricsFilter", new MetricsFilter());
+        // Отказы по перегрузке тоже должны попасть в журнал и метрики
+        addFilter(context, "admissionControlFilter", new AdmissionControlFilter());
+        addFilter(context, "exceptionFilter", new ExceptionFilter());
+
+        for (Class<? extends HttpServlet> servletClass : SERVLETS) {
+            String name = servletClass.getSimpleName();
+            try {
+                Tomcat.addServlet(context, name, servletClass.getDeclaredConstructor().newInstance())
+                        .setAsyncSupported(servletClass.getAnnotation(WebServlet.class).asyncSupported());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot instantiate " + servletClass.getName(), e);
+            }
+            // Маршруты берём из @WebServlet, чтобы не дублировать их здесь
+            for (String pattern : servletClass.getAnnotation(WebServlet.class).value()) {
+                context.addServletMappingDecoded(pattern, name);
+            }
+        }
+
+        if (hasStatic) {
+            Tomcat.addServlet(context, "default", new DefaultServlet());
+            context.addServletMappingDecoded("/", "default");
+            context.addWelcomeFile("index.html");
+            Tomcat.addDefaultMimeTypeMappings(context);
+        }
+    }
+
+    private static void addFilter(Context context, String name, Filter filter) {
+        FilterDef filterDef = new FilterDef();
+        filterDef.setFilterName(name);
+        filterDef.setFilter(filter);
+        filterDef.setAsyncSupported("true");
+        context.addFilterDef(filterDef);
+        FilterMap filterMap = new FilterMap();
+        filterMap.setFilterName(name);
+        filterMap.addURLPattern("/*");
+        context.addFilterMap(filterMap);
+    }
+
+    public String start() throws LifecycleException {
+        tomcat.start();
+        return "http://localhost:" + tomcat.getConnector().getLocalPort() + CONTEXT_PATH;
+    }
+
+    public void await() {
+        tomcat.getServer().await();
+    }
+
+    @Override
+    public void close() throws LifecycleException {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.standalone;
+
+import org.example.config.AppProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Самостоятельный запуск без внешнего Tomcat: java -jar currency-exchange.jar
+// standalone.trainingRun=true — прогон для AppCDS: поднять сервер, пройти основные запросы и выйти.
+public final class StandaloneMain {
+    private static final Logger logger = LoggerFactory.getLogger(StandaloneMain.class);
+
+    // Запросы тренировочного прогона: чтение, конвертация, ответ с ошибкой и метрики
+    private static final List<String> TRAINING_REQUESTS = List.of(
+            "/currencies",
+            "/currency/USD",
+            "/currency/ZZZ",
+            "/exchangeRates",
+            "/exchangeRate/USDEUR",
+            "/exchange?from=USD&to=EUR&amount=10",
+            "/exchange?from=EUR&to=USD&amount=10",
+            "/metrics"
+    );
+
+    private StandaloneMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = AppProperties.getInt("standalone.port", 8080);
+        Path baseDir = Path.of(AppProperties.get("standalone.baseDir",
+                System.getProperty("java.io.tmpdir") + "/currency-exchange-tomcat." + port));
+        Path webappDir = Path.of(AppProperties.get("standalone.webappDir", "webapp"));
+        boolean trainingRun = AppProperties.getBoolean("standalone.trainingRun", false);
+        Files.createDirectories(baseDir);
+
+        EmbeddedServer server = new EmbeddedServer(baseDir, port, webappDir);
+        String baseUrl = server.start();
+        logger.info("Currency exchange started at {} in {} ms since JVM start",
+                baseUrl, sinceJvmStart().toMillis());
+
+        if (trainingRun) {
+            for (String path : TRAINING_REQUESTS) {
+                get(baseUrl + path);
+            }
+            server.close();
+            // Потоки пулов Hikari не останавливаются вместе с контекстом; архив CDS пишется и при System.exit
+            System.exit(0);
+        }
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                // contextDestroyed дописывает очереди обновлений и журнала доступа
+                server.close();
+            } catch (Exception e) {
+                logger.error("Failed to stop embedded server", e);
+            }
+        }, "standalone-shutdown"));
+        server.await();
+    }
+
+    private static Duration sinceJvmStart() {
+        return ProcessHandle.current().info().startInstant()
+                .map(start -> Duration.between(start, Instant.now()))
+                .orElse(Duration.ZERO);
+    }
+
+    private static void get(String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) URI.create(url).toURL().openConnection();
+        try {
+            int status = connection.getResponseCode();
+            InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                try (body) {
+                    body.readAllBytes();
+                }
+            }
+            logger.info("Training request {} -> {}", url, status);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
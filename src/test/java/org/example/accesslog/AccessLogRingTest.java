@@ -0,0 +1,112 @@
+package org.example.accesslog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogRingTest {
+
+    @Test
+    @DisplayName("Записи читаются в порядке добавления, ячейки переиспользуются по кругу")
+    void drainTo_WrapsAroundInOrder() {
+        // Arrange
+        AccessLogRing ring = new AccessLogRing(4);
+        List<String> uris = new ArrayList<>();
+
+        // Act — три круга по буферу из четырёх ячеек
+        for (int i = 0; i < 12; i++) {
+            assertTrue(ring.offer(i, "GET", "/r" + i, null, 200, 1_000, "TestServlet", null));
+            if (i % 3 == 2) {
+                ring.drainTo(entry -> uris.add(entry.getUri()), Integer.MAX_VALUE);
+            }
+        }
+
+        // Assert
+        assertEquals(12, uris.size());
+        for (int i = 0; i < 12; i++) {
+            assertEquals("/r" + i, uris.get(i));
+        }
+        assertEquals(0, ring.getDropped());
+    }
+
+    @Test
+    @DisplayName("Полный буфер отбрасывает запись и считает её, а не ждёт читателя")
+    void offer_FullRing_Drops() {
+        // Arrange
+        AccessLogRing ring = new AccessLogRing(2);
+        ring.offer(1, "GET", "/a", null, 200, 1, "S", null);
+        ring.offer(2, "GET", "/b", null, 200, 1, "S", null);
+
+        // Act
+        boolean accepted = ring.offer(3, "GET", "/c", null, 200, 1, "S", null);
+
+        // Assert
+        assertFalse(accepted);
+        assertEquals(1, ring.getDropped());
+        assertEquals(2, ring.drainTo(entry -> { }, 10));
+    }
+
+    @Test
+    @DisplayName("Конкурентные писатели: каждая запись либо прочитана ровно один раз, либо учтена как отброшенная")
+    void offer_ConcurrentProducers_NoLossOrDuplicates() throws Exception {
+        // Arrange
+        int producers = 8;
+        int perProducer = 50_000;
+        AccessLogRing ring = new AccessLogRing(1024);
+        Set<Long> seen = new HashSet<>();
+        List<Long> duplicates = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean producing = new AtomicBoolean(true);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p * perProducer;
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) {
+                    ring.offer(base + i, "GET", "/", null, 200, 1, "S", null);
+                }
+            }));
+        }
+        Thread consumer = Thread.ofPlatform().start(() -> {
+            while (producing.get()) {
+                ring.drainTo(entry -> {
+                    if (!seen.add(entry.getTimestamp())) {
+                        duplicates.add(entry.getTimestamp());
+                    }
+                }, 256);
+            }
+        });
+
+        // Act
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        producing.set(false);
+        consumer.join();
+        // Хвост дочитываем здесь: join даёт видимость, читатель по-прежнему один
+        ring.drainTo(entry -> seen.add(entry.getTimestamp()), Integer.MAX_VALUE);
+
+        // Assert
+        assertTrue(duplicates.isEmpty(), () -> "Duplicates: " + duplicates);
+        assertEquals((long) producers * perProducer, seen.size() + ring.getDropped());
+    }
+
+    @Test
+    @DisplayName("Ёмкость не степень двойки — ошибка конфигурации")
+    void constructor_NotPowerOfTwo_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new AccessLogRing(1000));
+    }
+}
@@ -0,0 +1,60 @@
+package org.example.accesslog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AccessLogTest {
+
+    @Test
+    @DisplayName("Выборка берётся по сервлету, полное имя класса сводится к простому, ошибки пишутся всегда")
+    void isSampled_PerServletRates() {
+        // Arrange
+        Logger target = mock(Logger.class);
+        when(target.isInfoEnabled()).thenReturn(true);
+        try (AccessLog accessLog = new AccessLog(16, 1.0, Map.of("ExchangeServlet", 0.0), 500, 10, target)) {
+
+            // Act & Assert
+            assertFalse(accessLog.isSampled("ExchangeServlet", 200));
+            assertFalse(accessLog.isSampled("org.example.servlet.ExchangeServlet", 404));
+            assertTrue(accessLog.isSampled("ExchangeServlet", 503));
+            assertTrue(accessLog.isSampled("CurrenciesServlet", 200));
+        }
+    }
+
+    @Test
+    @DisplayName("При выключенном уровне логгера запись не попадает даже в буфер")
+    void isSampled_LevelDisabled_SkipsEverything() {
+        // Arrange
+        Logger target = mock(Logger.class);
+        when(target.isInfoEnabled()).thenReturn(false);
+        try (AccessLog accessLog = new AccessLog(16, 1.0, Map.of(), 500, 10, target)) {
+
+            // Act & Assert
+            assertFalse(accessLog.isSampled("CurrenciesServlet", 500));
+        }
+    }
+
+    @Test
+    @DisplayName("Фоновый поток форматирует запись в logfmt, строки с пробелами берёт в кавычки")
+    void record_WrittenByBackgroundThread() {
+        // Arrange
+        Logger target = mock(Logger.class);
+        AccessLog accessLog = new AccessLog(16, 1.0, Map.of(), 500, 1, target);
+
+        // Act
+        accessLog.record(0, "GET", "/exchange", "from=USD&to=EUR&note=a b", 200, 1_500_000,
+                "ExchangeServlet", "127.0.0.1");
+        accessLog.close();
+
+        // Assert
+        verify(target).info("ts=1970-01-01T00:00:00Z method=GET path=/exchange query=\"from=USD&to=EUR&note=a b\""
+                + " status=200 duration_us=1500 servlet=ExchangeServlet remote=127.0.0.1");
+        assertEquals(1, accessLog.getWritten());
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.admission;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimitTest {
+    private static final long TARGET = 20_000_000L;
+    private static final long COOLDOWN = 1_000_000_000L;
+
+    @Test
+    @DisplayName("Сверх лимита место не выдаётся, после release — снова выдаётся")
+    void tryAcquire_RespectsLimit() {
+        // Arrange
+        AdaptiveLimit limit = new AdaptiveLimit(2, 1, 10, TARGET, 0.5, COOLDOWN);
+
+        // Act & Assert
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertEquals(2, limit.getInFlight());
+        limit.release();
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Медленное ожидание пула уменьшает лимит не чаще раза в cooldown и не ниже минимума")
+    void onSample_SlowWait_DecreasesOncePerCooldown() {
+        // Arrange
+        AdaptiveLimit limit = new AdaptiveLimit(40, 4, 100, TARGET, 0.5, COOLDOWN);
+        long now = System.nanoTime();
+
+        // Act — пачка медленных образцов одной перегрузки
+        limit.onSample(TARGET * 10, now);
+        limit.onSample(TARGET * 10, now + 1);
+        limit.onTimeout(now + 2);
+
+        // Assert
+        assertEquals(20, limit.getLimit());
+
+        // Act — перегрузка не прошла и после cooldown
+        for (int i = 1; i <= 5; i++) {
+            limit.onTimeout(now + i * COOLDOWN);
+        }
+
+        // Assert
+        assertEquals(4, limit.getLimit());
+    }
+
+    @Test
+    @DisplayName("Быстрое ожидание пула поднимает занятый лимит примерно на единицу за limit образцов")
+    void onSample_FastWait_IncreasesOnlyWhenUtilized() {
+        // Arrange
+        AdaptiveLimit limit = new AdaptiveLimit(4, 1, 100, TARGET, 0.5, COOLDOWN);
+        long now = System.nanoTime();
+
+        // Act — лимит простаивает
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(1_000, now);
+        }
+
+        // Assert
+        assertEquals(4, limit.getLimit());
+
+        // Act — лимит занят
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limit.tryAcquire());
+        }
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(1_000, now);
+        }
+
+        // Assert
+        assertEquals(5, limit.getLimit());
+        assertTrue(limit.tryAcquire());
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.admission;
+
+import org.example.util.ConnectionManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControllerTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    @DisplayName("Клиент, исчерпавший бакет, получает 429 с Retry-After; другие клиенты не затронуты")
+    void tryAdmit_ClientOverRate_Gets429() {
+        // Arrange — 1 запрос в секунду, без запаса
+        AdmissionController admission = new AdmissionController(
+                new ClientRateLimiter(1, 1, 100), readLimit(10), 1);
+
+        // Act
+        assertNull(admission.tryAdmit("10.0.0.1", false));
+        AdmissionController.Rejection rejection = admission.tryAdmit("10.0.0.1", false);
+
+        // Assert
+        assertNotNull(rejection);
+        assertEquals(429, rejection.status());
+        assertEquals(AdmissionController.RATE_LIMITED, rejection.reason());
+        assertEquals(1, rejection.retryAfterSeconds());
+        assertNull(admission.tryAdmit("10.0.0.2", false));
+    }
+
+    @Test
+    @DisplayName("Занятый лимит чтений не мешает записям, и наоборот")
+    void tryAdmit_WriteBudgetReservedFromReads() {
+        // Arrange
+        AdmissionController admission = new AdmissionController(null, readLimit(1), 1);
+
+        // Act — оба рубежа заняты
+        assertNull(admission.tryAdmit("client", false));
+        assertNull(admission.tryAdmit("client", true));
+        AdmissionController.Rejection read = admission.tryAdmit("client", false);
+        AdmissionController.Rejection write = admission.tryAdmit("client", true);
+
+        // Assert
+        assertEquals(AdmissionController.READ_LIMIT, read.reason());
+        assertEquals(AdmissionController.WRITE_BUDGET, write.reason());
+        assertEquals(503, write.status());
+
+        // Act — запись завершилась, чтение всё ещё идёт
+        admission.release(true);
+
+        // Assert
+        assertNull(admission.tryAdmit("client", true));
+        assertNotNull(admission.tryAdmit("client", false));
+    }
+
+    @Test
+    @DisplayName("Лимит чтений ведёт только пул читателей: ожидание писателя его не снижает")
+    void onConnectionAcquired_OnlyReaderPoolAdjustsLimit() {
+        // Arrange
+        AdmissionController admission = new AdmissionController(null, readLimit(10), 1);
+
+        // Act
+        admission.onConnectionAcquired(ConnectionManager.WRITE_POOL, 10 * SECOND);
+        admission.onConnectionTimeout(ConnectionManager.WRITE_POOL);
+
+        // Assert
+        assertEquals(10, admission.getReadLimit().getLimit());
+
+        // Act
+        admission.onConnectionTimeout(ConnectionManager.READ_POOL);
+
+        // Assert
+        assertEquals(5, admission.getReadLimit().getLimit());
+    }
+
+    @Test
+    @DisplayName("Бакет восполняется со временем; при переполнении таблицы новые клиенты делят общий бакет")
+    void clientRateLimiter_RefillsAndBoundsMemory() {
+        // Arrange
+        ClientRateLimiter limiter = new ClientRateLimiter(2, 1, 2);
+        long now = System.nanoTime();
+
+        // Act & Assert — токен раз в полсекунды
+        assertEquals(0, limiter.tryAcquire("a", now));
+        assertEquals(SECOND / 2, limiter.tryAcquire("a", now));
+        assertEquals(0, limiter.tryAcquire("a", now + SECOND / 2));
+
+        // Act & Assert — в таблице «a» и «b», оба не восполнились и не выметаются: «c» и «d» делят общий бакет
+        assertEquals(0, limiter.tryAcquire("b", now));
+        assertEquals(0, limiter.tryAcquire("c", now));
+        assertTrue(limiter.tryAcquire("d", now) > 0);
+        assertEquals(2, limiter.trackedClients());
+    }
+
+    private static AdaptiveLimit readLimit(int limit) {
+        return new AdaptiveLimit(limit, 1, 100, 20_000_000L, 0.5, SECOND);
+    }
+}
@@ -0,0 +1,202 @@
+package org.example.arbitrage;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArbitrageDetectorTest {
+
+    private final ArbitrageDetector detector = new ArbitrageDetector(null, 0.000001, Double.POSITIVE_INFINITY);
+    private final Map<String, Currency> currencies = new HashMap<>();
+
+    private void save(String base, String target, String rate) {
+        detector.onRateSaved(rate(base, target, new BigDecimal(rate)));
+    }
+
+    private ExchangeRate rate(String base, String target, BigDecimal rate) {
+        return new ExchangeRate(0, currency(base), currency(target), rate);
+    }
+
+    private Currency currency(String code) {
+        return currencies.computeIfAbsent(code, c -> new Currency(currencies.size() + 1, c, c, "¤"));
+    }
+
+    @Test
+    @DisplayName("Прямая и встречная котировки с разницей дают цикл через обратный курс")
+    void onRateSaved_RoundTrip_ReportsCycle() {
+        // Act — как в начальных данных: USD→EUR 0.99 и EUR→USD 1.01
+        save("USD", "EUR", "0.99");
+        save("EUR", "USD", "1.01");
+
+        // Assert — EUR→USD по 1/0.99 и обратно по 1/1.01: 1/0.9999
+        List<ArbitrageViolation> violations = detector.getViolations();
+        assertEquals(1, violations.size());
+        ArbitrageViolation violation = violations.getFirst();
+        assertEquals("EURUSD", violation.pair());
+        assertEquals(3, violation.cycle().size());
+        assertEquals(violation.cycle().getFirst(), violation.cycle().getLast());
+        assertEquals(1 / 0.9999 - 1, violation.profit(), 1e-12);
+    }
+
+    @Test
+    @DisplayName("Согласованный треугольник нарушений не даёт; PATCH, создающий цикл, даёт одно нарушение")
+    void onRateSaved_TriangleBrokenByUpdate() {
+        // Arrange
+        save("USD", "EUR", "0.9");
+        save("USD", "GBP", "0.8");
+        save("EUR", "GBP", "0.8888889");
+        assertTrue(detector.getViolations().isEmpty());
+
+        // Act
+        save("EUR", "GBP", "0.95");
+
+        // Assert
+        List<ArbitrageViolation> violations = detector.getViolations();
+        assertEquals(1, violations.size());
+        assertEquals("EURGBP", violations.getFirst().pair());
+        assertEquals(0.95 * 0.9 / 0.8 - 1, violations.getFirst().profit(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Нарушение снимается, когда меняется любая котировка его цикла")
+    void onRateSaved_CycleEdgeFixed_ViolationCleared() {
+        // Arrange
+        save("USD", "EUR", "0.9");
+        save("USD", "GBP", "0.8");
+        save("EUR", "GBP", "0.95");
+        assertEquals(1, detector.getViolations().size());
+
+        // Act — исправлена не сама EUR→GBP, а USD→GBP
+        save("USD", "GBP", "0.855");
+
+        // Assert
+        assertTrue(detector.getViolations().isEmpty());
+    }
+
+    @Test
+    @DisplayName("check показывает цикл, но граф не меняет")
+    void check_DoesNotMutate() {
+        // Arrange
+        save("USD", "EUR", "0.9");
+        save("USD", "GBP", "0.8");
+        save("EUR", "GBP", "0.8888889");
+
+        // Act
+        var violation = detector.check("EUR", "GBP", new BigDecimal("0.95"));
+
+        // Assert
+        assertTrue(violation.isPresent());
+        assertTrue(detector.getViolations().isEmpty());
+        assertTrue(detector.check("EUR", "GBP", new BigDecimal("0.88888889")).isEmpty());
+        assertTrue(detector.check("GBP", "CHF", new BigDecimal("1.1")).isEmpty());
+        assertEquals(3, detector.vertexCount());
+    }
+
+    @Test
+    @DisplayName("Слушатель только ставит изменение в очередь; чтение нарушений доприменяет её")
+    void onRateSaved_QueuedUntilRead() {
+        // Act
+        save("USD", "EUR", "0.99");
+        save("EUR", "USD", "1.01");
+
+        // Assert — фоновый поток не запущен, граф до чтения не менялся
+        assertEquals(0, detector.vertexCount());
+        assertEquals(1, detector.getViolations().size());
+        assertEquals(2, detector.vertexCount());
+    }
+
+    @Test
+    @DisplayName("Отказ только для циклов с доходом не меньше порога")
+    void rejection_RespectsThreshold() {
+        // Arrange
+        ArbitrageDetector rejecting = new ArbitrageDetector(null, 0.000001, 0.01);
+        rejecting.onRateSaved(rate("USD", "EUR", new BigDecimal("0.9")));
+
+        // Act & Assert — 0.5% проходит, 5% — нет
+        assertTrue(rejecting.rejection("EUR", "USD", new BigDecimal("1.1166667")).isEmpty());
+        assertTrue(rejecting.rejection("EUR", "USD", new BigDecimal("1.1666667")).isPresent());
+    }
+
+    @Test
+    @DisplayName("Нарушения есть тогда и только тогда, когда Bellman-Ford по всем котировкам находит цикл")
+    void onRateSaved_MatchesBellmanFord() {
+        assertMatchesBellmanFord(detector);
+    }
+
+    @Test
+    @DisplayName("С бюджетом перепроверок в одно изменение отложенные нарушения досчитываются при чтении списка")
+    void onRateSaved_RecheckBudget_MatchesBellmanFord() {
+        assertMatchesBellmanFord(new ArbitrageDetector(null, 0.000001, Double.POSITIVE_INFINITY, 1));
+    }
+
+    private void assertMatchesBellmanFord(ArbitrageDetector detector) {
+        Random random = new Random(7L);
+        List<String> codes = List.of("USD", "EUR", "GBP", "CHF", "JPY", "AUD");
+        Map<String, Double> fair = new HashMap<>();
+        for (String code : codes) {
+            fair.put(code, 0.5 + random.nextDouble());
+        }
+        Map<String, ExchangeRate> quotes = new HashMap<>();
+
+        for (int step = 0; step < 2_000; step++) {
+            // Arrange — курс либо согласован со «справедливыми» ценами, либо сдвинут на 5%
+            String base = codes.get(random.nextInt(codes.size()));
+            String target = codes.get(random.nextInt(codes.size()));
+            if (base.equals(target)) {
+                continue;
+            }
+            double skew = switch (random.nextInt(4)) {
+                case 0 -> 1.05;
+                case 1 -> 0.95;
+                default -> 1.0;
+            };
+            BigDecimal value = new BigDecimal(fair.get(target) / fair.get(base) * skew, new MathContext(10));
+            ExchangeRate quote = rate(base, target, value);
+            quotes.put(base + target, quote);
+
+            // Act
+            detector.onRateSaved(quote);
+
+            // Assert
+            assertEquals(hasNegativeCycle(codes, quotes.values()), !detector.getViolations().isEmpty(),
+                    "step " + step);
+        }
+    }
+
+    private static boolean hasNegativeCycle(List<String> codes, Iterable<ExchangeRate> quotes) {
+        List<double[]> edges = new ArrayList<>();
+        for (ExchangeRate quote : quotes) {
+            int base = codes.indexOf(quote.getBaseCurrency().getCode());
+            int target = codes.indexOf(quote.getTargetCurrency().getCode());
+            double weight = -Math.log(quote.getRate().doubleValue());
+            edges.add(new double[]{base, target, weight});
+            edges.add(new double[]{target, base, -weight});
+        }
+        double[] distance = new double[codes.size()];
+        for (int pass = 0; pass < codes.size(); pass++) {
+            boolean relaxed = false;
+            for (double[] edge : edges) {
+                double candidate = distance[(int) edge[0]] + edge[2];
+                if (candidate < distance[(int) edge[1]] - 1e-9) {
+                    distance[(int) edge[1]] = candidate;
+                    relaxed = true;
+                }
+            }
+            if (!relaxed) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
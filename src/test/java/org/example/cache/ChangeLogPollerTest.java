@@ -0,0 +1,199 @@
+package org.example.cache;
+
+import org.example.dao.ChangeLogDao;
+import org.example.dao.ChangeLogEntry;
+import org.example.dao.CurrencyDao;
+import org.example.dao.ExchangeRateDao;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChangeLogPollerTest {
+
+    @Mock
+    private CurrencyDao currencyDao;
+    @Mock
+    private ExchangeRateDao exchangeRateDao;
+    @Mock
+    private ChangeLogDao changeLogDao;
+
+    private final Currency usd = new Currency(1, "USD", "US Dollar", "$");
+    private final Currency eur = new Currency(2, "EUR", "Euro", "€");
+    private final List<ExchangeRate> saved = new ArrayList<>();
+
+    private RateBookHolder holder;
+    private ChangeLogPoller poller;
+
+    @BeforeEach
+    void setUp() {
+        when(currencyDao.findAll()).thenReturn(List.of(usd, eur));
+        when(exchangeRateDao.findAll()).thenReturn(List.of(usdEur("0.9")));
+        when(changeLogDao.dataVersion()).thenReturn(1L);
+        when(changeLogDao.lastSeq()).thenReturn(10L);
+        holder = new RateBookHolder(currencyDao, exchangeRateDao);
+        poller = new ChangeLogPoller(holder, changeLogDao, 100, 3, 1000, 60_000);
+        holder.reload();
+        holder.addListener(new RateBookListener() {
+            @Override
+            public void onRateSaved(ExchangeRate rate) {
+                saved.add(rate);
+            }
+        });
+    }
+
+    private ExchangeRate usdEur(String rate) {
+        return new ExchangeRate(1, usd, eur, new BigDecimal(rate));
+    }
+
+    private static ChangeLogEntry rateChange(long seq) {
+        return new ChangeLogEntry(seq, ChangeLogEntry.Kind.RATE, "USDEUR");
+    }
+
+    private BigDecimal snapshotRate() {
+        return holder.get().findRate("USD", "EUR").orElseThrow().getRate();
+    }
+
+    @Test
+    @DisplayName("Пока data_version не изменился, журнал не читается")
+    void pollOnce_DataVersionUnchanged_SkipsChangeLog() {
+        // Act
+        poller.pollOnce();
+
+        // Assert
+        verify(changeLogDao, never()).findAfter(anyLong(), anyInt());
+        verify(exchangeRateDao, never()).findByPairKeys(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Курс, изменённый другим процессом, перечитывается и публикуется точечно")
+    void pollOnce_ForeignChange_RefreshesPair() {
+        // Arrange
+        when(changeLogDao.dataVersion()).thenReturn(2L);
+        when(changeLogDao.findAfter(10L, 4)).thenReturn(List.of(rateChange(11), rateChange(12)));
+        when(exchangeRateDao.findByPairKeys(anyCollection())).thenReturn(List.of(usdEur("0.95")));
+
+        // Act
+        poller.pollOnce();
+
+        // Assert
+        assertEquals(0, new BigDecimal("0.95").compareTo(snapshotRate()));
+        assertEquals(1, saved.size());
+        assertEquals(12L, poller.getLastSeq());
+        verify(exchangeRateDao, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("Своя запись, уже лежащая в снимке, повторно не публикуется")
+    void pollOnce_OwnChange_NoEvent() {
+        // Arrange
+        when(changeLogDao.dataVersion()).thenReturn(2L);
+        when(changeLogDao.findAfter(10L, 4)).thenReturn(List.of(rateChange(11)));
+        when(exchangeRateDao.findByPairKeys(anyCollection())).thenReturn(List.of(usdEur("0.900")));
+
+        // Act
+        poller.pollOnce();
+
+        // Assert
+        assertTrue(saved.isEmpty());
+        assertEquals(11L, poller.getLastSeq());
+    }
+
+    @Test
+    @DisplayName("Пара, переписанная этим процессом во время чтения, не откатывается и перечитывается следующим опросом")
+    void pollOnce_LocalWriteDuringRead_RetriesPair() {
+        // Arrange — пока идёт чтение из БД, этот процесс публикует более новое значение
+        when(changeLogDao.dataVersion()).thenReturn(2L);
+        when(changeLogDao.findAfter(10L, 4)).thenReturn(List.of(rateChange(11)));
+        when(changeLogDao.findAfter(11L, 4)).thenReturn(List.of());
+        when(exchangeRateDao.findByPairKeys(anyCollection()))
+                .thenAnswer(invocation -> {
+                    holder.publishRate(usdEur("0.97"));
+                    return List.of(usdEur("0.95"));
+                })
+                .thenReturn(List.of(usdEur("0.97")));
+
+        // Act
+        poller.pollOnce();
+        BigDecimal afterFirstPoll = snapshotRate();
+        poller.pollOnce();
+
+        // Assert
+        assertEquals(0, new BigDecimal("0.97").compareTo(afterFirstPoll));
+        assertEquals(0, new BigDecimal("0.97").compareTo(snapshotRate()));
+        verify(exchangeRateDao, times(2)).findByPairKeys(anyCollection());
+        assertEquals(1, saved.size());
+    }
+
+    @Test
+    @DisplayName("Пара с незаписанным значением этого процесса не откатывается к прочитанной из БД строке")
+    void pollOnce_LocalUnflushedValue_SkipsPair() {
+        // Arrange — очередь обновлений приняла 0.97, а в БД пока лежит более старая строка
+        holder.setUnflushedRates(Map.of("USDEUR", usdEur("0.97")));
+        holder.publishRate(usdEur("0.97"));
+        saved.clear();
+        when(changeLogDao.dataVersion()).thenReturn(2L);
+        when(changeLogDao.findAfter(10L, 4)).thenReturn(List.of(rateChange(11)));
+        when(exchangeRateDao.findByPairKeys(anyCollection())).thenReturn(List.of(usdEur("0.95")));
+
+        // Act
+        poller.pollOnce();
+        poller.pollOnce();
+
+        // Assert — пара не публикуется и не перечитывается: её допишет своя пачка
+        assertEquals(0, new BigDecimal("0.97").compareTo(snapshotRate()));
+        assertTrue(saved.isEmpty());
+        verify(exchangeRateDao, times(1)).findByPairKeys(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Журнал подрезан дальше прочитанного — снимок перечитывается целиком")
+    void pollOnce_ChangeLogPruned_Reloads() {
+        // Arrange
+        when(changeLogDao.dataVersion()).thenReturn(2L);
+        when(changeLogDao.findAfter(10L, 4)).thenReturn(List.of(rateChange(50)));
+        when(changeLogDao.lastSeq()).thenReturn(60L);
+
+        // Act
+        poller.pollOnce();
+
+        // Assert
+        verify(exchangeRateDao, times(2)).findAll();
+        verify(exchangeRateDao, never()).findByPairKeys(anyCollection());
+        assertEquals(60L, poller.getLastSeq());
+    }
+
+    @Test
+    @DisplayName("Изменений больше maxBatch — вместо точечного чтения перечитывается снимок")
+    void pollOnce_TooManyChanges_Reloads() {
+        // Arrange
+        when(changeLogDao.dataVersion()).thenReturn(2L);
+        when(changeLogDao.findAfter(10L, 4))
+                .thenReturn(List.of(rateChange(11), rateChange(12), rateChange(13), rateChange(14)));
+        when(changeLogDao.lastSeq()).thenReturn(14L);
+
+        // Act
+        poller.pollOnce();
+
+        // Assert
+        verify(exchangeRateDao, times(2)).findAll();
+        verify(exchangeRateDao, never()).findByPairKeys(anyCollection());
+        assertEquals(14L, poller.getLastSeq());
+    }
+}
@@ -0,0 +1,147 @@
+package org.example.cache;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.routing.EffectiveRate;
+import org.example.routing.RateRouter;
+import org.example.routing.RoutingPolicy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EffectiveRateCacheTest {
+
+    private final RateRouter router = new RateRouter(List.of("USD"), 2, RoutingPolicy.FEWEST_HOPS);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final Currency usd = new Currency(1, "USD", "US Dollar", "$");
+    private final Currency eur = new Currency(2, "EUR", "Euro", "€");
+    private final Currency gbp = new Currency(3, "GBP", "Pound", "£");
+    private final Currency aud = new Currency(4, "AUD", "Australian dollar", "A$");
+    private final Currency rub = new Currency(5, "RUB", "Ruble", "₽");
+
+    private RateBookHolder holder;
+    private EffectiveRateCache cache;
+
+    @BeforeEach
+    void setUp() {
+        holder = new RateBookHolder(null, null);
+        for (Currency currency : List.of(usd, eur, gbp, aud, rub)) {
+            holder.commitCurrency(() -> currency);
+        }
+        holder.publishRate(new ExchangeRate(1, usd, eur, new BigDecimal("0.9")));
+        holder.publishRate(new ExchangeRate(2, usd, gbp, new BigDecimal("0.8")));
+        holder.publishRate(new ExchangeRate(3, usd, aud, new BigDecimal("1.5")));
+        holder.publishRate(new ExchangeRate(4, usd, rub, new BigDecimal("90")));
+        cache = new EffectiveRateCache(100);
+        holder.addListener(cache);
+    }
+
+    private EffectiveRate get(String from, String to) {
+        RateBook book = holder.get();
+        return cache.get(book, from, to, () -> {
+            loads.incrementAndGet();
+            return EffectiveRate.of(book, router.findRoute(book, from, to).orElseThrow());
+        });
+    }
+
+    @Test
+    @DisplayName("Кросс-курс считается один раз, повторный запрос берётся из кэша")
+    void get_SecondCall_Hit() {
+        // Act
+        EffectiveRate first = get("AUD", "RUB");
+        EffectiveRate second = get("AUD", "RUB");
+
+        // Assert — 90 / 1.5 в масштабе 10
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(new BigDecimal("60.0000000000"), first.rate());
+        assertEquals(List.of("AUD", "USD", "RUB"), first.path());
+    }
+
+    @Test
+    @DisplayName("Изменение курса сбрасывает только записи, выведенные из этого ребра")
+    void onRateSaved_InvalidatesOnlyDependents() {
+        // Arrange
+        get("AUD", "RUB");
+        get("EUR", "GBP");
+        loads.set(0);
+
+        // Act
+        holder.publishRate(new ExchangeRate(4, usd, rub, new BigDecimal("96")));
+
+        // Assert
+        assertEquals(1, cache.size());
+        assertEquals(new BigDecimal("64.0000000000"), get("AUD", "RUB").rate());
+        get("EUR", "GBP");
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Новая пара в книге может сократить маршрут: прежняя запись считается промахом")
+    void get_NewPairInBook_RecomputesRoute() {
+        // Arrange
+        get("AUD", "RUB");
+
+        // Act — изменение не касается рёбер AUD→USD→RUB, но даёт прямой курс
+        holder.publishRate(new ExchangeRate(5, aud, rub, new BigDecimal("61")));
+        EffectiveRate direct = get("AUD", "RUB");
+
+        // Assert
+        assertEquals(2, loads.get());
+        assertEquals(List.of("AUD", "RUB"), direct.path());
+    }
+
+    @Test
+    @DisplayName("Смена снимка без изменения рёбер маршрута запись не сбрасывает")
+    void get_UnrelatedUpdate_StillHit() {
+        // Arrange
+        get("AUD", "RUB");
+
+        // Act
+        holder.publishRate(new ExchangeRate(1, usd, eur, new BigDecimal("0.95")));
+        get("AUD", "RUB");
+
+        // Assert
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("Разовый запрос редкой пары не вытесняет частые: размер ограничен, новичок без частоты не допускается")
+    void admit_FullCache_KeepsFrequentKeys() {
+        // Arrange — кэш на две записи, обе пары запрашиваются часто
+        cache = new EffectiveRateCache(2);
+        for (int i = 0; i < 10; i++) {
+            get("AUD", "RUB");
+            get("EUR", "GBP");
+        }
+        loads.set(0);
+
+        // Act
+        get("GBP", "AUD");
+        get("AUD", "RUB");
+        get("EUR", "GBP");
+
+        // Assert — GBP→AUD посчитан, но не вытеснил частые пары
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @DisplayName("Перезагрузка книги очищает кэш")
+    void onReloaded_Clears() {
+        // Arrange
+        get("AUD", "RUB");
+
+        // Act
+        cache.onReloaded();
+
+        // Assert
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.cache;
+
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private final ResponseCache cache = new ResponseCache();
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private ResponseCache.Entry render(String key, String body) throws Exception {
+        return cache.get(key, () -> {
+            renders.incrementAndGet();
+            return body.getBytes(StandardCharsets.UTF_8);
+        });
+    }
+
+    @Test
+    @DisplayName("Повторный запрос отдаётся из кэша без сериализации")
+    void get_SecondCall_UsesCachedBody() throws Exception {
+        ResponseCache.Entry first = render(ResponseCache.CURRENCIES, "[1]");
+        ResponseCache.Entry second = render(ResponseCache.CURRENCIES, "[2]");
+
+        assertSame(first, second);
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    @DisplayName("ETag зависит только от содержимого тела")
+    void etag_DependsOnContent() throws Exception {
+        String a = render("a", "{\"code\":\"USD\"}").etag();
+        String b = render("b", "{\"code\":\"USD\"}").etag();
+        String c = render("c", "{\"code\":\"EUR\"}").etag();
+
+        assertEquals(a, b);
+        assertNotEquals(a, c);
+        assertTrue(a.startsWith("\"") && a.endsWith("\""));
+    }
+
+    @Test
+    @DisplayName("Новый курс сбрасывает только список курсов и свою пару")
+    void onRateSaved_InvalidatesOnlyAffectedKeys() throws Exception {
+        Currency usd = new Currency(1, "USD", "US Dollar", "$");
+        Currency eur = new Currency(2, "EUR", "Euro", "€");
+        render(ResponseCache.CURRENCIES, "[]");
+        render(ResponseCache.EXCHANGE_RATES, "[]");
+        render(ResponseCache.exchangeRateKey("USD", "EUR"), "{}");
+        render(ResponseCache.exchangeRateKey("EUR", "USD"), "{}");
+        renders.set(0);
+
+        cache.onRateSaved(new ExchangeRate(1, usd, eur, new BigDecimal("0.9")));
+
+        render(ResponseCache.CURRENCIES, "[]");
+        render(ResponseCache.exchangeRateKey("EUR", "USD"), "{}");
+        assertEquals(0, renders.get());
+
+        render(ResponseCache.EXCHANGE_RATES, "[]");
+        render(ResponseCache.exchangeRateKey("USD", "EUR"), "{}");
+        assertEquals(2, renders.get());
+    }
+
+    @Test
+    @DisplayName("Тело, посчитанное до сброса, не попадает в кэш")
+    void get_InvalidatedWhileRendering_NotStored() throws Exception {
+        Currency usd = new Currency(1, "USD", "US Dollar", "$");
+
+        ResponseCache.Entry stale = cache.get(ResponseCache.CURRENCIES, () -> {
+            cache.onCurrencySaved(usd);
+            return "[]".getBytes(StandardCharsets.UTF_8);
+        });
+        ResponseCache.Entry fresh = render(ResponseCache.CURRENCIES, "[\"USD\"]");
+
+        assertNotSame(stale, fresh);
+        assertEquals(1, renders.get());
+    }
+}
@@ -30,6 +30,25 @@ public class CurrenciesApiIntegrationTest {
                 .body("code", hasItems("USD", "EUR"));
     }
 
+    @Test
+    @DisplayName("GET /currencies - Повтор с If-None-Match (304)")
+    public void getAllCurrencies_NotModified() {
+        String etag = when()
+                .get("/currencies")
+                .then()
+                .statusCode(200)
+                .header("ETag", notNullValue())
+                .extract().header("ETag");
+
+        given()
+                .header("If-None-Match", etag)
+                .when()
+                .get("/currencies")
+                .then()
+                .statusCode(304)
+                .header("ETag", equalTo(etag));
+    }
+
     // --- ГРУППА: GET /currency/{code} ---
 
     @Test
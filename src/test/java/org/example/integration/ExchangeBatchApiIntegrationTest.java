@@ -0,0 +1,58 @@
+package org.example.integration;
+
+import io.restassured.RestAssured;
+import io.restassured.http.ContentType;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.*;
+
+public class ExchangeBatchApiIntegrationTest {
+
+    @BeforeAll
+    public static void setup() {
+        RestAssured.baseURI = "http://localhost:8080/currency-exchange";
+    }
+
+    @Test
+    @DisplayName("POST /exchange/batch - Ошибки отдельных элементов не валят весь пакет")
+    public void batch_MixedItems_PerItemStatuses() {
+        given()
+                .contentType(ContentType.JSON)
+                .body("""
+                        [
+                          {"from": "USD", "to": "EUR", "amount": "100"},
+                          {"from": "JPY", "to": "RUB", "amount": "10"},
+                          {"from": "AUD", "to": "RUB", "amount": "abc"},
+                          {"from": "AUD", "to": "RUB", "amount": 10}
+                        ]
+                        """)
+                .when()
+                .post("/exchange/batch")
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(4))
+                .body("[0].status", equalTo(200))
+                .body("[0].result.baseCurrency.code", equalTo("USD"))
+                .body("[0].result.convertedAmount", notNullValue())
+                .body("[1].status", equalTo(404))
+                .body("[2].status", equalTo(400))
+                .body("[3].status", equalTo(200))
+                .body("[3].result.path", hasItem("USD"));
+    }
+
+    @Test
+    @DisplayName("POST /exchange/batch - Ошибка 400: тело не является JSON-массивом")
+    public void batch_NotAnArray_BadRequest() {
+        given()
+                .contentType(ContentType.JSON)
+                .body("{\"from\": \"USD\"}")
+                .when()
+                .post("/exchange/batch")
+                .then()
+                .statusCode(400)
+                .body("message", notNullValue());
+    }
+}
@@ -30,6 +30,45 @@ public class ExchangeRatesApiIntegrationTest {
                 .body("$", instanceOf(java.util.List.class));
     }
 
+    @Test
+    @DisplayName("GET /exchangeRates?base=USD&limit=1 - Постраничный обход по курсору")
+    public void getExchangeRatesPage_FollowsCursor() {
+        String cursor = given()
+                .queryParam("base", "USD")
+                .queryParam("limit", 1)
+                .when()
+                .get("/exchangeRates")
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(1))
+                .body("baseCurrency.code", everyItem(equalTo("USD")))
+                .header("X-Next-Cursor", notNullValue())
+                .extract().header("X-Next-Cursor");
+
+        given()
+                .queryParam("base", "USD")
+                .queryParam("limit", 1)
+                .queryParam("cursor", cursor)
+                .when()
+                .get("/exchangeRates")
+                .then()
+                .statusCode(200)
+                .body("size()", equalTo(1))
+                .body("baseCurrency.code", everyItem(equalTo("USD")));
+    }
+
+    @Test
+    @DisplayName("GET /exchangeRates?limit=0 - Ошибка валидации (400)")
+    public void getExchangeRatesPage_InvalidLimit() {
+        given()
+                .queryParam("limit", 0)
+                .when()
+                .get("/exchangeRates")
+                .then()
+                .statusCode(400)
+                .body("message", containsString("limit"));
+    }
+
     // --- ТЕСТЫ GET /exchangeRate/USDRUB ---
 
     @Test
@@ -46,6 +85,45 @@ public class ExchangeRatesApiIntegrationTest {
                 .body("rate", notNullValue());
     }
 
+    @Test
+    @DisplayName("GET /exchangeRate/{pair}?at= - Курс на момент времени")
+    public void getExchangeRateAt_Success() {
+        given()
+                .queryParam("at", "2020-01-01T00:00:00Z")
+                .when()
+                .get("/exchangeRate/USDEUR")
+                .then()
+                .statusCode(200)
+                .body("baseCurrency.code", equalTo("USD"))
+                .body("rate", notNullValue());
+    }
+
+    @Test
+    @DisplayName("GET /exchangeRate/{pair}?at= - Ошибка 400 (неверный формат времени)")
+    public void getExchangeRateAt_InvalidInstant() {
+        given()
+                .queryParam("at", "yesterday")
+                .when()
+                .get("/exchangeRate/USDEUR")
+                .then()
+                .statusCode(400);
+    }
+
+    @Test
+    @DisplayName("POST /exchangeRates/import - CSV с отчётом по ошибочным строкам")
+    public void importExchangeRates_Csv() {
+        given()
+                .contentType("text/csv")
+                .body("baseCurrencyCode,targetCurrencyCode,rate\nUSD,EUR,0.99\nUSD,ZZZ,1.5\n")
+                .when()
+                .post("/exchangeRates/import")
+                .then()
+                .statusCode(200)
+                .body("imported", equalTo(1))
+                .body("failed", equalTo(1))
+                .body("errors[0].line", equalTo(3));
+    }
+
     @Test
     @DisplayName("GET /exchangeRate/{pair} - Ошибка 404 (пара не найдена)")
     public void getExchangeRate_NotFound() {
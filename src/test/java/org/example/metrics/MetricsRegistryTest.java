@@ -0,0 +1,56 @@
+package org.example.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsRegistryTest {
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    @Test
+    @DisplayName("Гистограмма запросов выводится в текстовом формате Prometheus с кумулятивными корзинами")
+    void scrape_WritesCumulativeHistogram() {
+        // Arrange — отдельное имя сервлета, чтобы не пересекаться с другими тестами
+        String servlet = "ScrapeTestServlet";
+
+        // Act
+        metrics.recordRequest(servlet, "GET", 200, 300_000);        // 0.3 мс
+        metrics.recordRequest(servlet, "GET", 200, 20_000_000_000L); // 20 с, только в +Inf
+        String text = metrics.scrape();
+
+        // Assert
+        String labels = "servlet=\"" + servlet + "\",method=\"GET\",status=\"200\"";
+        assertTrue(text.contains("# TYPE http_server_requests_seconds histogram"));
+        assertTrue(text.contains("http_server_requests_seconds_bucket{" + labels + ",le=\"2.5E-4\"} 0\n"));
+        assertTrue(text.contains("http_server_requests_seconds_bucket{" + labels + ",le=\"5.0E-4\"} 1\n"));
+        assertTrue(text.contains("http_server_requests_seconds_bucket{" + labels + ",le=\"10.0\"} 1\n"));
+        assertTrue(text.contains("http_server_requests_seconds_bucket{" + labels + ",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("http_server_requests_seconds_count{" + labels + "} 2\n"));
+    }
+
+    @Test
+    @DisplayName("Замер выражения DAO попадает в гистограмму по имени DAO и запроса")
+    void timeStatement_RecordsOnClose() {
+        // Act
+        try (var timer = metrics.timeStatement("TestDao", "findEverything")) {
+            assertNotNull(timer);
+        }
+
+        // Assert
+        assertTrue(metrics.scrape().contains(
+                "db_statement_seconds_count{dao=\"TestDao\",statement=\"findEverything\"} 1\n"));
+    }
+
+    @Test
+    @DisplayName("Кавычки и обратные слеши в значениях меток экранируются")
+    void scrape_EscapesLabelValues() {
+        // Act
+        metrics.recordRequest("Odd\"Name\\", "GET", 200, 1_000);
+        String text = metrics.scrape();
+
+        // Assert
+        assertTrue(text.contains("servlet=\"Odd\\\"Name\\\\\""));
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.routing;
+
+import org.example.cache.RateBook;
+import org.example.cache.RateBookHolder;
+import org.example.dao.CurrencyDao;
+import org.example.dao.ExchangeRateDao;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateRouterTest {
+
+    @Mock
+    private CurrencyDao currencyDao;
+    @Mock
+    private ExchangeRateDao exchangeRateDao;
+
+    private final Currency usd = new Currency(1, "USD", "US Dollar", "$");
+    private final Currency eur = new Currency(2, "EUR", "Euro", "€");
+    private final Currency gbp = new Currency(3, "GBP", "Pound", "£");
+    private final Currency chf = new Currency(4, "CHF", "Swiss franc", "Fr");
+    private final Currency aud = new Currency(5, "AUD", "Australian dollar", "A$");
+
+    private RateBookHolder holder;
+
+    @BeforeEach
+    void setUp() {
+        holder = new RateBookHolder(currencyDao, exchangeRateDao);
+    }
+
+    private RateBook givenRates(ExchangeRate... rates) {
+        when(currencyDao.findAll()).thenReturn(List.of(usd, eur, gbp, chf, aud));
+        when(exchangeRateDao.findAll()).thenReturn(List.of(rates));
+        holder.reload();
+        return holder.get();
+    }
+
+    @Test
+    @DisplayName("Прямой курс выбирается раньше любых кросс-курсов")
+    void findRoute_DirectRate_OneHop() {
+        RateBook book = givenRates(
+                new ExchangeRate(1, gbp, chf, new BigDecimal("1.12")),
+                new ExchangeRate(2, eur, gbp, new BigDecimal("0.85")),
+                new ExchangeRate(3, eur, chf, new BigDecimal("0.95"))
+        );
+        RateRouter router = new RateRouter(List.of("USD", "EUR"), 3, RoutingPolicy.FEWEST_HOPS);
+
+        Route route = router.findRoute(book, "GBP", "CHF").orElseThrow();
+
+        assertEquals(List.of("GBP", "CHF"), route.path());
+        assertEquals(new BigDecimal("1.12"), route.rate());
+    }
+
+    @Test
+    @DisplayName("Кросс-курс считается через EUR, если через USD пути нет")
+    void findRoute_CrossThroughEur() {
+        RateBook book = givenRates(
+                new ExchangeRate(1, eur, gbp, new BigDecimal("0.85")),
+                new ExchangeRate(2, eur, chf, new BigDecimal("0.95"))
+        );
+        RateRouter router = new RateRouter(List.of("USD", "EUR"), 2, RoutingPolicy.FEWEST_HOPS);
+
+        Route route = router.findRoute(book, "GBP", "CHF").orElseThrow();
+
+        assertEquals(List.of("GBP", "EUR", "CHF"), route.path());
+        // 0.95 / 0.85
+        assertEquals(new BigDecimal("1.1176470588"), route.rate());
+    }
+
+    @Test
+    @DisplayName("Маршрут из трёх шагов через две опорные валюты ограничен maxHops")
+    void findRoute_ThreeHops_RespectsMaxHops() {
+        RateBook book = givenRates(
+                new ExchangeRate(1, usd, aud, new BigDecimal("1.5")),
+                new ExchangeRate(2, usd, eur, new BigDecimal("0.9")),
+                new ExchangeRate(3, eur, chf, new BigDecimal("0.95"))
+        );
+
+        RateRouter threeHops = new RateRouter(List.of("USD", "EUR"), 3, RoutingPolicy.FEWEST_HOPS);
+        Route route = threeHops.findRoute(book, "AUD", "CHF").orElseThrow();
+        assertEquals(List.of("AUD", "USD", "EUR", "CHF"), route.path());
+        // 0.9 * 0.95 / 1.5
+        assertEquals(0, new BigDecimal("0.57").compareTo(route.rate()));
+
+        RateRouter twoHops = new RateRouter(List.of("USD", "EUR"), 2, RoutingPolicy.FEWEST_HOPS);
+        assertEquals(Optional.empty(), twoHops.findRoute(book, "AUD", "CHF"));
+    }
+
+    @Test
+    @DisplayName("Политика FRESHEST предпочитает более длинный маршрут со свежими курсами")
+    void findRoute_FreshestPolicy_PrefersFreshEdges() throws InterruptedException {
+        ExchangeRate eurGbp = new ExchangeRate(2, eur, gbp, new BigDecimal("0.85"));
+        ExchangeRate eurChf = new ExchangeRate(3, eur, chf, new BigDecimal("0.95"));
+        givenRates(new ExchangeRate(1, gbp, chf, new BigDecimal("1.12")), eurGbp, eurChf);
+
+        Thread.sleep(10);
+        holder.commitRate(() -> new ExchangeRate(2, eur, gbp, new BigDecimal("0.86")));
+        holder.commitRate(() -> new ExchangeRate(3, eur, chf, new BigDecimal("0.96")));
+        RateBook book = holder.get();
+
+        RateRouter freshest = new RateRouter(List.of("EUR"), 2, RoutingPolicy.FRESHEST);
+        assertEquals(List.of("GBP", "EUR", "CHF"), freshest.findRoute(book, "GBP", "CHF").orElseThrow().path());
+
+        RateRouter fewest = new RateRouter(List.of("EUR"), 2, RoutingPolicy.FEWEST_HOPS);
+        assertEquals(List.of("GBP", "CHF"), fewest.findRoute(book, "GBP", "CHF").orElseThrow().path());
+    }
+
+    @Test
+    @DisplayName("Для одинаковых валют маршрута нет")
+    void findRoute_SameCurrency_Empty() {
+        RateBook book = givenRates();
+        RateRouter router = new RateRouter(List.of("USD"), 2, RoutingPolicy.FEWEST_HOPS);
+
+        assertTrue(router.findRoute(book, "USD", "USD").isEmpty());
+    }
+}
@@ -1,21 +1,25 @@
 package org.example.service;
 
+import org.example.cache.RateBookHolder;
 import org.example.dao.CurrencyDao;
+import org.example.dao.ExchangeRateDao;
+import org.example.dao.PageQuery;
 import org.example.dto.CurrencyDto;
+import org.example.dto.PageDto;
 import org.example.entity.Currency;
 import org.example.exceptions.AlreadyExistsException;
 import org.example.exceptions.EntityNotFoundException;
 import org.example.exceptions.InvalidParameterException;
 import org.example.mapper.CurrencyMapper;
+import org.example.util.PageCursor;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.List;
-import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -27,12 +31,21 @@ class CurrencyServiceTest {
     @Mock
     private CurrencyDao currencyDAO;
 
+    @Mock
+    private ExchangeRateDao exchangeRateDAO;
+
     @Mock
     private CurrencyMapper currencyMapper;
 
-    @InjectMocks
+    private RateBookHolder rateBookHolder;
     private CurrencyService currencyService;
 
+    @BeforeEach
+    void setUp() {
+        rateBookHolder = new RateBookHolder(currencyDAO, exchangeRateDAO);
+        currencyService = new CurrencyServiceImpl(currencyDAO, currencyMapper, rateBookHolder);
+    }
+
     @Test
     @DisplayName("getAllCurrencies должен возвращать список DTO")
     void getAllCurrencies_ReturnsList() {
@@ -42,6 +55,7 @@ class CurrencyServiceTest {
 
         when(currencyDAO.findAll()).thenReturn(List.of(currency));
         when(currencyMapper.toDto(currency)).thenReturn(dto);
+        rateBookHolder.reload();
 
         // When
         List<CurrencyDto> result = currencyService.getAllCurrencies();
@@ -61,14 +75,16 @@ class CurrencyServiceTest {
         Currency currency = new Currency(2, code, "Euro", "€");
         CurrencyDto dto = new CurrencyDto(2, "Euro", code, "€");
 
-        when(currencyDAO.findByCode(code)).thenReturn(Optional.of(currency));
+        when(currencyDAO.findAll()).thenReturn(List.of(currency));
         when(currencyMapper.toDto(currency)).thenReturn(dto);
+        rateBookHolder.reload();
 
         // When
         CurrencyDto result = currencyService.findByCode(code);
 
         // Then
         assertEquals(code, result.getCode());
+        verify(currencyDAO, never()).findByCode(any());
     }
 
     @Test
@@ -76,14 +92,14 @@ class CurrencyServiceTest {
     void findByCode_NotFound_ThrowsException() {
         // Given
         String code = "NON";
-        when(currencyDAO.findByCode(code)).thenReturn(Optional.empty());
+        rateBookHolder.reload();
 
         // When & Then
         assertThrows(EntityNotFoundException.class, () -> currencyService.findByCode(code));
     }
 
     @Test
-    @DisplayName("addNewCurrency должен сохранять валюту при корректных данных")
+    @DisplayName("addNewCurrency должен сохранять валюту и сразу делать её видимой для чтения")
     void addNewCurrency_ValidData_SavesCurrency() {
         // Given
         String code = "GBP";
@@ -92,7 +108,6 @@ class CurrencyServiceTest {
         Currency savedCurrency = new Currency(3, code, name, sign);
         CurrencyDto expectedDto = new CurrencyDto(3, name, code, sign);
 
-        when(currencyDAO.findByCode(code)).thenReturn(Optional.empty());
         when(currencyDAO.save(any(Currency.class))).thenReturn(savedCurrency);
         when(currencyMapper.toDto(savedCurrency)).thenReturn(expectedDto);
 
@@ -103,6 +118,7 @@ class CurrencyServiceTest {
         assertNotNull(result);
         assertEquals(code, result.getCode());
         verify(currencyDAO).save(any(Currency.class));
+        assertTrue(rateBookHolder.get().findCurrency(code).isPresent());
     }
 
     @Test
@@ -122,7 +138,8 @@ class CurrencyServiceTest {
     void addNewCurrency_AlreadyExists_ThrowsException() {
         // Given
         String code = "USD";
-        when(currencyDAO.findByCode(code)).thenReturn(Optional.of(new Currency()));
+        when(currencyDAO.findAll()).thenReturn(List.of(new Currency(1, code, "US Dollar", "$")));
+        rateBookHolder.reload();
 
         // When & Then
         assertThrows(AlreadyExistsException.class,
@@ -130,4 +147,48 @@ class CurrencyServiceTest {
 
         verify(currencyDAO, never()).save(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("getCurrencyPage запрашивает на строку больше и отдаёт курсор по последнему элементу страницы")
+    void getCurrencyPage_MoreRows_ReturnsNextCursor() {
+        // Given
+        Currency aud = new Currency(3, "AUD", "Australian dollar", "A$");
+        Currency eur = new Currency(2, "EUR", "Euro", "€");
+        Currency usd = new Currency(1, "USD", "US Dollar", "$");
+        when(currencyDAO.findPage(any(PageQuery.class))).thenReturn(List.of(aud, eur, usd));
+        when(currencyMapper.toDto(any(Currency.class))).thenAnswer(invocation -> {
+            Currency currency = invocation.getArgument(0);
+            return new CurrencyDto(currency.getId(), currency.getFullName(), currency.getCode(), currency.getSign());
+        });
+
+        // When
+        PageDto<CurrencyDto> page = currencyService.getCurrencyPage(PageCursor.encode("AAA"), "a", 2);
+
+        // Then
+        assertEquals(List.of("AUD", "EUR"), page.getItems().stream().map(CurrencyDto::getCode).toList());
+        assertEquals("EUR", PageCursor.decode(page.getNextCursor()));
+        verify(currencyDAO).findPage(PageQuery.currencies("AAA", "A", 3));
+    }
+
+    @Test
+    @DisplayName("getCurrencyPage на последней странице не отдаёт курсор")
+    void getCurrencyPage_LastPage_NoCursor() {
+        // Given
+        when(currencyDAO.findPage(any(PageQuery.class))).thenReturn(List.of());
+
+        // When
+        PageDto<CurrencyDto> page = currencyService.getCurrencyPage(null, null, 10);
+
+        // Then
+        assertTrue(page.getItems().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    @DisplayName("getCurrencyPage отклоняет испорченный курсор и префикс не из букв")
+    void getCurrencyPage_InvalidInput_ThrowsException() {
+        assertThrows(InvalidParameterException.class, () -> currencyService.getCurrencyPage("!!!", null, 10));
+        assertThrows(InvalidParameterException.class, () -> currencyService.getCurrencyPage(null, "U1", 10));
+        verifyNoInteractions(currencyDAO);
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.service;
+
+import org.example.cache.RateBookHolder;
+import org.example.dto.ExchangeResultDto;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.mapper.CurrencyMapper;
+import org.example.routing.RateRouter;
+import org.example.routing.Route;
+import org.example.routing.RoutingPolicy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Свойство: быстрый расчёт на long даёт ровно то же, что прежний расчёт в BigDecimal
+// (значение и масштаб), для прямых, обратных и кросс-курсов и любых сумм, включая переполнение long.
+class ExchangeConversionPropertyTest {
+    private static final int SAMPLES = 50_000;
+    private static final List<String> CODES = List.of("USD", "EUR", "GBP", "CHF");
+
+    private final CurrencyMapper currencyMapper = mock(CurrencyMapper.class);
+    private final RateRouter router = new RateRouter(List.of("USD"), 2, RoutingPolicy.FEWEST_HOPS);
+
+    @Test
+    @DisplayName("Конвертация совпадает с эталоном BigDecimal HALF_UP бит в бит")
+    void exchange_MatchesBigDecimalReference() {
+        Random random = new Random(42L);
+        for (int i = 0; i < SAMPLES; i++) {
+            // Arrange — USD связан с каждой валютой в случайную сторону, остальные пары идут кросс-курсом
+            RateBookHolder holder = randomBook(random);
+            ExchangeService service = new ExchangeServiceImpl(holder, currencyMapper, router);
+            String from = CODES.get(random.nextInt(CODES.size()));
+            String to = CODES.get(random.nextInt(CODES.size()));
+            if (from.equals(to)) {
+                continue;
+            }
+            BigDecimal amount = randomAmount(random);
+            Route route = router.findRoute(holder.get(), from, to).orElseThrow();
+
+            // Act
+            ExchangeResultDto result = service.exchange(from, to, amount);
+
+            // Assert — эталон повторяет расчёт, который был до перехода на long
+            BigDecimal rate = route.rate();
+            String context = route.path() + " rate legs " + route.legs().stream()
+                    .map(leg -> leg.rate().getRate() + (leg.inverted() ? "^-1" : "")).toList() + " amount " + amount;
+            assertEquals(rate.setScale(6, RoundingMode.HALF_UP), result.getRate(), context);
+            assertEquals(amount.multiply(rate).setScale(2, RoundingMode.HALF_UP), result.getConvertedAmount(), context);
+        }
+    }
+
+    private RateBookHolder randomBook(Random random) {
+        RateBookHolder holder = new RateBookHolder(null, null);
+        Currency usd = null;
+        for (int i = 0; i < CODES.size(); i++) {
+            Currency currency = new Currency(i + 1, CODES.get(i), CODES.get(i), "¤");
+            holder.commitCurrency(() -> currency);
+            if (i == 0) {
+                usd = currency;
+                continue;
+            }
+            BigDecimal rate = randomRate(random);
+            holder.publishRate(random.nextBoolean()
+                    ? new ExchangeRate(i, usd, currency, rate)
+                    : new ExchangeRate(i, currency, usd, rate));
+        }
+        return holder;
+    }
+
+    // Обычные котировки вперемешку с крайними: длинные мантиссы, большой масштаб, отрицательный масштаб
+    private static BigDecimal randomRate(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> BigDecimal.valueOf(1 + random.nextInt(2_000_000), 6);
+            case 1 -> BigDecimal.valueOf(1 + random.nextLong(Long.MAX_VALUE - 1), random.nextInt(20));
+            case 2 -> BigDecimal.valueOf(1 + random.nextLong(1_000_000_000_000L), random.nextInt(12) - 3);
+            default -> new BigDecimal(new BigInteger(70, random).add(BigInteger.ONE), random.nextInt(15));
+        };
+    }
+
+    private static BigDecimal randomAmount(Random random) {
+        BigDecimal amount = switch (random.nextInt(4)) {
+            case 0 -> BigDecimal.valueOf(random.nextInt(1_000_000), random.nextInt(3));
+            case 1 -> BigDecimal.valueOf(random.nextLong(), random.nextInt(25) - 5);
+            case 2 -> new BigDecimal(new BigInteger(90, random), random.nextInt(10));
+            default -> BigDecimal.valueOf(random.nextLong(1_000_000_000_000L), random.nextInt(8));
+        };
+        return random.nextInt(10) == 0 ? amount.negate() : amount;
+    }
+}
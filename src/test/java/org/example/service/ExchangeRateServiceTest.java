@@ -1,28 +1,40 @@
 package org.example.service;
 
+import org.example.cache.RateBookHolder;
+import org.example.dao.CurrencyDao;
 import org.example.dao.ExchangeRateDao;
-import org.example.dto.CurrencyDto;
+import org.example.dao.RateBulkWriter;
 import org.example.dto.ExchangeRateDto;
+import org.example.dto.ImportErrorDto;
+import org.example.dto.ImportReportDto;
+import org.example.dto.RateImportLineDto;
+import org.example.entity.Currency;
 import org.example.entity.ExchangeRate;
 import org.example.exceptions.AlreadyExistsException;
+import org.example.exceptions.DatabaseException;
 import org.example.exceptions.EntityNotFoundException;
 import org.example.exceptions.InvalidParameterException;
 import org.example.mapper.ExchangeRateMapper;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ExchangeRateServiceTest {
@@ -30,23 +42,36 @@ class ExchangeRateServiceTest {
     @Mock
     private ExchangeRateDao exchangeRateDAO;
 
+    @Mock
+    private CurrencyDao currencyDAO;
+
     @Mock
     private ExchangeRateMapper exchangeRateMapper;
 
     @Mock
-    private CurrencyService currencyService;
+    private RateBulkWriter bulkWriter;
 
-    @InjectMocks
+    private RateBookHolder rateBookHolder;
     private ExchangeRateService exchangeRateService;
 
+    private final Currency usd = new Currency(1, "USD", "US Dollar", "$");
+    private final Currency eur = new Currency(2, "EUR", "Euro", "€");
+
+    @BeforeEach
+    void setUp() {
+        rateBookHolder = new RateBookHolder(currencyDAO, exchangeRateDAO);
+        exchangeRateService = new ExchangeRateServiceImpl(exchangeRateDAO, exchangeRateMapper, rateBookHolder);
+    }
+
     @Test
     @DisplayName("Должен вернуть список всех курсов валют")
     void getAllExchangeRates_ReturnsList() {
         // Arrange
-        ExchangeRate entity = new ExchangeRate();
+        ExchangeRate entity = new ExchangeRate(1, usd, eur, new BigDecimal("0.99"));
         ExchangeRateDto dto = new ExchangeRateDto();
         when(exchangeRateDAO.findAll()).thenReturn(List.of(entity));
         when(exchangeRateMapper.toDto(entity)).thenReturn(dto);
+        rateBookHolder.reload();
 
         // Act
         List<ExchangeRateDto> result = exchangeRateService.getAllExchangeRates();
@@ -56,11 +81,39 @@ class ExchangeRateServiceTest {
         verify(exchangeRateDAO).findAll();
     }
 
+    @Test
+    @DisplayName("Курс на момент времени читается из истории, а не из текущего снимка")
+    void getExchangeRateByCodesAt_ReadsHistory() {
+        // Arrange
+        long at = 1_700_000_000_000L;
+        ExchangeRate historical = new ExchangeRate(1, usd, eur, new BigDecimal("0.95"));
+        ExchangeRateDto dto = new ExchangeRateDto();
+        dto.setRate(historical.getRate());
+        when(exchangeRateDAO.findByCurrencyCodesAt("USD", "EUR", at)).thenReturn(Optional.of(historical));
+        when(exchangeRateMapper.toDto(historical)).thenReturn(dto);
+
+        // Act
+        ExchangeRateDto result = exchangeRateService.getExchangeRateByCodesAt("USD", "EUR", at);
+
+        // Assert
+        assertEquals(new BigDecimal("0.95"), result.getRate());
+        verify(exchangeRateDAO, never()).findAll();
+    }
+
+    @Test
+    @DisplayName("Должен выбросить исключение, если на момент времени курса ещё не было")
+    void getExchangeRateByCodesAt_BeforeFirstTick_ThrowsException() {
+        when(exchangeRateDAO.findByCurrencyCodesAt("USD", "EUR", 0L)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> exchangeRateService.getExchangeRateByCodesAt("USD", "EUR", 0L));
+    }
+
     @Test
     @DisplayName("Должен выбросить исключение, если курс не найден по кодам")
     void getExchangeRateByCodes_NotFound_ThrowsException() {
         // Arrange
-        when(exchangeRateDAO.findByCurrencyCodes("USD", "EUR")).thenReturn(Optional.empty());
+        rateBookHolder.reload();
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class,
@@ -72,13 +125,14 @@ class ExchangeRateServiceTest {
     @DisplayName("Должен выбросить исключение при добавлении дубликата курса")
     void addExchangeRate_AlreadyExists_ThrowsException() {
         // Arrange
-        when(currencyService.findByCode("USD")).thenReturn(new CurrencyDto());
-        when(currencyService.findByCode("EUR")).thenReturn(new CurrencyDto());
-        when(exchangeRateDAO.findByCurrencyCodes("USD", "EUR")).thenReturn(Optional.of(new ExchangeRate()));
+        when(currencyDAO.findAll()).thenReturn(List.of(usd, eur));
+        when(exchangeRateDAO.findAll()).thenReturn(List.of(new ExchangeRate(1, usd, eur, BigDecimal.ONE)));
+        rateBookHolder.reload();
 
         // Act & Assert
         assertThrows(AlreadyExistsException.class,
                 () -> exchangeRateService.addExchangeRate("USD", "EUR", BigDecimal.ONE));
+        verify(exchangeRateDAO, never()).save(any());
     }
 
     @Test
@@ -97,18 +151,16 @@ class ExchangeRateServiceTest {
         String target = "EUR";
         BigDecimal newRate = new BigDecimal("0.95");
 
-        // Подготавливаем сущность, которую якобы нашли в базе
-        ExchangeRate existingEntity = new ExchangeRate();
-        existingEntity.setId(1);
+        // Пара уже лежит в снимке курсов
+        when(exchangeRateDAO.findAll()).thenReturn(List.of(new ExchangeRate(1, usd, eur, new BigDecimal("0.99"))));
+        rateBookHolder.reload();
 
-        // Настраиваем моки под НОВУЮ логику сервиса
-        when(exchangeRateDAO.findByCurrencyCodes(base, target)).thenReturn(Optional.of(existingEntity));
-        when(exchangeRateDAO.update(existingEntity)).thenReturn(true);
+        when(exchangeRateDAO.update(any(ExchangeRate.class))).thenReturn(true);
 
         // Настраиваем маппер, чтобы он вернул DTO с новым курсом
         ExchangeRateDto expectedDto = new ExchangeRateDto();
         expectedDto.setRate(newRate.setScale(2, RoundingMode.HALF_UP));
-        when(exchangeRateMapper.toDto(existingEntity)).thenReturn(expectedDto);
+        when(exchangeRateMapper.toDto(any(ExchangeRate.class))).thenReturn(expectedDto);
 
         // Act
         ExchangeRateDto result = exchangeRateService.updateExchangeRate(base, target, newRate);
@@ -116,8 +168,14 @@ class ExchangeRateServiceTest {
         // Assert
         assertNotNull(result);
         assertEquals(newRate.setScale(2, RoundingMode.HALF_UP), result.getRate());
-        verify(exchangeRateDAO).findByCurrencyCodes(base, target);
-        verify(exchangeRateDAO).update(existingEntity);
+
+        ArgumentCaptor<ExchangeRate> captor = ArgumentCaptor.forClass(ExchangeRate.class);
+        verify(exchangeRateDAO).update(captor.capture());
+        assertEquals(1, captor.getValue().getId());
+        assertEquals(newRate, captor.getValue().getRate());
+
+        // Новый курс сразу виден читателям снимка
+        assertEquals(newRate, rateBookHolder.get().findRate(base, target).orElseThrow().getRate());
     }
 
     @Test
@@ -126,17 +184,117 @@ class ExchangeRateServiceTest {
         // Arrange
         String base = "USD";
         String target = "EUR";
-
-        // Теперь сервис падает здесь, если пара не найдена в базе
-        when(exchangeRateDAO.findByCurrencyCodes(base, target)).thenReturn(Optional.empty());
+        rateBookHolder.reload();
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class,
                 () -> exchangeRateService.updateExchangeRate(base, target, BigDecimal.ONE));
 
         // Проверяем, что до самого апдейта дело даже не дошло
-        verify(exchangeRateDAO).findByCurrencyCodes(base, target);
+        verify(exchangeRateDAO, never()).update(any());
     }
 
+    @Test
+    @DisplayName("Массовая загрузка пишет валидные строки пачкой и отчитывается по ошибочным")
+    void importExchangeRates_ReportsBadLines() {
+        // Arrange
+        when(currencyDAO.findAll()).thenReturn(List.of(usd, eur));
+        rateBookHolder.reload();
+        when(exchangeRateDAO.openBulkWriter(anyInt())).thenReturn(bulkWriter);
+
+        List<RateImportLineDto> lines = List.of(
+                new RateImportLineDto(1, "USD", "EUR", "0.9", null),
+                new RateImportLineDto(2, "usd", "XXX", "1.1", null),
+                RateImportLineDto.malformed(3, "Expected 3 comma-separated fields: base,target,rate"),
+                new RateImportLineDto(4, "EUR", "USD", "abc", null),
+                new RateImportLineDto(5, "EUR", "USD", "1.1", null)
+        );
+
+        // Act
+        ImportReportDto report = exchangeRateService.importExchangeRates(lines.iterator());
+
+        // Assert
+        assertEquals(2, report.getImported());
+        assertEquals(3, report.getFailed());
+        assertEquals(List.of(2, 3, 4), report.getErrors().stream().map(ImportErrorDto::getLine).toList());
+        verify(bulkWriter, times(2)).add(any(ExchangeRate.class));
+        verify(bulkWriter).commit();
+        verify(bulkWriter).close();
+        // После коммита снимок перечитывается целиком
+        verify(exchangeRateDAO, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("Пока строки загрузки читаются из запроса, ни снимок, ни соединение писателя не заняты")
+    void importExchangeRates_ReadsLinesWithoutLocks() {
+        // Arrange
+        when(currencyDAO.findAll()).thenReturn(List.of(usd, eur));
+        rateBookHolder.reload();
+        AtomicBoolean writerOpen = new AtomicBoolean();
+        when(exchangeRateDAO.openBulkWriter(anyInt())).thenAnswer(invocation -> {
+            writerOpen.set(true);
+            return bulkWriter;
+        });
+        doAnswer(invocation -> {
+            writerOpen.set(false);
+            return null;
+        }).when(bulkWriter).close();
+        Iterator<RateImportLineDto> source = List.of(
+                new RateImportLineDto(1, "USD", "EUR", "0.9", null),
+                new RateImportLineDto(2, "EUR", "USD", "1.1", null)
+        ).iterator();
+        List<Boolean> holderLocked = new ArrayList<>();
+        List<Boolean> writerHeld = new ArrayList<>();
+        Iterator<RateImportLineDto> lines = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public RateImportLineDto next() {
+                holderLocked.add(Thread.holdsLock(rateBookHolder));
+                writerHeld.add(writerOpen.get());
+                return source.next();
+            }
+        };
 
-}
\ No newline at end of file
+        // Act
+        ImportReportDto report = exchangeRateService.importExchangeRates(lines);
+
+        // Assert
+        assertEquals(2, report.getImported());
+        assertEquals(List.of(false, false), holderLocked);
+        assertEquals(List.of(false, false), writerHeld);
+        assertFalse(writerOpen.get());
+        verify(bulkWriter).commit();
+        verify(exchangeRateDAO, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("Сбой записи пачки посреди загрузки: отчёт говорит, сколько строк закоммичено и до какой строки")
+    void importExchangeRates_ChunkFailure_ReportsCommittedPart() {
+        // Arrange — 1500 строк при import.chunkSize=1000: первая пачка записывается, вторая падает
+        when(currencyDAO.findAll()).thenReturn(List.of(usd, eur));
+        rateBookHolder.reload();
+        when(exchangeRateDAO.openBulkWriter(anyInt())).thenReturn(bulkWriter);
+        doNothing().doThrow(new DatabaseException("disk full")).when(bulkWriter).commit();
+        List<RateImportLineDto> lines = new ArrayList<>();
+        for (int line = 1; line <= 1500; line++) {
+            lines.add(line % 2 == 0
+                    ? new RateImportLineDto(line, "USD", "EUR", "0.9", null)
+                    : new RateImportLineDto(line, "EUR", "USD", "1.1", null));
+        }
+
+        // Act
+        ImportReportDto report = exchangeRateService.importExchangeRates(lines.iterator());
+
+        // Assert
+        assertEquals(1000, report.getImported());
+        assertEquals(1000, report.getLastCommittedLine());
+        assertEquals("Database error: disk full", report.getAbortedReason());
+        verify(bulkWriter, times(2)).close();
+        // Снимок перечитан, чтобы совпадать с закоммиченной частью
+        verify(exchangeRateDAO, times(2)).findAll();
+    }
+}
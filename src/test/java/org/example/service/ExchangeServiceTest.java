@@ -1,42 +1,64 @@
 package org.example.service;
 
-import org.example.dto.CurrencyDto;
-import org.example.dto.ExchangeRateDto;
+import org.example.cache.RateBookHolder;
+import org.example.dao.CurrencyDao;
+import org.example.dao.ExchangeRateDao;
 import org.example.dto.ExchangeResultDto;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
 import org.example.exceptions.EntityNotFoundException;
 import org.example.exceptions.InvalidParameterException;
+import org.example.mapper.CurrencyMapper;
+import org.example.routing.RateRouter;
+import org.example.routing.RoutingPolicy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mapstruct.factory.Mappers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ExchangeServiceTest {
 
     @Mock
-    private CurrencyService currencyService;
+    private CurrencyDao currencyDao;
     @Mock
-    private ExchangeRateService exchangeRateService;
+    private ExchangeRateDao exchangeRateDao;
 
-    @InjectMocks
+    private RateBookHolder rateBookHolder;
     private ExchangeService exchangeService;
 
-    private CurrencyDto usd;
-    private CurrencyDto eur;
+    private Currency usd;
+    private Currency eur;
+    private Currency gbp;
 
     @BeforeEach
     void setUp() {
-        usd = new CurrencyDto(1, "USD", "US Dollar", "$");
-        eur = new CurrencyDto(2, "EUR", "Euro", "€");
+        usd = new Currency(1, "USD", "US Dollar", "$");
+        eur = new Currency(2, "EUR", "Euro", "€");
+        gbp = new Currency(3, "GBP", "Pound", "£");
+    }
+
+    private void givenRates(ExchangeRate... rates) {
+        when(currencyDao.findAll()).thenReturn(List.of(usd, eur, gbp));
+        when(exchangeRateDao.findAll()).thenReturn(List.of(rates));
+
+        rateBookHolder = new RateBookHolder(currencyDao, exchangeRateDao);
+        rateBookHolder.reload();
+        exchangeService = new ExchangeServiceImpl(
+                rateBookHolder,
+                Mappers.getMapper(CurrencyMapper.class),
+                new RateRouter(List.of("USD"), 2, RoutingPolicy.FEWEST_HOPS)
+        );
     }
 
     @Test
@@ -44,11 +66,7 @@ class ExchangeServiceTest {
         // Arrange
         BigDecimal rate = new BigDecimal("0.91");
         BigDecimal amount = new BigDecimal("100");
-
-        when(currencyService.findByCode("USD")).thenReturn(usd);
-        when(currencyService.findByCode("EUR")).thenReturn(eur);
-        when(exchangeRateService.findByCodes("USD", "EUR"))
-                .thenReturn(Optional.of(new ExchangeRateDto(1, usd, eur, rate)));
+        givenRates(new ExchangeRate(1, usd, eur, rate));
 
         // Act
         ExchangeResultDto result = exchangeService.exchange("USD", "EUR", amount);
@@ -56,7 +74,8 @@ class ExchangeServiceTest {
         // Assert
         assertEquals(0, new BigDecimal("0.910000").compareTo(result.getRate()));
         assertEquals(0, new BigDecimal("91.00").compareTo(result.getConvertedAmount()));
-        verify(exchangeRateService, times(1)).findByCodes("USD", "EUR");
+        assertEquals("USD", result.getBaseCurrency().getCode());
+        assertEquals("EUR", result.getTargetCurrency().getCode());
     }
 
     @Test
@@ -64,12 +83,7 @@ class ExchangeServiceTest {
         // Arrange
         BigDecimal reverseRate = new BigDecimal("2.0"); // EUR/USD = 2.0
         BigDecimal amount = new BigDecimal("10");
-
-        when(currencyService.findByCode("USD")).thenReturn(usd);
-        when(currencyService.findByCode("EUR")).thenReturn(eur);
-        when(exchangeRateService.findByCodes("USD", "EUR")).thenReturn(Optional.empty());
-        when(exchangeRateService.findByCodes("EUR", "USD"))
-                .thenReturn(Optional.of(new ExchangeRateDto(1, eur, usd, reverseRate)));
+        givenRates(new ExchangeRate(1, eur, usd, reverseRate));
 
         // Act
         ExchangeResultDto result = exchangeService.exchange("USD", "EUR", amount);
@@ -83,21 +97,15 @@ class ExchangeServiceTest {
     @Test
     void exchange_CrossRate_CalculatesThroughUsd() {
         // Arrange
-        CurrencyDto gbp = new CurrencyDto(3, "GBP", "Pound", "£");
         BigDecimal usdToEur = new BigDecimal("0.9");
         BigDecimal usdToGbp = new BigDecimal("0.8");
         BigDecimal amount = new BigDecimal("100");
 
-        when(currencyService.findByCode("EUR")).thenReturn(eur);
-        when(currencyService.findByCode("GBP")).thenReturn(gbp);
-
-        // Прямого и обратного нет
-        when(exchangeRateService.findByCodes("EUR", "GBP")).thenReturn(Optional.empty());
-        when(exchangeRateService.findByCodes("GBP", "EUR")).thenReturn(Optional.empty());
-
-        // Кросс-курсы через USD
-        when(exchangeRateService.findByCodes("USD", "EUR")).thenReturn(Optional.of(new ExchangeRateDto(1, usd, eur, usdToEur)));
-        when(exchangeRateService.findByCodes("USD", "GBP")).thenReturn(Optional.of(new ExchangeRateDto(2, usd, gbp, usdToGbp)));
+        // Прямого и обратного нет, только кросс-курсы через USD
+        givenRates(
+                new ExchangeRate(1, usd, eur, usdToEur),
+                new ExchangeRate(2, usd, gbp, usdToGbp)
+        );
 
         // Act
         ExchangeResultDto result = exchangeService.exchange("EUR", "GBP", amount);
@@ -105,10 +113,13 @@ class ExchangeServiceTest {
         // Assert
         // Rate = 0.8 / 0.9 = 0.888889
         assertEquals(0, new BigDecimal("0.888889").compareTo(result.getRate()));
+        assertEquals(List.of("EUR", "USD", "GBP"), result.getPath());
     }
 
     @Test
     void exchange_InvalidCodes_ThrowsException() {
+        givenRates();
+
         assertThrows(InvalidParameterException.class, () ->
                 exchangeService.exchange("US", "EUROPE", BigDecimal.TEN)
         );
@@ -116,11 +127,71 @@ class ExchangeServiceTest {
 
     @Test
     void exchange_RateNotFound_ThrowsEntityNotFoundException() {
-        when(currencyService.findByCode(anyString())).thenReturn(usd);
-        when(exchangeRateService.findByCodes(anyString(), anyString())).thenReturn(Optional.empty());
+        givenRates();
 
         assertThrows(EntityNotFoundException.class, () ->
-                exchangeService.exchange("AAA", "BBB", BigDecimal.TEN)
+                exchangeService.exchange("EUR", "GBP", BigDecimal.TEN)
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    void exchange_DoesNotQueryDatabasePerRequest() {
+        givenRates(new ExchangeRate(1, usd, eur, new BigDecimal("0.91")));
+
+        exchangeService.exchange("USD", "EUR", BigDecimal.TEN);
+        exchangeService.exchange("EUR", "USD", BigDecimal.TEN);
+
+        verify(currencyDao, never()).findByCode(anyString());
+        verify(exchangeRateDao, never()).findByCurrencyCodes(anyString(), anyString());
+    }
+
+    @Test
+    void exchange_AtInstant_UsesHistoricalRates() {
+        // Arrange
+        long at = 1_700_000_000_000L;
+        givenRates(new ExchangeRate(1, usd, eur, new BigDecimal("0.91")));
+        // USD — сама опорная валюта, поэтому из истории читаются только прямая и обратная пары
+        when(exchangeRateDao.findByPairKeysAt(List.of("USDEUR", "EURUSD"), at))
+                .thenReturn(List.of(new ExchangeRate(1, usd, eur, new BigDecimal("0.80"))));
+
+        // Act
+        ExchangeResultDto historical = exchangeService.exchange("USD", "EUR", BigDecimal.TEN, at);
+        ExchangeResultDto current = exchangeService.exchange("USD", "EUR", BigDecimal.TEN);
+
+        // Assert
+        assertEquals(0, new BigDecimal("8.00").compareTo(historical.getConvertedAmount()));
+        assertEquals(0, new BigDecimal("9.10").compareTo(current.getConvertedAmount()));
+    }
+
+    @Test
+    void exchange_AtInstant_CrossRate_ReadsOnlyPivotLegs() {
+        // Arrange
+        long at = 1_700_000_000_000L;
+        givenRates(new ExchangeRate(1, usd, eur, new BigDecimal("0.91")), new ExchangeRate(2, usd, gbp, new BigDecimal("0.79")));
+        when(exchangeRateDao.findByPairKeysAt(
+                List.of("EURGBP", "EURUSD", "GBPEUR", "GBPUSD", "USDEUR", "USDGBP"), at))
+                .thenReturn(List.of(
+                        new ExchangeRate(1, usd, eur, new BigDecimal("0.80")),
+                        new ExchangeRate(2, usd, gbp, new BigDecimal("0.40"))));
+
+        // Act
+        ExchangeResultDto result = exchangeService.exchange("EUR", "GBP", BigDecimal.TEN, at);
+
+        // Assert
+        assertEquals(0, new BigDecimal("5.00").compareTo(result.getConvertedAmount()));
+        assertEquals(List.of("EUR", "USD", "GBP"), result.getPath());
+    }
+
+    @Test
+    void startBatch_UsesOneSnapshotForAllItems() {
+        givenRates(new ExchangeRate(1, usd, eur, new BigDecimal("0.91")));
+
+        BatchExchange batch = exchangeService.startBatch();
+        rateBookHolder.commitRate(() -> new ExchangeRate(1, usd, eur, new BigDecimal("0.50")));
+
+        // Пакет продолжает считать по снимку, взятому при старте
+        assertEquals(0, new BigDecimal("9.10").compareTo(batch.exchange("USD", "EUR", BigDecimal.TEN).getConvertedAmount()));
+        // Одиночный запрос видит новый курс
+        assertEquals(0, new BigDecimal("5.00").compareTo(exchangeService.exchange("USD", "EUR", BigDecimal.TEN).getConvertedAmount()));
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.service;
+
+import org.example.cache.RateBookHolder;
+import org.example.cache.RateBookListener;
+import org.example.dao.CurrencyDao;
+import org.example.dao.ExchangeRateDao;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.exceptions.DatabaseException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateUpdatePipelineTest {
+
+    @Mock
+    private CurrencyDao currencyDao;
+    @Mock
+    private ExchangeRateDao exchangeRateDao;
+
+    private final Currency usd = new Currency(1, "USD", "US Dollar", "$");
+    private final Currency eur = new Currency(2, "EUR", "Euro", "€");
+
+    private RateBookHolder holder;
+
+    @BeforeEach
+    void setUp() {
+        when(currencyDao.findAll()).thenReturn(List.of(usd, eur));
+        when(exchangeRateDao.findAll()).thenReturn(List.of(new ExchangeRate(1, usd, eur, BigDecimal.ONE)));
+        holder = new RateBookHolder(currencyDao, exchangeRateDao);
+        holder.reload();
+    }
+
+    private ExchangeRate usdEur(int rate) {
+        return new ExchangeRate(1, usd, eur, BigDecimal.valueOf(rate));
+    }
+
+    @Test
+    @DisplayName("Обновления одной пары схлопываются, в БД уходит последнее значение")
+    @SuppressWarnings("unchecked")
+    void submit_SamePair_LastValueWins() {
+        // Given
+        RateUpdatePipeline pipeline = new RateUpdatePipeline(holder, exchangeRateDao, 1_000, 10, 100,
+                RateUpdatePipeline.Durability.ACK_ON_ENQUEUE);
+
+        // When
+        for (int i = 1; i <= 50; i++) {
+            pipeline.submit(usdEur(i));
+            // Читатели снимка видят принятое значение сразу
+            assertEquals(BigDecimal.valueOf(i), holder.get().findRate("USD", "EUR").orElseThrow().getRate());
+        }
+        pipeline.close();
+
+        // Then
+        ArgumentCaptor<Collection<ExchangeRate>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(exchangeRateDao, times(1)).updateAll(captor.capture());
+        assertEquals(1, captor.getValue().size());
+        assertEquals(BigDecimal.valueOf(50), captor.getValue().iterator().next().getRate());
+    }
+
+    @Test
+    @DisplayName("В режиме ACK_ON_COMMIT ошибка записи возвращается вызывающему, снимок перечитывается")
+    void submit_AckOnCommit_PropagatesFailure() {
+        // Given
+        doThrow(new DatabaseException("disk full")).when(exchangeRateDao).updateAll(any());
+        RateUpdatePipeline pipeline = new RateUpdatePipeline(holder, exchangeRateDao, 10, 10, 100,
+                RateUpdatePipeline.Durability.ACK_ON_COMMIT);
+
+        // When / Then
+        assertThrows(DatabaseException.class, () -> pipeline.submit(usdEur(7)));
+        assertEquals(BigDecimal.ONE, holder.get().findRate("USD", "EUR").orElseThrow().getRate());
+        pipeline.close();
+    }
+
+    @Test
+    @DisplayName("Перечитывание снимка не откатывает принятое, но ещё не записанное обновление")
+    void reload_PendingUpdate_KeepsAcceptedValue() {
+        // Given
+        RateUpdatePipeline pipeline = new RateUpdatePipeline(holder, exchangeRateDao, 60_000, 10, 100,
+                RateUpdatePipeline.Durability.ACK_ON_ENQUEUE);
+        ExchangeRate accepted = usdEur(7);
+        pipeline.submit(accepted);
+
+        // When
+        holder.reload();
+
+        // Then
+        assertEquals(BigDecimal.valueOf(7), holder.get().findRate("USD", "EUR").orElseThrow().getRate());
+        pipeline.close();
+        verify(exchangeRateDao).updateAll(List.of(accepted));
+        // После коммита значение больше не накладывается: снимок совпадает с БД
+        holder.reload();
+        assertEquals(BigDecimal.ONE, holder.get().findRate("USD", "EUR").orElseThrow().getRate());
+    }
+
+    @Test
+    @DisplayName("О закоммиченном курсе слушатели узнают после записи пачки, о непринятом БД — никогда")
+    void flush_NotifiesCommittedOnlyAfterWrite() {
+        // Given
+        List<ExchangeRate> committed = new CopyOnWriteArrayList<>();
+        holder.addListener(new RateBookListener() {
+            @Override
+            public void onRateCommitted(ExchangeRate rate) {
+                committed.add(rate);
+            }
+        });
+        RateUpdatePipeline pipeline = new RateUpdatePipeline(holder, exchangeRateDao, 60_000, 10, 100,
+                RateUpdatePipeline.Durability.ACK_ON_ENQUEUE);
+        ExchangeRate accepted = usdEur(7);
+
+        // When
+        pipeline.submit(accepted);
+        List<ExchangeRate> beforeFlush = List.copyOf(committed);
+        pipeline.close();
+
+        // Then
+        assertEquals(List.of(), beforeFlush);
+        assertEquals(List.of(accepted), committed);
+    }
+
+    @Test
+    @DisplayName("Курс из пачки, которую БД не приняла, не считается закоммиченным")
+    void flush_Failure_NoCommittedEvent() {
+        // Given
+        doThrow(new DatabaseException("disk full")).when(exchangeRateDao).updateAll(any());
+        List<ExchangeRate> committed = new CopyOnWriteArrayList<>();
+        holder.addListener(new RateBookListener() {
+            @Override
+            public void onRateCommitted(ExchangeRate rate) {
+                committed.add(rate);
+            }
+        });
+        RateUpdatePipeline pipeline = new RateUpdatePipeline(holder, exchangeRateDao, 10, 10, 100,
+                RateUpdatePipeline.Durability.ACK_ON_COMMIT);
+
+        // When / Then
+        assertThrows(DatabaseException.class, () -> pipeline.submit(usdEur(7)));
+        pipeline.close();
+        assertTrue(committed.isEmpty());
+    }
+}
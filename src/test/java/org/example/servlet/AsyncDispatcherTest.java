@@ -0,0 +1,194 @@
+package org.example.servlet;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncDispatcherTest {
+
+    @Mock
+    private HttpServletRequest request;
+
+    @Mock
+    private HttpServletResponse response;
+
+    @Mock
+    private AsyncContext asyncContext;
+
+    private AsyncDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.close();
+    }
+
+    @Test
+    @DisplayName("Обработчик выполняется на виртуальном потоке, после него AsyncContext завершается")
+    void dispatch_RunsHandlerOnVirtualThread() throws Exception {
+        // Arrange
+        dispatcher = new AsyncDispatcher(4, 1_000, 30_000);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        CompletableFuture<Boolean> virtual = new CompletableFuture<>();
+
+        // Act
+        dispatcher.dispatch(request, response, () -> virtual.complete(Thread.currentThread().isVirtual()));
+
+        // Assert
+        assertTrue(virtual.get(1, TimeUnit.SECONDS));
+        verify(asyncContext, timeout(1_000)).complete();
+        // Срок отсчитывает таймер диспетчера, таймаут контейнера выключен
+        verify(asyncContext).setTimeout(0);
+    }
+
+    @Test
+    @DisplayName("Когда все разрешения заняты, запрос после ожидания получает 503")
+    void dispatch_NoPermits_RespondsServiceUnavailable() throws Exception {
+        // Arrange — единственное разрешение занято обработчиком, который ждёт защёлку
+        dispatcher = new AsyncDispatcher(1, 50, 30_000);
+        HttpServletRequest busyRequest = mock(HttpServletRequest.class);
+        HttpServletResponse busyResponse = mock(HttpServletResponse.class);
+        AsyncContext busyContext = mock(AsyncContext.class);
+        when(busyRequest.startAsync(busyRequest, busyResponse)).thenReturn(busyContext);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        StringWriter body = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(body));
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch(busyRequest, busyResponse, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        // Act
+        dispatcher.dispatch(request, response, () -> fail("Handler must not run without a permit"));
+
+        // Assert
+        verify(asyncContext, timeout(1_000)).complete();
+        verify(response).setStatus(503);
+        verify(response).setHeader("Retry-After", "1");
+        assertTrue(body.toString().contains("Too many requests in flight"));
+
+        release.countDown();
+        verify(busyContext, timeout(1_000)).complete();
+    }
+
+    @Test
+    @DisplayName("Срок истёк, пока запрос ждал разрешения: 503 отдаёт таймер, обработчик не запускается")
+    void dispatch_ExpiresWhileQueued_TimerRespondsServiceUnavailable() throws Exception {
+        // Arrange — единственное разрешение занято, ожидание разрешения дольше срока запроса
+        dispatcher = new AsyncDispatcher(1, 5_000, 50);
+        HttpServletRequest busyRequest = mock(HttpServletRequest.class);
+        HttpServletResponse busyResponse = mock(HttpServletResponse.class);
+        AsyncContext busyContext = mock(AsyncContext.class);
+        when(busyRequest.startAsync(busyRequest, busyResponse)).thenReturn(busyContext);
+        // Срок занявшего разрешение обработчика тоже выходит — по окончании он отвечает 503
+        when(busyResponse.getWriter()).thenReturn(new PrintWriter(new StringWriter()));
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        StringWriter body = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(body));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch(busyRequest, busyResponse, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+
+        // Act
+        dispatcher.dispatch(request, response, () -> fail("Handler must not run after its deadline"));
+
+        // Assert
+        verify(asyncContext, timeout(1_000)).complete();
+        verify(response).setStatus(503);
+        assertTrue(body.toString().contains("Request timed out waiting for execution"));
+
+        release.countDown();
+        verify(busyContext, timeout(1_000)).complete();
+    }
+
+    @Test
+    @DisplayName("Срок истёк, пока обработчик работал: он доделывает работу и отвечает 503")
+    void dispatch_ExpiresWhileRunning_HandlerRespondsServiceUnavailable() throws Exception {
+        // Arrange
+        dispatcher = new AsyncDispatcher(4, 1_000, 50);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        StringWriter body = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(body));
+        CountDownLatch finished = new CountDownLatch(1);
+
+        // Act
+        dispatcher.dispatch(request, response, () -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            finished.countDown();
+        });
+
+        // Assert — до конца обработчика запрос не завершается
+        assertTrue(finished.await(1, TimeUnit.SECONDS));
+        verify(asyncContext, timeout(1_000)).complete();
+        verify(response).setStatus(503);
+        assertTrue(body.toString().contains("Request timed out"));
+    }
+
+    @Test
+    @DisplayName("Ошибка соединения при работающем обработчике держит поток контейнера не дольше errorWaitMs")
+    void onError_RunningHandler_WaitIsBounded() throws Exception {
+        // Arrange
+        dispatcher = new AsyncDispatcher(4, 1_000, 30_000, 50);
+        when(request.startAsync(request, response)).thenReturn(asyncContext);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        dispatcher.dispatch(request, response, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        ArgumentCaptor<AsyncListener> listener = ArgumentCaptor.forClass(AsyncListener.class);
+        verify(asyncContext).addListener(listener.capture());
+
+        // Act
+        long startedAt = System.nanoTime();
+        listener.getValue().onError(null);
+        long waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        // Assert
+        assertTrue(waitedMs < 1_000, "waited " + waitedMs + " ms");
+        release.countDown();
+        verify(asyncContext, timeout(1_000)).complete();
+    }
+}
@@ -0,0 +1,133 @@
+package org.example.snapshot;
+
+import org.example.cache.RateBook;
+import org.example.cache.RateBookHolder;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RateSnapshotFileTest {
+
+    @Mock
+    private RateBookHolder holder;
+
+    private final Currency usd = new Currency(1, "USD", "US Dollar", "$");
+    private final Currency eur = new Currency(2, "EUR", "Euro", "€");
+    private final Currency gbp = new Currency(3, "GBP", "Pound Sterling", "£");
+
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("rate-snapshot");
+        file = directory.resolve("rates.bin");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private ExchangeRate rate(Currency base, Currency target, String rate) {
+        return new ExchangeRate(0, base, target, new BigDecimal(rate));
+    }
+
+    // close() дописывает отложенное изменение, так что после него файл содержит переданный снимок
+    private void publish(RateBook book) {
+        when(holder.get()).thenReturn(book);
+        new RateSnapshotWriter(holder, file, 0).close();
+    }
+
+    @Test
+    @DisplayName("Записанный снимок читается: прямой курс из матрицы, обратный — через прямую котировку")
+    void write_ThenRead_DirectAndInverseRates() throws IOException {
+        // Arrange
+        publish(RateBook.of(7, List.of(usd, eur, gbp), List.of(rate(usd, eur, "0.9"), rate(gbp, usd, "1.25"))));
+
+        // Act
+        RateSnapshotReader reader = RateSnapshotReader.open(file);
+
+        // Assert
+        assertEquals(7, reader.getVersion());
+        assertEquals(3, reader.getCurrencyCount());
+        assertEquals(0.9, reader.rate("USD", "EUR"));
+        assertEquals(1 / 0.9, reader.rate("EUR", "USD"));
+        assertEquals(1.25, reader.rate("GBP", "USD"));
+        assertEquals(1 / 1.25, reader.rate("USD", "GBP"));
+        assertEquals(reader.rate("USD", "EUR"), reader.rate(reader.indexOf("USD"), reader.indexOf("EUR")));
+    }
+
+    @Test
+    @DisplayName("Неизвестная валюта и пара без котировки дают NaN, кросс-курсы не вычисляются")
+    void rate_UnknownOrMissing_NaN() throws IOException {
+        // Arrange
+        publish(RateBook.of(1, List.of(usd, eur, gbp), List.of(rate(usd, eur, "0.9"), rate(usd, gbp, "0.8"))));
+
+        // Act
+        RateSnapshotReader reader = RateSnapshotReader.open(file);
+
+        // Assert
+        assertEquals(-1, reader.indexOf("JPY"));
+        assertTrue(Double.isNaN(reader.rate("USD", "JPY")));
+        assertTrue(Double.isNaN(reader.rate("EUR", "GBP")));
+    }
+
+    @Test
+    @DisplayName("refresh() переключается на файл, заменённый новой версией, и ничего не делает без замены")
+    void refresh_ReplacedFile_SwitchesMapping() throws IOException {
+        // Arrange
+        publish(RateBook.of(1, List.of(usd, eur), List.of(rate(usd, eur, "0.9"))));
+        RateSnapshotReader reader = RateSnapshotReader.open(file);
+        assertFalse(reader.refresh());
+
+        // Act
+        publish(RateBook.of(2, List.of(usd, eur, gbp), List.of(rate(usd, eur, "0.95"), rate(eur, gbp, "0.85"))));
+        boolean refreshed = reader.refresh();
+
+        // Assert
+        assertTrue(refreshed);
+        assertEquals(2, reader.getVersion());
+        assertEquals(0.95, reader.rate("USD", "EUR"));
+        assertEquals(0.85, reader.rate("EUR", "GBP"));
+        try (Stream<Path> paths = Files.list(directory)) {
+            assertEquals(List.of(file), paths.toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Файл не в формате снимка не открывается")
+    void open_ForeignFile_Throws() throws IOException {
+        // Arrange
+        ByteBuffer header = ByteBuffer.allocate(RateSnapshotLayout.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(0x12345678);
+        Files.write(file, header.array());
+
+        // Act & Assert
+        assertThrows(IOException.class, () -> RateSnapshotReader.open(file));
+    }
+}
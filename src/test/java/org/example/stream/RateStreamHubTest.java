@@ -0,0 +1,121 @@
+package org.example.stream;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletOutputStream;
+import org.example.dto.ExchangeRateDto;
+import org.example.entity.Currency;
+import org.example.entity.ExchangeRate;
+import org.example.mapper.ExchangeRateMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateStreamHubTest {
+
+    @Mock
+    private ExchangeRateMapper exchangeRateMapper;
+
+    @Mock
+    private AsyncContext asyncContext;
+
+    @Mock
+    private ServletOutputStream out;
+
+    private RateStreamHub hub;
+
+    private final Currency usd = new Currency(1, "USD", "US Dollar", "$");
+    private final Currency eur = new Currency(2, "EUR", "Euro", "€");
+    private final Currency gbp = new Currency(3, "GBP", "Pound", "£");
+
+    @BeforeEach
+    void setUp() {
+        hub = new RateStreamHub(exchangeRateMapper, 2, 10, 100, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hub.close();
+    }
+
+    @Test
+    @DisplayName("Подписчик с фильтром по паре получает только свою пару")
+    void onRateCommitted_PairFilter_DeliversOnlyMatchingPair() throws Exception {
+        // Arrange
+        when(out.isReady()).thenReturn(true);
+        ExchangeRateDto dto = new ExchangeRateDto();
+        dto.setRate(new BigDecimal("0.9"));
+        when(exchangeRateMapper.toDto(any(ExchangeRate.class))).thenReturn(dto);
+        hub.subscribe(asyncContext, out, Set.of("USDEUR"), Set.of(), false);
+
+        // Act
+        hub.onRateCommitted(new ExchangeRate(2, usd, gbp, new BigDecimal("0.8")));
+        hub.onRateCommitted(new ExchangeRate(1, usd, eur, new BigDecimal("0.9")));
+
+        // Assert — «connected» и одно событие rate; USDGBP отфильтрован
+        ArgumentCaptor<byte[]> frames = ArgumentCaptor.forClass(byte[].class);
+        verify(out, timeout(1_000).times(2)).write(frames.capture());
+        String event = new String(frames.getAllValues().get(1), StandardCharsets.UTF_8);
+        assertTrue(event.contains("event: rate\n"));
+        assertTrue(event.contains("\"rate\":0.9"));
+        verify(exchangeRateMapper, times(2)).toDto(any(ExchangeRate.class));
+    }
+
+    @Test
+    @DisplayName("Медленный подписчик теряет недоставленные события и получает один resync")
+    void enqueue_SlowConsumer_ReplacedByResync() throws Exception {
+        // Arrange — сокет занят, кадры копятся в очереди на два элемента
+        when(out.isReady()).thenReturn(false);
+        RateStreamSubscriber subscriber = hub.subscribe(asyncContext, out, Set.of(), Set.of(), false);
+        verify(out).setWriteListener(subscriber);
+
+        // Act — третий кадр переполняет очередь
+        subscriber.enqueue(frame("a"));
+        subscriber.enqueue(frame("b"));
+        when(out.isReady()).thenReturn(true);
+        subscriber.onWritePossible();
+
+        // Assert
+        ArgumentCaptor<byte[]> frames = ArgumentCaptor.forClass(byte[].class);
+        verify(out).write(frames.capture());
+        List<String> written = frames.getAllValues().stream()
+                .map(bytes -> new String(bytes, StandardCharsets.UTF_8))
+                .toList();
+        assertEquals(1, written.size());
+        assertTrue(written.getFirst().contains("event: resync\n"));
+    }
+
+    @Test
+    @DisplayName("После отключения подписчик больше не получает событий")
+    void close_Unsubscribes() {
+        // Arrange
+        when(out.isReady()).thenReturn(true);
+        RateStreamSubscriber subscriber = hub.subscribe(asyncContext, out, Set.of(), Set.of(), false);
+
+        // Act
+        subscriber.onError(new IOException("Broken pipe"));
+
+        // Assert
+        assertEquals(0, hub.subscriberCount());
+        verify(asyncContext).complete();
+    }
+
+    private static byte[] frame(String data) {
+        return ("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
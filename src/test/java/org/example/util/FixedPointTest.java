@@ -0,0 +1,101 @@
+package org.example.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTest {
+    private static final int SAMPLES = 200_000;
+    private static final long[] EDGES = {
+            0, 1, -1, 5, -5, 15, -15, 25, -25, 49, 50, 51, -49, -50, -51,
+            Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1,
+            999_999_999_999_999_999L, -999_999_999_999_999_999L
+    };
+
+    @Test
+    @DisplayName("rescale совпадает с BigDecimal.setScale(HALF_UP) на всём диапазоне long либо сообщает о переполнении")
+    void rescale_MatchesBigDecimal() {
+        Random random = new Random(20240501L);
+        for (long unscaled : EDGES) {
+            for (int scale = -3; scale <= 22; scale++) {
+                for (int newScale = -2; newScale <= 12; newScale++) {
+                    assertRescale(unscaled, scale, newScale);
+                }
+            }
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            assertRescale(randomLong(random), random.nextInt(30) - 5, random.nextInt(16) - 2);
+        }
+    }
+
+    @Test
+    @DisplayName("divideHalfUp совпадает с BigDecimal.divide(HALF_UP) для любых знаков и величин")
+    void divideHalfUp_MatchesBigDecimal() {
+        Random random = new Random(7L);
+        for (long dividend : EDGES) {
+            for (long divisor : EDGES) {
+                if (divisor != 0) {
+                    assertDivide(dividend, divisor);
+                }
+            }
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            long divisor = randomLong(random);
+            if (divisor != 0) {
+                assertDivide(randomLong(random), divisor);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Мантисса есть только у чисел, помещающихся в long")
+    void of_RejectsWideValues() {
+        assertEquals(new FixedPoint(123456, 4), FixedPoint.of(new BigDecimal("12.3456")));
+        assertEquals(new FixedPoint(-5, -3), FixedPoint.of(new BigDecimal("-5E+3")));
+        assertNull(FixedPoint.of(new BigDecimal("12345678901234567890")));
+    }
+
+    private static void assertRescale(long unscaled, int scale, int newScale) {
+        BigDecimal expected = BigDecimal.valueOf(unscaled, scale).setScale(newScale, RoundingMode.HALF_UP);
+        long actual;
+        try {
+            actual = FixedPoint.rescale(unscaled, scale, newScale);
+        } catch (ArithmeticException overflow) {
+            // Отказ допустим только там, где результат и правда не помещается в long (или сдвиг больше 10^18)
+            assertTrue(expected.unscaledValue().bitLength() > 63 || Math.abs(scale - newScale) > 18,
+                    () -> "Unexpected overflow for " + unscaled + "E-" + scale + " -> scale " + newScale);
+            return;
+        }
+        assertEquals(expected, BigDecimal.valueOf(actual, newScale),
+                () -> unscaled + "E-" + scale + " -> scale " + newScale);
+    }
+
+    private static void assertDivide(long dividend, long divisor) {
+        BigDecimal expected = BigDecimal.valueOf(dividend).divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP);
+        long actual;
+        try {
+            actual = FixedPoint.divideHalfUp(dividend, divisor);
+        } catch (ArithmeticException overflow) {
+            assertTrue(expected.unscaledValue().bitLength() > 63 || divisor == Long.MIN_VALUE
+                            || dividend == Long.MIN_VALUE,
+                    () -> "Unexpected overflow for " + dividend + " / " + divisor);
+            return;
+        }
+        assertEquals(expected, BigDecimal.valueOf(actual), () -> dividend + " / " + divisor);
+    }
+
+    // Равномерно по числу значащих цифр, а не по значению: иначе почти все числа были бы порядка 10^18
+    private static long randomLong(Random random) {
+        long bound = FixedPoint.pow10(random.nextInt(19));
+        long value = bound == 1 ? random.nextInt(2) : random.nextLong(bound);
+        if (random.nextInt(10) == 0) {
+            value = random.nextLong();
+        }
+        return random.nextBoolean() ? value : -value;
+    }
+}
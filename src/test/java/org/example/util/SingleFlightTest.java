@@ -0,0 +1,115 @@
+package org.example.util;
+
+import org.example.exceptions.DatabaseException;
+import org.example.exceptions.ServiceUnavailableException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+    private static final int CALLERS = 16;
+
+    @Test
+    @DisplayName("Одновременные вызовы по одному ключу делят одну загрузку и получают один результат")
+    void load_ConcurrentCallers_ShareOneLoad() throws Exception {
+        // Arrange
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 5_000);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Act — загрузка держится, пока все вызывающие не встанут в очередь
+        List<Future<String>> results = callConcurrently(() -> flight.load("USDEUR", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "0.91";
+        }), flight, release);
+
+        // Assert
+        for (Future<String> result : results) {
+            assertEquals("0.91", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        assertEquals(0, flight.inFlightCount());
+    }
+
+    @Test
+    @DisplayName("Ошибка загрузки достаётся каждому ждущему, следующий вызов грузит заново")
+    void load_LoaderFails_EveryCallerGetsError() throws Exception {
+        // Arrange
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 5_000);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Act
+        List<Future<String>> results = callConcurrently(() -> flight.load("USDEUR", () -> {
+            await(release);
+            throw new DatabaseException("Pool exhausted");
+        }), flight, release);
+
+        // Assert
+        for (Future<String> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof DatabaseException);
+        }
+        assertEquals("ok", flight.load("USDEUR", () -> "ok"));
+    }
+
+    @Test
+    @DisplayName("Ждущий не дольше таймаута: получает 503, загрузка ведущего при этом продолжается")
+    void load_FollowerTimesOut() throws Exception {
+        // Arrange
+        SingleFlight<String, String> flight = new SingleFlight<>("test", 50);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<String> leader = executor.submit(() -> flight.load("USDEUR", () -> {
+            started.countDown();
+            await(release);
+            return "0.91";
+        }));
+        started.await();
+
+        // Act & Assert
+        assertThrows(ServiceUnavailableException.class, () -> flight.load("USDEUR", () -> "unused"));
+        release.countDown();
+        assertEquals("0.91", leader.get(5, TimeUnit.SECONDS));
+        executor.shutdown();
+    }
+
+    // Запускает CALLERS вызовов и отпускает загрузку, когда все, кроме ведущего, уже ждут её результат
+    private static List<Future<String>> callConcurrently(java.util.concurrent.Callable<String> call,
+                                                         SingleFlight<String, String> flight,
+                                                         CountDownLatch release) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(call));
+        }
+        while (flight.inFlightCount() == 0) {
+            Thread.onSpinWait();
+        }
+        // Поздний вызывающий всё равно получит результат — либо общий, либо свой
+        Thread.sleep(100);
+        release.countDown();
+        executor.shutdown();
+        return results;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
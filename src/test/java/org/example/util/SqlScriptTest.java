@@ -0,0 +1,94 @@
+package org.example.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlScriptTest {
+
+    @Test
+    @DisplayName("Выражения делятся по точке с запятой, комментарии и пустые части отбрасываются")
+    void split_PlainStatements() {
+        // Arrange
+        String script = """
+                -- таблица
+                CREATE TABLE A (ID INTEGER);
+
+                INSERT INTO A VALUES (1); -- хвостовой комментарий
+                ;
+                """;
+
+        // Act
+        List<String> statements = SqlScript.split(script);
+
+        // Assert
+        assertEquals(List.of("CREATE TABLE A (ID INTEGER)", "INSERT INTO A VALUES (1)"), statements);
+    }
+
+    @Test
+    @DisplayName("\"--\" и точка с запятой внутри литералов и имён в кавычках сохраняются")
+    void split_QuotedCommentMarkersKept() {
+        // Arrange
+        String script = """
+                INSERT INTO A VALUES ('a -- not a comment; still text', 'it''s'); -- комментарий
+                SELECT "col--name" FROM A;
+                """;
+
+        // Act
+        List<String> statements = SqlScript.split(script);
+
+        // Assert
+        assertEquals(List.of(
+                "INSERT INTO A VALUES ('a -- not a comment; still text', 'it''s')",
+                "SELECT \"col--name\" FROM A"
+        ), statements);
+    }
+
+    @Test
+    @DisplayName("Тело триггера между BEGIN и END остаётся одним выражением")
+    void split_TriggerBodyKeptWhole() {
+        // Arrange
+        String script = """
+                CREATE TRIGGER IF NOT EXISTS trg
+                    AFTER INSERT ON A
+                BEGIN
+                    INSERT INTO B VALUES (NEW.ID);
+                    DELETE FROM C WHERE ID = NEW.ID;
+                END;
+                SELECT 1;
+                """;
+
+        // Act
+        List<String> statements = SqlScript.split(script);
+
+        // Assert
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(0).startsWith("CREATE TRIGGER IF NOT EXISTS trg"));
+        assertTrue(statements.get(0).contains("INSERT INTO B VALUES (NEW.ID);"));
+        assertTrue(statements.get(0).endsWith("END"));
+        assertEquals("SELECT 1", statements.get(1));
+    }
+
+    @Test
+    @DisplayName("Схема приложения разбирается: каждый триггер — отдельное выражение целиком")
+    void split_ApplicationSchema() throws Exception {
+        // Arrange
+        String schema;
+        try (var is = SqlScript.class.getClassLoader().getResourceAsStream("database/schema.sql")) {
+            schema = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        // Act
+        List<String> triggers = SqlScript.split(schema).stream()
+                .filter(statement -> statement.startsWith("CREATE TRIGGER"))
+                .toList();
+
+        // Assert
+        assertEquals(6, triggers.size());
+        triggers.forEach(trigger -> assertTrue(trigger.endsWith("END"), trigger));
+    }
+}